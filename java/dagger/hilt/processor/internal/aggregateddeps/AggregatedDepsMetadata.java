@@ -30,6 +30,7 @@ import dagger.hilt.processor.internal.AnnotationValues;
 import dagger.hilt.processor.internal.ClassNames;
 import dagger.hilt.processor.internal.Processors;
 import dagger.hilt.processor.internal.root.ir.AggregatedDepsIr;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import javax.lang.model.element.AnnotationMirror;
@@ -83,6 +84,21 @@ public abstract class AggregatedDepsMetadata {
         .collect(toImmutableSet());
   }
 
+  /**
+   * Returns metadata for each aggregated element, reusing the metadata in {@code cache} for
+   * elements that were already seen and adding to it for those that weren't.
+   */
+  public static ImmutableSet<AggregatedDepsMetadata> from(
+      ImmutableSet<TypeElement> aggregatedElements,
+      Map<TypeElement, AggregatedDepsMetadata> cache,
+      Elements elements) {
+    return aggregatedElements.stream()
+        .map(
+            aggregatedElement ->
+                cache.computeIfAbsent(aggregatedElement, element -> create(element, elements)))
+        .collect(toImmutableSet());
+  }
+
   public static AggregatedDepsIr toIr(AggregatedDepsMetadata metadata) {
     return new AggregatedDepsIr(
         ClassName.get(metadata.aggregatingElement()),
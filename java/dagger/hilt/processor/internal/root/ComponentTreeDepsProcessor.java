@@ -45,7 +45,9 @@ import dagger.hilt.processor.internal.definecomponent.DefineComponents;
 import dagger.hilt.processor.internal.earlyentrypoint.AggregatedEarlyEntryPointMetadata;
 import dagger.hilt.processor.internal.uninstallmodules.AggregatedUninstallModulesMetadata;
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import javax.annotation.processing.Processor;
 import javax.annotation.processing.RoundEnvironment;
@@ -61,6 +63,10 @@ public final class ComponentTreeDepsProcessor extends BaseProcessor {
   private final Set<ClassName> processed = new HashSet<>();
   private final DefineComponents defineComponents = DefineComponents.create();
 
+  // Most @AggregatedDeps are shared by every component tree (e.g. by each test root when shared
+  // test components are disabled), so each one is only parsed once per round.
+  private final Map<TypeElement, AggregatedDepsMetadata> aggregatedDepsMetadatas = new HashMap<>();
+
   @Override
   public ImmutableSet<String> getSupportedAnnotationTypes() {
     return ImmutableSet.of(ClassNames.COMPONENT_TREE_DEPS.toString());
@@ -80,8 +86,12 @@ public final class ComponentTreeDepsProcessor extends BaseProcessor {
             .map(element -> ComponentTreeDepsMetadata.from(element, getElementUtils()))
             .collect(toImmutableSet());
 
-    for (ComponentTreeDepsMetadata metadata : componentTreeDepsToProcess) {
-      processComponentTreeDeps(metadata);
+    try {
+      for (ComponentTreeDepsMetadata metadata : componentTreeDepsToProcess) {
+        processComponentTreeDeps(metadata);
+      }
+    } finally {
+      aggregatedDepsMetadatas.clear();
     }
   }
 
@@ -119,7 +129,8 @@ public final class ComponentTreeDepsProcessor extends BaseProcessor {
       ComponentDependencies deps =
           ComponentDependencies.from(
               componentDescriptors,
-              AggregatedDepsMetadata.from(metadata.aggregatedDeps(), getElementUtils()),
+              AggregatedDepsMetadata.from(
+                  metadata.aggregatedDeps(), aggregatedDepsMetadatas, getElementUtils()),
               AggregatedUninstallModulesMetadata.from(
                   metadata.aggregatedUninstallModulesDeps(), getElementUtils()),
               AggregatedEarlyEntryPointMetadata.from(
@@ -16,6 +16,8 @@
 
 package dagger.internal;
 
+import static dagger.internal.DaggerCollections.enumKeyTypeInDeclarationOrder;
+import static dagger.internal.DaggerCollections.newEnumMap;
 import static dagger.internal.DaggerCollections.newLinkedHashMapWithExpectedSize;
 import static dagger.internal.Preconditions.checkNotNull;
 import static java.util.Collections.unmodifiableMap;
@@ -33,8 +35,17 @@ import javax.inject.Provider;
  */
 abstract class AbstractMapFactory<K, V, V2> implements Factory<Map<K, V2>> {
   private final Map<K, Provider<V>> contributingMap;
+  // Non-null if the keys are enum constants contributed in declaration order. Such maps are backed
+  // by an EnumMap, which looks up keys by ordinal instead of hashing them.
+  private final Class<?> enumKeyType;
 
   AbstractMapFactory(Map<K, Provider<V>> map) {
+    this.enumKeyType = enumKeyTypeInDeclarationOrder(map);
+    if (enumKeyType != null) {
+      Map<K, Provider<V>> enumMap = newEnumMap(enumKeyType);
+      enumMap.putAll(map);
+      map = enumMap;
+    }
     this.contributingMap = unmodifiableMap(map);
   }
 
@@ -43,6 +54,16 @@ abstract class AbstractMapFactory<K, V, V2> implements Factory<Map<K, V2>> {
     return contributingMap;
   }
 
+  /**
+   * Returns a new, empty map that can hold a value for each key of {@link #contributingMap()} and
+   * iterates over them in the same order.
+   */
+  final <T> Map<K, T> newMapWithSameKeys() {
+    return enumKeyType != null
+        ? DaggerCollections.<K, T>newEnumMap(enumKeyType)
+        : DaggerCollections.<K, T>newLinkedHashMapWithExpectedSize(contributingMap.size());
+  }
+
   /** A builder for {@link AbstractMapFactory}. */
   public abstract static class Builder<K, V, V2> {
     final LinkedHashMap<K, Provider<V>> map;
@@ -18,9 +18,11 @@ package dagger.internal;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -74,6 +76,42 @@ public final class DaggerCollections {
     return new LinkedHashMap<K, V>(calculateInitialCapacity(expectedSize));
   }
 
+  /**
+   * Returns the enum type of the keys of {@code map} if they are all constants of a single enum
+   * type and {@code map} iterates over them in declaration order, or {@code null} otherwise. A map
+   * whose keys satisfy this can be backed by an {@link EnumMap} without changing its iteration
+   * order.
+   */
+  static Class<?> enumKeyTypeInDeclarationOrder(Map<?, ?> map) {
+    Class<?> enumType = null;
+    int previousOrdinal = -1;
+    for (Object key : map.keySet()) {
+      if (!(key instanceof Enum)) {
+        return null;
+      }
+      Enum<?> enumKey = (Enum<?>) key;
+      if (enumType == null) {
+        enumType = enumKey.getDeclaringClass();
+      } else if (enumKey.getDeclaringClass() != enumType) {
+        return null;
+      }
+      if (enumKey.ordinal() <= previousOrdinal) {
+        return null;
+      }
+      previousOrdinal = enumKey.ordinal();
+    }
+    return enumType;
+  }
+
+  /**
+   * Creates an {@link EnumMap} for {@code enumType}, which must be a type returned by {@link
+   * #enumKeyTypeInDeclarationOrder(Map)}.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"}) // enumType is the type of each K
+  static <K, V> Map<K, V> newEnumMap(Class<?> enumType) {
+    return new EnumMap(enumType);
+  }
+
   private static int calculateInitialCapacity(int expectedSize) {
     if (expectedSize < 3) {
       return expectedSize + 1;
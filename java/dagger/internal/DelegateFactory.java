@@ -66,5 +66,10 @@ public final class DelegateFactory<T> implements Factory<T> {
   Provider<T> getDelegate() {
     return checkNotNull(delegate);
   }
+
+  /** Returns the factory's delegate, or {@code null} if it has not been set. */
+  Provider<T> delegateIfSet() {
+    return delegate;
+  }
 }
 
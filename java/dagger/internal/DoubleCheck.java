@@ -87,6 +87,18 @@ public final class DoubleCheck<T> implements Provider<T>, Lazy<T> {
   // This method is declared this way instead of "<T> Lazy<T> lazy(Provider<T> delegate)"
   // to work around an Eclipse type inference bug: https://github.com/google/dagger/issues/949.
   public static <P extends Provider<T>, T> Lazy<T> lazy(P provider) {
+    if (provider instanceof DelegateFactory) {
+      // A DelegateFactory stitches a dependency cycle, but once its delegate is set, it provides
+      // whatever the delegate provides. If the delegate already memoizes its value, e.g. because
+      // the binding is scoped, use it directly rather than allocating a new Lazy.
+      @SuppressWarnings("unchecked")
+      Provider<T> delegate = ((DelegateFactory<T>) provider).delegateIfSet();
+      if (delegate instanceof Lazy) {
+        @SuppressWarnings("unchecked")
+        final Lazy<T> lazy = (Lazy<T>) delegate;
+        return lazy;
+      }
+    }
     if (provider instanceof Lazy) {
       @SuppressWarnings("unchecked")
       final Lazy<T> lazy = (Lazy<T>) provider;
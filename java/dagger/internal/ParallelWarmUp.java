@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2021 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import static dagger.internal.Preconditions.checkNotNull;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.inject.Provider;
+
+/**
+ * Instantiates the scoped bindings of a component ahead of their first use. Used by generated
+ * {@code warmUp(Executor)} methods.
+ */
+@GwtIncompatible
+public final class ParallelWarmUp {
+  private ParallelWarmUp() {}
+
+  /**
+   * Calls {@link Provider#get()} on each of the providers in {@code waves}. Waves are run one after
+   * the other; the providers within a wave are run concurrently on {@code executor} and the calling
+   * thread. Returns once every provider has been called, rethrowing the first failure, if any.
+   *
+   * <p>A task that {@code executor} rejects is run on the calling thread instead.
+   */
+  public static void warmUp(Executor executor, Provider<?>[][] waves)
+      throws InterruptedException {
+    checkNotNull(executor);
+    for (Provider<?>[] wave : waves) {
+      warmUpWave(executor, wave);
+    }
+  }
+
+  private static void warmUpWave(Executor executor, Provider<?>[] wave)
+      throws InterruptedException {
+    if (wave.length == 0) {
+      return;
+    }
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    final CountDownLatch remaining = new CountDownLatch(wave.length);
+    for (int i = 1; i < wave.length; i++) {
+      Runnable task = new WarmUpTask(wave[i], failure, remaining);
+      try {
+        executor.execute(task);
+      } catch (RejectedExecutionException e) {
+        task.run();
+      }
+    }
+    // The calling thread would otherwise be idle, so it takes the first provider itself.
+    new WarmUpTask(wave[0], failure, remaining).run();
+    remaining.await();
+
+    Throwable thrown = failure.get();
+    if (thrown instanceof RuntimeException) {
+      throw (RuntimeException) thrown;
+    } else if (thrown instanceof Error) {
+      throw (Error) thrown;
+    } else if (thrown != null) {
+      throw new RuntimeException(thrown);
+    }
+  }
+
+  private static final class WarmUpTask implements Runnable {
+    private final Provider<?> provider;
+    private final AtomicReference<Throwable> failure;
+    private final CountDownLatch remaining;
+
+    WarmUpTask(
+        Provider<?> provider, AtomicReference<Throwable> failure, CountDownLatch remaining) {
+      this.provider = provider;
+      this.failure = failure;
+      this.remaining = remaining;
+    }
+
+    @Override
+    public void run() {
+      try {
+        provider.get();
+      } catch (Throwable t) {
+        failure.compareAndSet(null, t);
+      } finally {
+        remaining.countDown();
+      }
+    }
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2021 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import static dagger.internal.Preconditions.checkNotNull;
+
+import dagger.monitoring.ProvisionMonitor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.inject.Provider;
+
+/**
+ * Reports provisions to the installed {@link ProvisionMonitor}. Calls to these methods are only
+ * generated when the {@code dagger.monitorProvisions} compiler option is enabled.
+ */
+@GwtIncompatible
+public final class ProvisionMonitoring {
+  private static final Logger logger = Logger.getLogger(ProvisionMonitoring.class.getName());
+
+  /** The depth passed to {@link #end} when no monitor was installed at the start. */
+  private static final int UNMONITORED = -1;
+
+  private static volatile ProvisionMonitor monitor;
+
+  private static final ThreadLocal<int[]> depths =
+      new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+          return new int[1];
+        }
+      };
+
+  private ProvisionMonitoring() {}
+
+  /** Sets the monitor that is called by all monitored components, or clears it if {@code null}. */
+  public static void install(ProvisionMonitor provisionMonitor) {
+    monitor = provisionMonitor;
+  }
+
+  /**
+   * Reports the start of a provision of {@code key} and returns the depth that must be passed to
+   * the matching {@link #end} and {@link #exit} calls.
+   */
+  public static int start(String key) {
+    ProvisionMonitor localMonitor = monitor;
+    if (localMonitor == null) {
+      return UNMONITORED;
+    }
+    int[] depth = depths.get();
+    int startDepth = depth[0]++;
+    try {
+      localMonitor.onProvisionStart(key, startDepth, Thread.currentThread(), System.nanoTime());
+    } catch (RuntimeException e) {
+      logMonitorException(localMonitor, e);
+    }
+    return startDepth;
+  }
+
+  /**
+   * Reports the end of a provision of {@code key} that started at {@code depth} and returned
+   * normally, and returns the provided {@code instance}.
+   */
+  public static <T> T end(String key, int depth, T instance) {
+    if (depth == UNMONITORED) {
+      return instance;
+    }
+    ProvisionMonitor localMonitor = monitor;
+    if (localMonitor != null) {
+      try {
+        localMonitor.onProvisionEnd(key, depth, Thread.currentThread(), System.nanoTime());
+      } catch (RuntimeException e) {
+        logMonitorException(localMonitor, e);
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Restores the depth of the current thread after a provision that started at {@code depth},
+   * whether it returned or threw. This must be called in a {@code finally} block, so that a
+   * provision that throws doesn't leave the depths of every later provision on the thread too
+   * large.
+   */
+  public static void exit(int depth) {
+    if (depth != UNMONITORED) {
+      depths.get()[0] = depth;
+    }
+  }
+
+  /** Returns a provider that reports calls to {@code delegate} as a provision of {@code key}. */
+  public static <T> Provider<T> provider(String key, Provider<T> delegate) {
+    return new MonitoredProvider<T>(key, checkNotNull(delegate));
+  }
+
+  private static void logMonitorException(ProvisionMonitor provisionMonitor, RuntimeException e) {
+    logger.log(
+        Level.SEVERE, "RuntimeException while calling ProvisionMonitor: " + provisionMonitor, e);
+  }
+
+  private static final class MonitoredProvider<T> implements Provider<T> {
+    private final String key;
+    private final Provider<T> delegate;
+
+    MonitoredProvider(String key, Provider<T> delegate) {
+      this.key = key;
+      this.delegate = delegate;
+    }
+
+    @Override
+    public T get() {
+      int depth = start(key);
+      try {
+        return end(key, depth, delegate.get());
+      } finally {
+        exit(depth);
+      }
+    }
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import dagger.Lazy;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.inject.Provider;
+
+/**
+ * Stores the instances of a component's scoped bindings in a single array, indexed by slot. Used
+ * by generated components in place of a {@link DoubleCheck} field per scoped binding.
+ *
+ * <p>Instances are created by {@link #create(int)} using the double-check idiom. As with {@link
+ * DoubleCheck}, each slot has its own lock, so the instances of independent bindings can be created
+ * concurrently. The lock is the slot's {@link #provider(int) provider}, so it is only allocated
+ * once the slot is used.
+ */
+@GwtIncompatible
+public abstract class ScopedInstanceSlots {
+  private static final Object UNINITIALIZED = new Object();
+
+  private final AtomicReferenceArray<Object> instances;
+  private final AtomicReferenceArray<Provider<?>> providers;
+
+  protected ScopedInstanceSlots(int size) {
+    instances = new AtomicReferenceArray<Object>(size);
+    providers = new AtomicReferenceArray<Provider<?>>(size);
+    for (int slot = 0; slot < size; slot++) {
+      instances.set(slot, UNINITIALIZED);
+    }
+  }
+
+  /** Creates a new instance for {@code slot}. */
+  protected abstract Object create(int slot);
+
+  /** Returns the instance stored in {@code slot}, creating it if needed. */
+  public final Object get(int slot) {
+    Object result = instances.get(slot);
+    if (result == UNINITIALIZED) {
+      // A single lock for all slots would serialize unrelated bindings, and striping the locks
+      // could deadlock two threads that each create a binding whose dependency shares the other's
+      // stripe. Like DoubleCheck, a lock per slot can only deadlock on a dependency cycle.
+      synchronized (provider(slot)) {
+        result = instances.get(slot);
+        if (result == UNINITIALIZED) {
+          result = create(slot);
+          instances.set(slot, reentrantCheck(instances.get(slot), result));
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns a {@link Provider} for the instance stored in {@code slot}. The provider is also a
+   * {@link Lazy}, so that {@link DoubleCheck#lazy} can return it as is.
+   */
+  @SuppressWarnings("unchecked") // the provider for a slot is always created for the same type
+  public final <T> Provider<T> provider(int slot) {
+    Provider<?> provider = providers.get(slot);
+    if (provider == null) {
+      provider = new SlotProvider<T>(this, slot);
+      if (!providers.compareAndSet(slot, null, provider)) {
+        provider = providers.get(slot);
+      }
+    }
+    return (Provider<T>) provider;
+  }
+
+  /**
+   * Checks to see if creating the new instance has resulted in a recursive call. If it has, and the
+   * new instance is the same as the current instance, return the instance. However, if the new
+   * instance differs from the current instance, an {@link IllegalStateException} is thrown.
+   */
+  private static Object reentrantCheck(Object currentInstance, Object newInstance) {
+    boolean isReentrant = currentInstance != UNINITIALIZED;
+    if (isReentrant && currentInstance != newInstance) {
+      throw new IllegalStateException("Scoped provider was invoked recursively returning "
+          + "different results: " + currentInstance + " & " + newInstance + ". This is likely "
+          + "due to a circular dependency.");
+    }
+    return newInstance;
+  }
+
+  private static final class SlotProvider<T> implements Provider<T>, Lazy<T> {
+    private final ScopedInstanceSlots slots;
+    private final int slot;
+
+    SlotProvider(ScopedInstanceSlots slots, int slot) {
+      this.slots = slots;
+      this.slot = slot;
+    }
+
+    @SuppressWarnings("unchecked") // cast only happens when result comes from create(slot)
+    @Override
+    public T get() {
+      return (T) slots.get(slot);
+    }
+  }
+}
@@ -20,6 +20,7 @@ import dagger.Binds;
 import dagger.Module;
 import dagger.internal.codegen.base.ClearableCache;
 import dagger.internal.codegen.binding.BindingGraphFactory;
+import dagger.internal.codegen.binding.KeyFactory;
 import dagger.internal.codegen.binding.ModuleDescriptor;
 import dagger.internal.codegen.kotlin.KotlinMetadataFactory;
 import dagger.internal.codegen.validation.AnyBindingMethodValidator;
@@ -51,6 +52,10 @@ interface ProcessingRoundCacheModule {
   @IntoSet
   ClearableCache bindingGraphFactory(BindingGraphFactory cache);
 
+  @Binds
+  @IntoSet
+  ClearableCache keyFactory(KeyFactory cache);
+
   @Binds
   @IntoSet
   ClearableCache componentValidator(ComponentValidator cache);
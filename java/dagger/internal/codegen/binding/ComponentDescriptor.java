@@ -25,6 +25,7 @@ import static dagger.internal.codegen.extension.DaggerStreams.toImmutableMap;
 import static dagger.internal.codegen.extension.DaggerStreams.toImmutableSet;
 import static dagger.internal.codegen.langmodel.DaggerTypes.isFutureType;
 import static dagger.internal.codegen.langmodel.DaggerTypes.isTypeOf;
+import static dagger.internal.codegen.xprocessing.XElements.getSimpleName;
 import static javax.lang.model.type.TypeKind.VOID;
 
 import androidx.room.compiler.processing.XElement;
@@ -45,7 +46,9 @@ import dagger.Component;
 import dagger.Module;
 import dagger.Subcomponent;
 import dagger.internal.codegen.base.ComponentAnnotation;
+import dagger.internal.codegen.javapoet.TypeNames;
 import dagger.internal.codegen.langmodel.DaggerTypes;
+import dagger.internal.codegen.xprocessing.XTypes;
 import dagger.producers.CancellationPolicy;
 import dagger.spi.model.DependencyRequest;
 import dagger.spi.model.Scope;
@@ -389,6 +392,20 @@ public abstract class ComponentDescriptor {
     }
   }
 
+  /** The name of the method generated when {@code -Adagger.generateWarmUpMethod} is enabled. */
+  public static final String WARM_UP_METHOD_NAME = "warmUp";
+
+  /**
+   * Returns {@code true} if {@code method} is named {@code warmUp} and takes a single {@link
+   * java.util.concurrent.Executor}, in which case a root component may declare it to expose its
+   * generated warm-up method.
+   */
+  public static boolean isWarmUpMethod(XMethodElement method) {
+    return getSimpleName(method).equals(WARM_UP_METHOD_NAME)
+        && method.getParameters().size() == 1
+        && XTypes.isTypeOf(method.getParameters().get(0).getType(), TypeNames.EXECUTOR);
+  }
+
   /** No-argument methods defined on {@link Object} that are ignored for contribution. */
   private static final ImmutableSet<String> NON_CONTRIBUTING_OBJECT_METHOD_NAMES =
       ImmutableSet.of("toString", "hashCode", "clone", "getClass");
@@ -28,6 +28,7 @@ import static dagger.internal.codegen.base.Scopes.productionScope;
 import static dagger.internal.codegen.base.Scopes.scopesOf;
 import static dagger.internal.codegen.binding.ComponentCreatorAnnotation.creatorAnnotationsFor;
 import static dagger.internal.codegen.binding.ComponentDescriptor.isComponentContributionMethod;
+import static dagger.internal.codegen.binding.ComponentDescriptor.isWarmUpMethod;
 import static dagger.internal.codegen.binding.ConfigurationAnnotations.enclosedAnnotatedTypes;
 import static dagger.internal.codegen.binding.ConfigurationAnnotations.isSubcomponentCreator;
 import static dagger.internal.codegen.extension.DaggerStreams.toImmutableSet;
@@ -47,6 +48,7 @@ import com.google.common.collect.ImmutableSet;
 import dagger.internal.codegen.base.ComponentAnnotation;
 import dagger.internal.codegen.base.ModuleAnnotation;
 import dagger.internal.codegen.binding.ComponentDescriptor.ComponentMethodDescriptor;
+import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.langmodel.DaggerElements;
 import dagger.internal.codegen.langmodel.DaggerTypes;
 import dagger.spi.model.Scope;
@@ -62,6 +64,7 @@ public final class ComponentDescriptorFactory {
   private final DependencyRequestFactory dependencyRequestFactory;
   private final ModuleDescriptor.Factory moduleDescriptorFactory;
   private final InjectionAnnotations injectionAnnotations;
+  private final CompilerOptions compilerOptions;
 
   @Inject
   ComponentDescriptorFactory(
@@ -70,13 +73,15 @@ public final class ComponentDescriptorFactory {
       DaggerTypes types,
       DependencyRequestFactory dependencyRequestFactory,
       ModuleDescriptor.Factory moduleDescriptorFactory,
-      InjectionAnnotations injectionAnnotations) {
+      InjectionAnnotations injectionAnnotations,
+      CompilerOptions compilerOptions) {
     this.processingEnv = processingEnv;
     this.elements = elements;
     this.types = types;
     this.dependencyRequestFactory = dependencyRequestFactory;
     this.moduleDescriptorFactory = moduleDescriptorFactory;
     this.injectionAnnotations = injectionAnnotations;
+    this.compilerOptions = compilerOptions;
   }
 
   /** Returns a descriptor for a root component type. */
@@ -147,6 +152,10 @@ public final class ComponentDescriptorFactory {
         subcomponentsByBuilderMethod = ImmutableBiMap.builder();
     if (componentAnnotation.isRealComponent()) {
       for (XMethodElement componentMethod : getAllUnimplementedMethods(typeElement)) {
+        if (declaresGeneratedWarmUpMethod(componentAnnotation, componentMethod)) {
+          // Implemented by the generated warm-up method rather than as an entry point.
+          continue;
+        }
         ComponentMethodDescriptor componentMethodDescriptor =
             getDescriptorForComponentMethod(componentAnnotation, typeElement, componentMethod);
         componentMethodsBuilder.add(componentMethodDescriptor);
@@ -195,6 +204,13 @@ public final class ComponentDescriptorFactory {
         creatorDescriptor);
   }
 
+  private boolean declaresGeneratedWarmUpMethod(
+      ComponentAnnotation componentAnnotation, XMethodElement componentMethod) {
+    return compilerOptions.generateWarmUpMethod()
+        && !componentAnnotation.isSubcomponent()
+        && isWarmUpMethod(componentMethod);
+  }
+
   private ComponentMethodDescriptor getDescriptorForComponentMethod(
       ComponentAnnotation componentAnnotation,
       XTypeElement componentElement,
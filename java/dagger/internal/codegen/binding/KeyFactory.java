@@ -29,6 +29,7 @@ import static dagger.internal.codegen.binding.MapKeys.mapKeyType;
 import static dagger.internal.codegen.extension.DaggerStreams.toImmutableSet;
 import static dagger.internal.codegen.extension.Optionals.firstPresent;
 import static dagger.internal.codegen.langmodel.DaggerElements.isAnnotationPresent;
+import static dagger.internal.codegen.langmodel.DaggerTypes.isCompletionStageType;
 import static dagger.internal.codegen.langmodel.DaggerTypes.isFutureType;
 import static dagger.internal.codegen.langmodel.DaggerTypes.unwrapType;
 import static dagger.internal.codegen.xprocessing.XTypes.isDeclared;
@@ -46,6 +47,7 @@ import com.google.common.collect.ImmutableSet;
 import com.squareup.javapoet.ClassName;
 import dagger.Binds;
 import dagger.BindsOptionalOf;
+import dagger.internal.codegen.base.ClearableCache;
 import dagger.internal.codegen.base.ContributionType;
 import dagger.internal.codegen.base.FrameworkTypes;
 import dagger.internal.codegen.base.MapType;
@@ -61,10 +63,12 @@ import dagger.spi.model.DaggerType;
 import dagger.spi.model.Key;
 import dagger.spi.model.Key.MultibindingContributionIdentifier;
 import dagger.spi.model.RequestKind;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Stream;
 import javax.inject.Inject;
+import javax.inject.Singleton;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
@@ -73,12 +77,21 @@ import javax.lang.model.type.ExecutableType;
 import javax.lang.model.type.PrimitiveType;
 import javax.lang.model.type.TypeMirror;
 
-/** A factory for {@link Key}s. */
-public final class KeyFactory {
+/**
+ * A factory for {@link Key}s.
+ *
+ * <p>Every key returned by this factory is interned for the current processing round, so that keys
+ * that are structurally equal are also the same instance. Since {@link Key#equals(Object)} first
+ * checks for identity, this lets the many maps keyed by {@link Key} in {@link BindingGraphFactory}
+ * avoid comparing the underlying types and qualifiers whenever the keys came from this factory.
+ */
+@Singleton
+public final class KeyFactory implements ClearableCache {
   private final XProcessingEnv processingEnv;
   private final DaggerTypes types;
   private final DaggerElements elements;
   private final InjectionAnnotations injectionAnnotations;
+  private final Map<Key, Key> internedKeys = new HashMap<>();
 
   @Inject
   KeyFactory(
@@ -92,6 +105,20 @@ public final class KeyFactory {
     this.injectionAnnotations = injectionAnnotations;
   }
 
+  /**
+   * Returns the canonical instance of {@code key} for this processing round. The first key that is
+   * interned becomes the canonical instance for all keys that are equal to it.
+   */
+  private Key intern(Key key) {
+    Key internedKey = internedKeys.putIfAbsent(key, key);
+    return internedKey == null ? key : internedKey;
+  }
+
+  @Override
+  public void clearCache() {
+    internedKeys.clear();
+  }
+
   private TypeMirror boxPrimitives(TypeMirror type) {
     return type.getKind().isPrimitive() ? types.boxedClass((PrimitiveType) type).asType() : type;
   }
@@ -140,11 +167,11 @@ public final class KeyFactory {
       XMethodElement subcomponentCreatorMethod, XType declaredContainer) {
     checkArgument(isDeclared(declaredContainer));
     XMethodType resolvedMethod = subcomponentCreatorMethod.asMemberOf(declaredContainer);
-    return Key.builder(DaggerType.from(resolvedMethod.getReturnType())).build();
+    return intern(Key.builder(DaggerType.from(resolvedMethod.getReturnType())).build());
   }
 
   public Key forSubcomponentCreator(XType creatorType) {
-    return Key.builder(DaggerType.from(creatorType)).build();
+    return intern(Key.builder(DaggerType.from(creatorType)).build());
   }
 
   public Key forProvidesMethod(XMethodElement method, XTypeElement contributingModule) {
@@ -200,7 +227,7 @@ public final class KeyFactory {
     if (frameworkClassName.isPresent()
         && frameworkClassName.get().equals(TypeNames.PRODUCER)
         && isType(returnType)) {
-      if (isFutureType(methodType.getReturnType())) {
+      if (isFutureType(returnType) || isCompletionStageType(returnType)) {
         returnType = getOnlyElement(MoreTypes.asDeclared(returnType).getTypeArguments());
       } else if (contributionType.equals(ContributionType.SET_VALUES)
           && SetType.isSet(returnType)) {
@@ -218,10 +245,11 @@ public final class KeyFactory {
     Key key = forMethod(method, keyType);
     return contributionType.equals(ContributionType.UNIQUE)
         ? key
-        : key.toBuilder()
-            .multibindingContributionIdentifier(
-                new MultibindingContributionIdentifier(method, contributingModule))
-            .build();
+        : intern(
+            key.toBuilder()
+                .multibindingContributionIdentifier(
+                    new MultibindingContributionIdentifier(method, contributingModule))
+                .build());
   }
 
   /**
@@ -291,12 +319,12 @@ public final class KeyFactory {
   }
 
   public Key forInjectConstructorWithResolvedType(TypeMirror type) {
-    return Key.builder(fromJava(type)).build();
+    return intern(Key.builder(fromJava(type)).build());
   }
 
   // TODO(ronshapiro): Remove these conveniences which are simple wrappers around Key.Builder
   Key forType(XType type) {
-    return Key.builder(DaggerType.from(type)).build();
+    return intern(Key.builder(DaggerType.from(type)).build());
   }
 
   public Key forMembersInjectedType(TypeMirror type) {
@@ -304,7 +332,7 @@ public final class KeyFactory {
   }
 
   public Key forMembersInjectedType(XType type) {
-    return Key.builder(DaggerType.from(type)).build();
+    return intern(Key.builder(DaggerType.from(type)).build());
   }
 
   Key forQualifiedType(Optional<AnnotationMirror> qualifier, TypeMirror type) {
@@ -314,27 +342,31 @@ public final class KeyFactory {
   }
 
   Key forQualifiedType(Optional<XAnnotation> qualifier, XType type) {
-    return Key.builder(DaggerType.from(type.boxed()))
-        .qualifier(qualifier.map(DaggerAnnotation::from))
-        .build();
+    return intern(
+        Key.builder(DaggerType.from(type.boxed()))
+            .qualifier(qualifier.map(DaggerAnnotation::from))
+            .build());
   }
 
   public Key forProductionExecutor() {
-    return Key.builder(fromJava(elements.getTypeElement(TypeNames.EXECUTOR).asType()))
-        .qualifier(fromJava(toJavac(productionQualifier(processingEnv))))
-        .build();
+    return intern(
+        Key.builder(fromJava(elements.getTypeElement(TypeNames.EXECUTOR).asType()))
+            .qualifier(fromJava(toJavac(productionQualifier(processingEnv))))
+            .build());
   }
 
   public Key forProductionImplementationExecutor() {
-    return Key.builder(fromJava(elements.getTypeElement(TypeNames.EXECUTOR).asType()))
-        .qualifier(fromJava(toJavac(productionImplementationQualifier(processingEnv))))
-        .build();
+    return intern(
+        Key.builder(fromJava(elements.getTypeElement(TypeNames.EXECUTOR).asType()))
+            .qualifier(fromJava(toJavac(productionImplementationQualifier(processingEnv))))
+            .build());
   }
 
   public Key forProductionComponentMonitor() {
-    return Key.builder(
-            fromJava(elements.getTypeElement(TypeNames.PRODUCTION_COMPONENT_MONITOR).asType()))
-        .build();
+    return intern(
+        Key.builder(
+                fromJava(elements.getTypeElement(TypeNames.PRODUCTION_COMPONENT_MONITOR).asType()))
+            .build());
   }
 
   /**
@@ -387,10 +419,12 @@ public final class KeyFactory {
         for (ClassName frameworkClass :
             asList(TypeNames.PROVIDER, TypeNames.PRODUCER, TypeNames.PRODUCED)) {
           if (mapType.valuesAreTypeOf(frameworkClass)) {
-            return key.toBuilder()
-                .type(
-                    fromJava(mapOf(mapType.keyType(), mapType.unwrappedValueType(frameworkClass))))
-                .build();
+            return intern(
+                key.toBuilder()
+                    .type(
+                        fromJava(
+                            mapOf(mapType.keyType(), mapType.unwrappedValueType(frameworkClass))))
+                    .build());
           }
         }
       }
@@ -431,9 +465,10 @@ public final class KeyFactory {
             types.getDeclaredType(
                 wrappingElement, toJavac(mapType.unwrappedValueType(currentWrappingClassName)));
         return Optional.of(
-            possibleMapKey.toBuilder()
-                .type(fromJava(mapOf(toJavac(mapType.keyType()), wrappedValueType)))
-                .build());
+            intern(
+                possibleMapKey.toBuilder()
+                    .type(fromJava(mapOf(toJavac(mapType.keyType()), wrappedValueType)))
+                    .build()));
       }
     }
     return Optional.empty();
@@ -459,9 +494,10 @@ public final class KeyFactory {
         DeclaredType wrappedValueType =
             types.getDeclaredType(wrappingElement, toJavac(mapType.valueType()));
         return Optional.of(
-            possibleMapKey.toBuilder()
-                .type(fromJava(mapOf(toJavac(mapType.keyType()), wrappedValueType)))
-                .build());
+            intern(
+                possibleMapKey.toBuilder()
+                    .type(fromJava(mapOf(toJavac(mapType.keyType()), wrappedValueType)))
+                    .build()));
       }
     }
     return Optional.empty();
@@ -476,9 +512,10 @@ public final class KeyFactory {
       SetType setType = SetType.from(key);
       if (!setType.isRawType() && setType.elementsAreTypeOf(wrappingClassName)) {
         return Optional.of(
-            key.toBuilder()
-                .type(fromJava(setOf(toJavac(setType.unwrappedElementType(wrappingClassName)))))
-                .build());
+            intern(
+                key.toBuilder()
+                    .type(fromJava(setOf(toJavac(setType.unwrappedElementType(wrappingClassName)))))
+                    .build()));
       }
     }
     return Optional.empty();
@@ -496,7 +533,7 @@ public final class KeyFactory {
 
     XType optionalValueType = OptionalType.from(key).valueType();
     return Optional.of(
-        key.toBuilder().type(DaggerType.from(extractKeyType(optionalValueType))).build());
+        intern(key.toBuilder().type(DaggerType.from(extractKeyType(optionalValueType))).build()));
   }
 
   private DaggerAnnotation fromJava(AnnotationMirror annotation) {
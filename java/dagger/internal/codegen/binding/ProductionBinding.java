@@ -17,6 +17,7 @@
 package dagger.internal.codegen.binding;
 
 import static dagger.internal.codegen.extension.DaggerStreams.toImmutableSet;
+import static dagger.internal.codegen.langmodel.DaggerTypes.isCompletionStageType;
 import static dagger.internal.codegen.langmodel.DaggerTypes.isFutureType;
 
 import androidx.room.compiler.processing.XMethodElement;
@@ -60,12 +61,16 @@ public abstract class ProductionBinding extends ContributionBinding {
     /** A {@code ListenableFuture<T>}. */
     FUTURE,
     /** A {@code Set<ListenableFuture<T>>}. */
-    SET_OF_FUTURE;
+    SET_OF_FUTURE,
+    /** A {@code CompletionStage<T>} or {@code CompletableFuture<T>}. */
+    COMPLETION_STAGE;
 
     /** Returns the kind of object a {@code @Produces}-annotated method returns. */
     public static ProductionKind fromProducesMethod(XMethodElement producesMethod) {
       if (isFutureType(producesMethod.getReturnType())) {
         return FUTURE;
+      } else if (isCompletionStageType(producesMethod.getReturnType())) {
+        return COMPLETION_STAGE;
       } else if (ContributionType.fromBindingElement(producesMethod)
               .equals(ContributionType.SET_VALUES)
           && isFutureType(SetType.from(producesMethod.getReturnType()).elementType())) {
@@ -41,9 +41,10 @@ public interface BindingGraphValidationModule {
       MapMultibindingValidator validation6,
       MissingBindingValidator validation7,
       NullableBindingValidator validation8,
-      ProvisionDependencyOnProducerBindingValidator validation9,
-      SetMultibindingValidator validation10,
-      SubcomponentFactoryMethodValidator validation11) {
+      ProductionScheduleAnalyzer validation9,
+      ProvisionDependencyOnProducerBindingValidator validation10,
+      SetMultibindingValidator validation11,
+      SubcomponentFactoryMethodValidator validation12) {
     ImmutableSet<BindingGraphPlugin> plugins = ImmutableSet.of(
         validation1,
         validation2,
@@ -55,7 +56,8 @@ public interface BindingGraphValidationModule {
         validation8,
         validation9,
         validation10,
-        validation11);
+        validation11,
+        validation12);
     if (compilerOptions.experimentalDaggerErrorMessages()) {
       return ImmutableSet.of(factory.create(plugins, "Dagger/Validation"));
     } else {
@@ -0,0 +1,406 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.bindinggraphvalidation;
+
+import static androidx.room.compiler.processing.compat.XConverters.toJavac;
+import static com.google.common.collect.ImmutableListMultimap.toImmutableListMultimap;
+import static dagger.internal.codegen.extension.DaggerStreams.toImmutableList;
+import static dagger.internal.codegen.langmodel.DaggerTypes.isCompletionStageType;
+import static dagger.internal.codegen.langmodel.DaggerTypes.isTypeOf;
+import static java.util.stream.Collectors.joining;
+import static javax.tools.Diagnostic.Kind.ERROR;
+import static javax.tools.Diagnostic.Kind.NOTE;
+
+import androidx.room.compiler.processing.XFiler;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.SetMultimap;
+import com.google.common.primitives.Doubles;
+import dagger.internal.codegen.compileroption.CompilerOptions;
+import dagger.internal.codegen.javapoet.TypeNames;
+import dagger.spi.model.Binding;
+import dagger.spi.model.BindingGraph;
+import dagger.spi.model.BindingGraph.ComponentNode;
+import dagger.spi.model.BindingGraph.DependencyEdge;
+import dagger.spi.model.BindingGraph.Edge;
+import dagger.spi.model.BindingGraph.Node;
+import dagger.spi.model.BindingGraphPlugin;
+import dagger.spi.model.BindingKind;
+import dagger.spi.model.DiagnosticReporter;
+import dagger.spi.model.RequestKind;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+import javax.inject.Inject;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Reports a note for each production component, when {@link
+ * CompilerOptions#productionScheduleReport()} is enabled, describing how its producers can be
+ * scheduled.
+ *
+ * <p>Only the dependencies that a producer waits on before it runs are considered: requests for an
+ * instance, a {@code Produced<T>} or a {@code ListenableFuture<T>}. The report lists:
+ *
+ * <ul>
+ *   <li>the most producers that can run at the same step, if every producer runs as soon as its
+ *       inputs are ready and takes one step;
+ *   <li>the longest chain of producers below an entry point;
+ *   <li>with a {@linkplain CompilerOptions#producerLatencyProfile() latency profile}, the chain
+ *       with the highest median latency;
+ *   <li>the provision bindings that producers depend on, which are provided synchronously on the
+ *       thread of the requesting producer rather than as a step of their own;
+ *   <li>the {@code @Produces} methods that return a value rather than a future, and so block an
+ *       executor thread for as long as they take.
+ * </ul>
+ */
+final class ProductionScheduleAnalyzer implements BindingGraphPlugin {
+  private static final String PRODUCER_LATENCY_PROFILE = "dagger.producerLatencyProfile";
+  private static final Splitter LINE_SPLITTER = Splitter.onPattern("\r?\n");
+  private static final ImmutableSet<RequestKind> WAITING_REQUEST_KINDS =
+      ImmutableSet.of(RequestKind.INSTANCE, RequestKind.PRODUCED, RequestKind.FUTURE);
+
+  private final CompilerOptions compilerOptions;
+  private final XFiler filer;
+
+  @Inject
+  ProductionScheduleAnalyzer(CompilerOptions compilerOptions, XFiler filer) {
+    this.compilerOptions = compilerOptions;
+    this.filer = filer;
+  }
+
+  @Override
+  public String pluginName() {
+    return "Dagger/ProductionSchedule";
+  }
+
+  @Override
+  public void visitGraph(BindingGraph bindingGraph, DiagnosticReporter diagnosticReporter) {
+    if (!compilerOptions.productionScheduleReport() || bindingGraph.isFullBindingGraph()) {
+      return;
+    }
+    // The profile is only read once a component with producers needs it.
+    ImmutableMap<String, Double> medianLatencies = null;
+    for (ComponentNode component : bindingGraph.componentNodes()) {
+      Schedule schedule = new Schedule(bindingGraph, component);
+      if (schedule.producers.isEmpty()) {
+        continue;
+      }
+      if (medianLatencies == null) {
+        Optional<ImmutableMap<String, Double>> profile =
+            medianLatencies(bindingGraph.rootComponentNode(), diagnosticReporter);
+        if (!profile.isPresent()) {
+          return;
+        }
+        medianLatencies = profile.get();
+      }
+      diagnosticReporter.reportComponent(NOTE, component, schedule.report(medianLatencies));
+    }
+  }
+
+  /** The schedule of the producers reachable from the entry points of a component. */
+  private final class Schedule {
+    private final BindingGraph graph;
+    private final Set<Binding> bindings = new LinkedHashSet<>();
+    private final List<Binding> producers = new ArrayList<>();
+
+    Schedule(BindingGraph graph, ComponentNode component) {
+      this.graph = graph;
+      for (DependencyEdge entryPoint : graph.entryPointEdges(component.componentPath())) {
+        addReachableBindings(graph.network().incidentNodes(entryPoint).target());
+      }
+      for (Binding binding : bindings) {
+        if (binding.kind().equals(BindingKind.PRODUCTION)) {
+          producers.add(binding);
+        }
+      }
+    }
+
+    private void addReachableBindings(Node node) {
+      if (node instanceof Binding && bindings.add((Binding) node)) {
+        for (Binding dependency : waitedOnBindings((Binding) node)) {
+          addReachableBindings(dependency);
+        }
+      }
+    }
+
+    /** Returns the bindings that {@code binding} waits on before it runs. */
+    private ImmutableList<Binding> waitedOnBindings(Binding binding) {
+      ImmutableList.Builder<Binding> dependencies = ImmutableList.builder();
+      for (Edge edge : graph.network().outEdges(binding)) {
+        if (edge instanceof DependencyEdge
+            && WAITING_REQUEST_KINDS.contains(
+                ((DependencyEdge) edge).dependencyRequest().kind())) {
+          Node target = graph.network().incidentNodes(edge).target();
+          if (target instanceof Binding) {
+            dependencies.add((Binding) target);
+          }
+        }
+      }
+      return dependencies.build();
+    }
+
+    String report(ImmutableMap<String, Double> medianLatencies) {
+      StringBuilder report = new StringBuilder("Production schedule:");
+      report.append("\n  producers: ").append(producers.size());
+
+      Map<Binding, Double> steps = finishTimes(this::steps);
+      ImmutableListMultimap<Double, Binding> producersByStep =
+          producers.stream().collect(toImmutableListMultimap(steps::get, binding -> binding));
+      double widestStep = 0;
+      for (Double step : producersByStep.keySet()) {
+        if (producersByStep.get(step).size() > producersByStep.get(widestStep).size()) {
+          widestStep = step;
+        }
+      }
+      report
+          .append("\n  maximum parallelism: ")
+          .append(producersByStep.get(widestStep).size())
+          .append(" producers, at step ")
+          .append((int) widestStep)
+          .append(": ")
+          .append(keys(producersByStep.get(widestStep)));
+
+      ImmutableList<Binding> longestChain = criticalPath(steps);
+      report
+          .append("\n  longest chain: ")
+          .append(longestChain.size())
+          .append(" producers: ")
+          .append(longestChain.stream().map(b -> b.key().toString()).collect(joining(" -> ")));
+
+      if (!medianLatencies.isEmpty()) {
+        Map<Binding, Double> latencies = finishTimes(b -> medianLatency(b, medianLatencies));
+        report.append("\n  expected latency: ").append(millis(max(latencies))).append(": ");
+        report.append(
+            criticalPath(latencies).stream()
+                .map(b -> b.key() + " (" + millis(medianLatency(b, medianLatencies)) + ")")
+                .collect(joining(" -> ")));
+      }
+
+      SetMultimap<Binding, Binding> bridgedProvisions = LinkedHashMultimap.create();
+      for (Binding producer : producers) {
+        for (Binding dependency : waitedOnBindings(producer)) {
+          if (dependency.kind().equals(BindingKind.PROVISION)
+              || dependency.kind().equals(BindingKind.INJECTION)) {
+            bridgedProvisions.put(dependency, producer);
+          }
+        }
+      }
+      if (!bridgedProvisions.isEmpty()) {
+        report.append("\n  provisions run on the threads of the producers that request them:");
+        bridgedProvisions
+            .asMap()
+            .forEach(
+                (provision, requestingProducers) ->
+                    report
+                        .append("\n    ")
+                        .append(provision.key())
+                        .append(", requested by ")
+                        .append(keys(requestingProducers)));
+      }
+
+      ImmutableList<Binding> blockingProducers =
+          producers.stream()
+              .filter(ProductionScheduleAnalyzer::isBlocking)
+              .collect(toImmutableList());
+      if (!blockingProducers.isEmpty()) {
+        report.append("\n  @Produces methods that block an executor thread:");
+        for (Binding producer : blockingProducers) {
+          Element method = producer.bindingElement().get().java();
+          report.append("\n    ").append(method.getEnclosingElement()).append('.').append(method);
+        }
+      }
+      return report.toString();
+    }
+
+    /**
+     * Returns the time at which each binding finishes, if it starts once all of the bindings it
+     * waits on have finished and takes {@code duration}.
+     */
+    private Map<Binding, Double> finishTimes(ToDoubleFunction<Binding> duration) {
+      Map<Binding, Double> finishTimes = new HashMap<>();
+      Set<Binding> visiting = new HashSet<>();
+      for (Binding binding : bindings) {
+        finishTime(binding, duration, finishTimes, visiting);
+      }
+      return finishTimes;
+    }
+
+    private double finishTime(
+        Binding binding,
+        ToDoubleFunction<Binding> duration,
+        Map<Binding, Double> finishTimes,
+        Set<Binding> visiting) {
+      Double finishTime = finishTimes.get(binding);
+      if (finishTime != null) {
+        return finishTime;
+      }
+      // Cycles through the requests a producer waits on are reported by DependencyCycleValidator.
+      if (!visiting.add(binding)) {
+        return 0;
+      }
+      double startTime = 0;
+      for (Binding dependency : waitedOnBindings(binding)) {
+        startTime = Math.max(startTime, finishTime(dependency, duration, finishTimes, visiting));
+      }
+      finishTime = startTime + duration.applyAsDouble(binding);
+      finishTimes.put(binding, finishTime);
+      return finishTime;
+    }
+
+    /**
+     * Returns the producers on the path to the binding that finishes last, following the
+     * dependency that finishes last from each binding, starting with the first producer.
+     */
+    private ImmutableList<Binding> criticalPath(Map<Binding, Double> finishTimes) {
+      List<Binding> path = new ArrayList<>();
+      Optional<Binding> binding = latest(bindings, finishTimes);
+      Set<Binding> visited = new HashSet<>();
+      while (binding.isPresent() && visited.add(binding.get())) {
+        if (binding.get().kind().equals(BindingKind.PRODUCTION)) {
+          path.add(0, binding.get());
+        }
+        binding = latest(waitedOnBindings(binding.get()), finishTimes);
+      }
+      return ImmutableList.copyOf(path);
+    }
+
+    private Optional<Binding> latest(
+        Iterable<Binding> candidates, Map<Binding, Double> finishTimes) {
+      Binding latest = null;
+      for (Binding candidate : candidates) {
+        if (latest == null || finishTimes.get(candidate) > finishTimes.get(latest)) {
+          latest = candidate;
+        }
+      }
+      return Optional.ofNullable(latest);
+    }
+
+    private double max(Map<Binding, Double> finishTimes) {
+      return finishTimes.values().stream().mapToDouble(Double::doubleValue).max().orElse(0);
+    }
+
+    /** Each producer takes one step; other bindings don't take a step of their own. */
+    private double steps(Binding binding) {
+      return binding.kind().equals(BindingKind.PRODUCTION) ? 1 : 0;
+    }
+
+    private double medianLatency(Binding binding, ImmutableMap<String, Double> medianLatencies) {
+      return medianLatencies.getOrDefault(binding.key().toString(), 0.0);
+    }
+  }
+
+  /**
+   * Returns true if {@code producer} is a method that returns a value rather than a future or a
+   * {@code CompletionStage}.
+   */
+  private static boolean isBlocking(Binding producer) {
+    if (!producer.bindingElement().isPresent()) {
+      return false;
+    }
+    Element element = producer.bindingElement().get().java();
+    if (!element.getKind().equals(ElementKind.METHOD)) {
+      return false;
+    }
+    TypeMirror returnType = ((ExecutableElement) element).getReturnType();
+    return !isTypeOf(TypeNames.LISTENABLE_FUTURE, returnType) && !isCompletionStageType(returnType);
+  }
+
+  private static String keys(Iterable<Binding> bindings) {
+    List<String> keys = new ArrayList<>();
+    bindings.forEach(binding -> keys.add(binding.key().toString()));
+    return String.join(", ", keys);
+  }
+
+  private static String millis(double latency) {
+    return String.format(Locale.ROOT, "%.1f ms", latency);
+  }
+
+  /**
+   * Returns the median of the latencies of each key in the producer latency profile, in
+   * milliseconds, or an empty map if there is no profile. If the profile can't be read, reports an
+   * error on {@code component} and returns empty.
+   */
+  private Optional<ImmutableMap<String, Double>> medianLatencies(
+      ComponentNode component, DiagnosticReporter diagnosticReporter) {
+    if (!compilerOptions.producerLatencyProfile().isPresent()) {
+      return Optional.of(ImmutableMap.of());
+    }
+    String profile = compilerOptions.producerLatencyProfile().get();
+    List<String> lines;
+    try {
+      // Reading the profile through the Filer tells incremental builds that it is an input.
+      FileObject resource = toJavac(filer).getResource(StandardLocation.CLASS_PATH, "", profile);
+      lines = LINE_SPLITTER.splitToList(resource.getCharContent(true));
+    } catch (IOException | IllegalArgumentException e) {
+      diagnosticReporter.reportComponent(
+          ERROR, component, profileError(profile, "cannot be read from the class path: " + e));
+      return Optional.empty();
+    }
+    Map<String, List<Double>> histograms = new HashMap<>();
+    for (int i = 0; i < lines.size(); i++) {
+      String line = lines.get(i);
+      if (line.isEmpty()) {
+        continue;
+      }
+      int tab = line.indexOf('\t');
+      Double latency = tab > 0 ? Doubles.tryParse(line.substring(0, tab)) : null;
+      if (latency == null) {
+        diagnosticReporter.reportComponent(
+            ERROR,
+            component,
+            profileError(
+                profile,
+                String.format(
+                    "line %d is not a latency in milliseconds, a tab and a key: %s",
+                    i + 1, line)));
+        return Optional.empty();
+      }
+      histograms.computeIfAbsent(line.substring(tab + 1), key -> new ArrayList<>()).add(latency);
+    }
+    ImmutableMap.Builder<String, Double> medians = ImmutableMap.builder();
+    histograms.forEach(
+        (key, latencies) -> {
+          latencies.sort(null);
+          medians.put(key, latencies.get(latencies.size() / 2));
+        });
+    return Optional.of(medians.build());
+  }
+
+  private static String profileError(String profile, String error) {
+    return String.format(
+        "The producer latency profile given by -A%s=%s %s",
+        PRODUCER_LATENCY_PROFILE, profile, error);
+  }
+}
@@ -19,6 +19,7 @@ package dagger.internal.codegen.compileroption;
 import static androidx.room.compiler.processing.compat.XConverters.toJavac;
 
 import androidx.room.compiler.processing.XTypeElement;
+import java.util.Optional;
 import javax.lang.model.element.TypeElement;
 import javax.tools.Diagnostic;
 
@@ -133,10 +134,74 @@ public abstract class CompilerOptions {
     return 3500;
   }
 
+  /**
+   * Returns the name of a producer latency profile resource on the class path, with one latency
+   * sample per line: the latency of a binding's producer in milliseconds, a tab, and the binding's
+   * key. The samples of a key make up its latency histogram. Used by the production schedule
+   * report, which reads the profile through the {@code Filer}.
+   */
+  public Optional<String> producerLatencyProfile() {
+    return Optional.empty();
+  }
+
   /**
    * This option enables a fix to an issue where Dagger previously would erroneously allow
    * multibinding contributions in a component to have dependencies on child components. This will
    * eventually become the default and enforced.
    */
   public abstract boolean strictMultibindingValidation();
+
+  /**
+   * Returns true if root components should have a {@code warmUp(Executor)} method that
+   * instantiates their scoped bindings in parallel, in dependency order. To call it through the
+   * component type, declare it there as {@code void warmUp(Executor) throws InterruptedException}.
+   *
+   * <p>The method requests a {@code Provider} of each scoped binding, so the component has a
+   * framework field for each one, even in the default mode where the binding would otherwise be
+   * stored without one.
+   */
+  public abstract boolean generateWarmUpMethod();
+
+  /**
+   * Returns true if components should report the provisions they make to the installed {@code
+   * dagger.monitoring.ProvisionMonitor}. If disabled, no monitoring code is generated.
+   */
+  public abstract boolean monitorProvisions();
+
+  /**
+   * Returns true if fast init components should store the instances of their scoped bindings in a
+   * single {@code dagger.internal.ScopedInstanceSlots} rather than in a {@code DoubleCheck} field
+   * per binding.
+   */
+  public abstract boolean scopedInstanceSlots();
+
+  /**
+   * Returns true if root components are created at most once per class loader, so that their
+   * scoped bindings can be stored in lazily initialized static holder classes rather than in {@code
+   * DoubleCheck} providers. Creating such a component a second time throws an {@link
+   * IllegalStateException}, and the component is kept reachable for the life of its class loader.
+   * A scoped provision that throws is fatal: that binding fails with a {@link NoClassDefFoundError}
+   * on every later request.
+   */
+  public abstract boolean staticSingletonHolders();
+
+  /**
+   * Returns true if production components should give each producer's executor tasks a priority,
+   * based on how deep the producer is below the component's entry points, for use by a {@code
+   * dagger.producers.PrioritizedExecutor}.
+   */
+  public abstract boolean prioritizeProducers();
+
+  /**
+   * Returns true if production components should track which of their producers were started, so
+   * that cancelling a component only cancels the producers that were started.
+   */
+  public abstract boolean trackStartedProducers();
+
+  /**
+   * Returns true if a note should be reported for each production component, describing how its
+   * producers can be scheduled: the widest set of producers that can run in parallel, the longest
+   * chain of producers, and the bindings that make producers wait.
+   */
+  public abstract boolean productionScheduleReport();
 }
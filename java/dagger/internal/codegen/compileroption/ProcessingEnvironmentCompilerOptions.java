@@ -29,9 +29,16 @@ import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompil
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.FAST_INIT;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.FLOATING_BINDS_METHODS;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.FORMAT_GENERATED_SOURCE;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.GENERATE_WARM_UP_METHOD;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.IGNORE_PRIVATE_AND_STATIC_INJECTION_FOR_COMPONENT;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.MONITOR_PROVISIONS;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.PLUGINS_VISIT_FULL_BINDING_GRAPHS;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.PRIORITIZE_PRODUCERS;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.PRODUCTION_SCHEDULE_REPORT;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.SCOPED_INSTANCE_SLOTS;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.STATIC_SINGLETON_HOLDERS;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.STRICT_MULTIBINDING_VALIDATION;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.TRACK_STARTED_PRODUCERS;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.VALIDATE_TRANSITIVE_COMPONENT_DEPENDENCIES;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.WARN_IF_INJECTION_FACTORY_NOT_GENERATED_UPSTREAM;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.WRITE_PRODUCER_NAME_IN_TOKEN;
@@ -73,6 +80,7 @@ import javax.tools.Diagnostic;
 public final class ProcessingEnvironmentCompilerOptions extends CompilerOptions {
   // EnumOption<T> doesn't support integer inputs so just doing this as a 1-off for now.
   private static final String KEYS_PER_COMPONENT_SHARD = "dagger.keysPerComponentShard";
+  private static final String PRODUCER_LATENCY_PROFILE = "dagger.producerLatencyProfile";
 
   private final XMessager messager;
   private final Map<String, String> options;
@@ -207,6 +215,41 @@ public final class ProcessingEnvironmentCompilerOptions extends CompilerOptions
     return isEnabled(STRICT_MULTIBINDING_VALIDATION);
   }
 
+  @Override
+  public boolean generateWarmUpMethod() {
+    return isEnabled(GENERATE_WARM_UP_METHOD);
+  }
+
+  @Override
+  public boolean monitorProvisions() {
+    return isEnabled(MONITOR_PROVISIONS);
+  }
+
+  @Override
+  public boolean scopedInstanceSlots() {
+    return isEnabled(SCOPED_INSTANCE_SLOTS);
+  }
+
+  @Override
+  public boolean staticSingletonHolders() {
+    return isEnabled(STATIC_SINGLETON_HOLDERS);
+  }
+
+  @Override
+  public boolean prioritizeProducers() {
+    return isEnabled(PRIORITIZE_PRODUCERS);
+  }
+
+  @Override
+  public boolean trackStartedProducers() {
+    return isEnabled(TRACK_STARTED_PRODUCERS);
+  }
+
+  @Override
+  public boolean productionScheduleReport() {
+    return isEnabled(PRODUCTION_SCHEDULE_REPORT);
+  }
+
   @Override
   public int keysPerComponentShard(TypeElement component) {
     if (options.containsKey(KEYS_PER_COMPONENT_SHARD)) {
@@ -219,6 +262,11 @@ public final class ProcessingEnvironmentCompilerOptions extends CompilerOptions
     return super.keysPerComponentShard(component);
   }
 
+  @Override
+  public Optional<String> producerLatencyProfile() {
+    return Optional.ofNullable(options.get(PRODUCER_LATENCY_PROFILE));
+  }
+
   private boolean isEnabled(KeyOnlyOption keyOnlyOption) {
     return options.containsKey(keyOnlyOption.toString());
   }
@@ -331,7 +379,21 @@ public final class ProcessingEnvironmentCompilerOptions extends CompilerOptions
 
     STRICT_MULTIBINDING_VALIDATION,
 
-    VALIDATE_TRANSITIVE_COMPONENT_DEPENDENCIES(ENABLED)
+    VALIDATE_TRANSITIVE_COMPONENT_DEPENDENCIES(ENABLED),
+
+    GENERATE_WARM_UP_METHOD,
+
+    MONITOR_PROVISIONS,
+
+    SCOPED_INSTANCE_SLOTS,
+
+    STATIC_SINGLETON_HOLDERS,
+
+    PRIORITIZE_PRODUCERS,
+
+    TRACK_STARTED_PRODUCERS,
+
+    PRODUCTION_SCHEDULE_REPORT
     ;
 
     final FeatureStatus defaultValue;
@@ -434,6 +496,7 @@ public final class ProcessingEnvironmentCompilerOptions extends CompilerOptions
             .flatMap(CommandLineOption::allNames)
             .collect(toImmutableSet()))
         .add(KEYS_PER_COMPONENT_SHARD)
+        .add(PRODUCER_LATENCY_PROFILE)
         .build();
   }
 
@@ -125,4 +125,39 @@ final class JavacPluginCompilerOptions extends CompilerOptions {
   public boolean strictMultibindingValidation() {
     return false;
   }
+
+  @Override
+  public boolean generateWarmUpMethod() {
+    return false;
+  }
+
+  @Override
+  public boolean monitorProvisions() {
+    return false;
+  }
+
+  @Override
+  public boolean scopedInstanceSlots() {
+    return false;
+  }
+
+  @Override
+  public boolean staticSingletonHolders() {
+    return false;
+  }
+
+  @Override
+  public boolean prioritizeProducers() {
+    return false;
+  }
+
+  @Override
+  public boolean trackStartedProducers() {
+    return false;
+  }
+
+  @Override
+  public boolean productionScheduleReport() {
+    return false;
+  }
 }
@@ -67,9 +67,15 @@ public final class TypeNames {
   public static final ClassName MEMBERS_INJECTOR = ClassName.get("dagger", "MembersInjector");
   public static final ClassName MEMBERS_INJECTORS =
       ClassName.get("dagger.internal", "MembersInjectors");
+  public static final ClassName PARALLEL_WARM_UP =
+      ClassName.get("dagger.internal", "ParallelWarmUp");
   public static final ClassName PROVIDER = ClassName.get("javax.inject", "Provider");
   public static final ClassName PROVIDER_OF_LAZY =
       ClassName.get("dagger.internal", "ProviderOfLazy");
+  public static final ClassName PROVISION_MONITORING =
+      ClassName.get("dagger.internal", "ProvisionMonitoring");
+  public static final ClassName SCOPED_INSTANCE_SLOTS =
+      ClassName.get("dagger.internal", "ScopedInstanceSlots");
   public static final ClassName SET_FACTORY = ClassName.get("dagger.internal", "SetFactory");
   public static final ClassName SINGLE_CHECK = ClassName.get("dagger.internal", "SingleCheck");
   public static final ClassName LAZY = ClassName.get("dagger", "Lazy");
@@ -81,10 +87,15 @@ public final class TypeNames {
       ClassName.get("dagger.producers.internal", "CancellationListener");
   public static final ClassName CANCELLATION_POLICY =
       ClassName.get("dagger.producers", "CancellationPolicy");
+  public static final ClassName COMPLETION_STAGE_FUTURE =
+      ClassName.get("dagger.producers.internal", "CompletionStageFuture");
   public static final ClassName DELEGATE_PRODUCER =
       ClassName.get("dagger.producers.internal", "DelegateProducer");
   public static final ClassName DEPENDENCY_METHOD_PRODUCER =
       ClassName.get("dagger.producers.internal", "DependencyMethodProducer");
+  public static final ClassName HEDGED = ClassName.get("dagger.producers", "Hedged");
+  public static final ClassName HEDGING_POLICY =
+      ClassName.get("dagger.producers.internal", "HedgingPolicy");
   public static final ClassName MAP_OF_PRODUCED_PRODUCER =
       ClassName.get("dagger.producers.internal", "MapOfProducedProducer");
   public static final ClassName MAP_OF_PRODUCER_PRODUCER =
@@ -96,8 +107,14 @@ public final class TypeNames {
   public static final ClassName PRODUCED = ClassName.get("dagger.producers", "Produced");
   public static final ClassName PRODUCER = ClassName.get("dagger.producers", "Producer");
   public static final ClassName PRODUCERS = ClassName.get("dagger.producers.internal", "Producers");
+  public static final ClassName PRODUCER_CACHE =
+      ClassName.get("dagger.producers", "ProducerCache");
   public static final ClassName PRODUCER_MODULE =
       ClassName.get("dagger.producers", "ProducerModule");
+  public static final ClassName PRODUCER_RESULT_CACHE =
+      ClassName.get("dagger.producers.internal", "ProducerResultCache");
+  public static final ClassName PRODUCER_TIMEOUT =
+      ClassName.get("dagger.producers", "ProducerTimeout");
   public static final ClassName PRODUCES = ClassName.get("dagger.producers", "Produces");
   public static final ClassName PRODUCTION = ClassName.get("dagger.producers", "Production");
   public static final ClassName PRODUCTION_COMPONENT =
@@ -126,6 +143,8 @@ public final class TypeNames {
       ClassName.get("dagger.producers.internal", "SetOfProducedProducer");
   public static final ClassName SET_PRODUCER =
       ClassName.get("dagger.producers.internal", "SetProducer");
+  public static final ClassName STARTED_PRODUCERS =
+      ClassName.get("dagger.producers.internal", "StartedProducers");
   public static final ClassName PRODUCTION_SCOPE =
       ClassName.get("dagger.producers", "ProductionScope");
 
@@ -148,6 +167,10 @@ public final class TypeNames {
       ClassName.get("com.google.common.util.concurrent", "Futures");
   public static final ClassName LISTENABLE_FUTURE =
       ClassName.get("com.google.common.util.concurrent", "ListenableFuture");
+  public static final ClassName COMPLETION_STAGE =
+      ClassName.get("java.util.concurrent", "CompletionStage");
+  public static final ClassName COMPLETABLE_FUTURE =
+      ClassName.get("java.util.concurrent", "CompletableFuture");
   public static final ClassName GUAVA_OPTIONAL =
       ClassName.get("com.google.common.base", "Optional");
   public static final ClassName JDK_OPTIONAL = ClassName.get("java.util", "Optional");
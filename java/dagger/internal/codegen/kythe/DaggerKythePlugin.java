@@ -40,6 +40,7 @@ import dagger.internal.codegen.binding.BindingDeclaration;
 import dagger.internal.codegen.binding.BindingGraphFactory;
 import dagger.internal.codegen.binding.BindingNode;
 import dagger.internal.codegen.binding.ComponentDescriptorFactory;
+import dagger.internal.codegen.binding.KeyFactory;
 import dagger.internal.codegen.binding.ModuleDescriptor;
 import dagger.internal.codegen.javac.JavacPluginModule;
 import dagger.internal.codegen.javapoet.TypeNames;
@@ -66,6 +67,7 @@ public class DaggerKythePlugin extends Plugin.Scanner<Void, Void> {
   private FactEmitter emitter;
   @Inject ComponentDescriptorFactory componentDescriptorFactory;
   @Inject BindingGraphFactory bindingGraphFactory;
+  @Inject KeyFactory keyFactory;
   @Inject XProcessingEnv xProcessingEnv;
 
   @Override
@@ -182,7 +184,13 @@ public class DaggerKythePlugin extends Plugin.Scanner<Void, Void> {
           .build()
           .inject(this);
     }
-    super.run(compilationUnit, entrySets, kytheGraph);
+    try {
+      super.run(compilationUnit, entrySets, kytheGraph);
+    } finally {
+      // There are no processing rounds here, so treat each compilation unit as one. Otherwise the
+      // keys interned by KeyFactory would be kept for the whole compilation.
+      keyFactory.clearCache();
+    }
   }
 
   @Singleton
@@ -36,6 +36,8 @@ import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.TypeName;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.function.Predicate;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
@@ -342,6 +344,21 @@ public final class DaggerTypes implements Types {
     return FUTURE_TYPES.stream().anyMatch(t -> MoreTypes.isTypeOf(t, type));
   }
 
+  private static final ImmutableSet<Class<?>> COMPLETION_STAGE_TYPES =
+      ImmutableSet.of(CompletionStage.class, CompletableFuture.class);
+
+  /**
+   * Returns true if {@code type} is a {@link CompletionStage} or {@link CompletableFuture}, which
+   * {@code @Produces} methods may return instead of a {@link ListenableFuture}.
+   */
+  public static boolean isCompletionStageType(XType type) {
+    return isCompletionStageType(toJavac(type));
+  }
+
+  public static boolean isCompletionStageType(TypeMirror type) {
+    return COMPLETION_STAGE_TYPES.stream().anyMatch(t -> MoreTypes.isTypeOf(t, type));
+  }
+
   public static boolean hasTypeVariable(TypeMirror type) {
     return type.accept(
         new SimpleTypeVisitor8<Boolean, Void>() {
@@ -30,6 +30,7 @@ import static dagger.internal.codegen.base.Util.reentrantComputeIfAbsent;
 import static dagger.internal.codegen.binding.ComponentCreatorAnnotation.creatorAnnotationsFor;
 import static dagger.internal.codegen.binding.ComponentCreatorAnnotation.productionCreatorAnnotations;
 import static dagger.internal.codegen.binding.ComponentCreatorAnnotation.subcomponentCreatorAnnotations;
+import static dagger.internal.codegen.binding.ComponentDescriptor.isWarmUpMethod;
 import static dagger.internal.codegen.binding.ComponentKind.annotationsFor;
 import static dagger.internal.codegen.binding.ConfigurationAnnotations.enclosedAnnotatedTypes;
 import static dagger.internal.codegen.binding.ErrorMessages.ComponentCreatorMessages.builderMethodRequiresNoArgs;
@@ -43,6 +44,7 @@ import static dagger.internal.codegen.xprocessing.XTypeElements.getAllUnimplemen
 import static dagger.internal.codegen.xprocessing.XTypes.isDeclared;
 import static java.util.Comparator.comparing;
 import static javax.lang.model.util.ElementFilter.methodsIn;
+import static kotlin.streams.jdk8.StreamsKt.asStream;
 
 import androidx.room.compiler.processing.XAnnotation;
 import androidx.room.compiler.processing.XExecutableParameterElement;
@@ -68,9 +70,11 @@ import dagger.internal.codegen.binding.DependencyRequestFactory;
 import dagger.internal.codegen.binding.ErrorMessages;
 import dagger.internal.codegen.binding.MethodSignatureFormatter;
 import dagger.internal.codegen.binding.ModuleKind;
+import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.javapoet.TypeNames;
 import dagger.internal.codegen.kotlin.KotlinMetadataUtil;
 import dagger.internal.codegen.langmodel.DaggerElements;
+import dagger.internal.codegen.langmodel.DaggerTypes;
 import dagger.spi.model.DependencyRequest;
 import dagger.spi.model.Key;
 import java.util.ArrayDeque;
@@ -94,6 +98,7 @@ import javax.lang.model.SourceVersion;
 public final class ComponentValidator implements ClearableCache {
   private final XProcessingEnv processingEnv;
   private final DaggerElements elements;
+  private final DaggerTypes types;
   private final ModuleValidator moduleValidator;
   private final ComponentCreatorValidator creatorValidator;
   private final DependencyRequestValidator dependencyRequestValidator;
@@ -102,20 +107,24 @@ public final class ComponentValidator implements ClearableCache {
   private final DependencyRequestFactory dependencyRequestFactory;
   private final Map<XTypeElement, ValidationReport> reports = new HashMap<>();
   private final KotlinMetadataUtil metadataUtil;
+  private final CompilerOptions compilerOptions;
 
   @Inject
   ComponentValidator(
       XProcessingEnv processingEnv,
       DaggerElements elements,
+      DaggerTypes types,
       ModuleValidator moduleValidator,
       ComponentCreatorValidator creatorValidator,
       DependencyRequestValidator dependencyRequestValidator,
       MembersInjectionValidator membersInjectionValidator,
       MethodSignatureFormatter methodSignatureFormatter,
       DependencyRequestFactory dependencyRequestFactory,
-      KotlinMetadataUtil metadataUtil) {
+      KotlinMetadataUtil metadataUtil,
+      CompilerOptions compilerOptions) {
     this.processingEnv = processingEnv;
     this.elements = elements;
+    this.types = types;
     this.moduleValidator = moduleValidator;
     this.creatorValidator = creatorValidator;
     this.dependencyRequestValidator = dependencyRequestValidator;
@@ -123,6 +132,7 @@ public final class ComponentValidator implements ClearableCache {
     this.methodSignatureFormatter = methodSignatureFormatter;
     this.dependencyRequestFactory = dependencyRequestFactory;
     this.metadataUtil = metadataUtil;
+    this.compilerOptions = compilerOptions;
   }
 
   @Override
@@ -230,11 +240,46 @@ public final class ComponentValidator implements ClearableCache {
 
     private void validateComponentMethods() {
       validateClassMethodName();
+      validateWarmUpMethods();
       getAllUnimplementedMethods(component).stream()
+          .filter(method -> !declaresGeneratedWarmUpMethod(method))
           .map(ComponentMethodValidator::new)
           .forEachOrdered(ComponentMethodValidator::validateMethod);
     }
 
+    private boolean declaresGeneratedWarmUpMethod(XMethodElement method) {
+      return compilerOptions.generateWarmUpMethod()
+          && componentKind().isRoot()
+          && isWarmUpMethod(method);
+    }
+
+    /**
+     * Validates the component's declarations of the {@code warmUp(Executor)} method that is
+     * generated for it when {@link CompilerOptions#generateWarmUpMethod()} is enabled.
+     */
+    private void validateWarmUpMethods() {
+      XType interruptedException = processingEnv.findType(TypeName.get(InterruptedException.class));
+      asStream(component.getAllMethods())
+          .filter(this::declaresGeneratedWarmUpMethod)
+          .forEachOrdered(
+              method -> {
+                if (!method.isAbstract()) {
+                  report.addError(
+                      "Cannot override generated method: "
+                          + methodSignatureFormatter.format(method),
+                      method);
+                } else if (!isVoid(method.getReturnType())
+                    || method.getThrownTypes().stream()
+                        .noneMatch(
+                            thrownType -> types.isSubtype(interruptedException, thrownType))) {
+                  report.addError(
+                      "The generated warm-up method must be declared as: "
+                          + "void warmUp(Executor) throws InterruptedException",
+                      method);
+                }
+              });
+    }
+
     private void validateClassMethodName() {
       if (metadataUtil.hasMetadata(toJavac(component))) {
         metadataUtil
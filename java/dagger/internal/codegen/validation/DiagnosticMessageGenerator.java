@@ -33,6 +33,7 @@ import static dagger.internal.codegen.langmodel.DaggerElements.closestEnclosingT
 import static java.util.Collections.min;
 import static java.util.Comparator.comparing;
 import static java.util.Comparator.comparingInt;
+import static java.util.stream.Collectors.groupingBy;
 
 import com.google.auto.common.MoreElements;
 import com.google.auto.common.MoreTypes;
@@ -56,8 +57,13 @@ import dagger.spi.model.BindingGraph.MaybeBinding;
 import dagger.spi.model.BindingGraph.Node;
 import dagger.spi.model.ComponentPath;
 import dagger.spi.model.DaggerElement;
+import java.util.ArrayDeque;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.function.Function;
 import javax.inject.Inject;
 import javax.lang.model.element.Element;
@@ -100,6 +106,19 @@ public final class DiagnosticMessageGenerator {
   private final Table<MaybeBinding, DependencyEdge, ImmutableList<Node>> shortestPaths =
       HashBasedTable.create();
 
+  /**
+   * For every binding reachable from an entry point, the entry point whose dependency trace is
+   * shown for that binding. Lazily computed by {@link #computeEntryPointTraceTree()}.
+   */
+  private Map<MaybeBinding, DependencyEdge> traceEntryPoints;
+
+  /**
+   * For every binding reachable from an entry point except those that directly satisfy the entry
+   * point in {@link #traceEntryPoints}, the previous binding on the shortest path from that entry
+   * point. Lazily computed by {@link #computeEntryPointTraceTree()}.
+   */
+  private Map<MaybeBinding, MaybeBinding> tracePredecessors;
+
   private static <K, V> Function<K, V> memoize(Function<K, V> uncached) {
     // If Android Guava is on the processor path, then c.g.c.b.Function (which LoadingCache
     // implements) does not extend j.u.f.Function.
@@ -272,7 +291,14 @@ public final class DiagnosticMessageGenerator {
     if (entryPoints.isEmpty()) {
       return ImmutableList.of();
     }
-    // Show the full dependency trace for one entry point.
+    computeEntryPointTraceTree();
+    DependencyEdge treeEntryPoint = traceEntryPoints.get(binding);
+    if (treeEntryPoint != null && entryPoints.contains(treeEntryPoint)) {
+      return dependencyTraceFromTree(binding, treeEntryPoint);
+    }
+
+    // The caller restricted the entry points to a set that doesn't contain the one chosen for the
+    // trace tree, so search for the best entry point among those given.
     DependencyEdge entryPointForTrace =
         min(
             entryPoints,
@@ -309,6 +335,80 @@ public final class DiagnosticMessageGenerator {
     return dependencyTrace.build().reverse();
   }
 
+  private ImmutableList<DependencyEdge> dependencyTraceFromTree(
+      MaybeBinding binding, DependencyEdge entryPoint) {
+    ImmutableList.Builder<DependencyEdge> dependencyTrace = ImmutableList.builder();
+    MaybeBinding node = binding;
+    MaybeBinding predecessor;
+    while ((predecessor = tracePredecessors.get(node)) != null) {
+      // If a binding requests a key more than once, any of them should be fine to get to the
+      // shortest path
+      dependencyTrace.add(
+          (DependencyEdge) Iterables.get(graph.network().edgesConnecting(predecessor, node), 0));
+      node = predecessor;
+    }
+    verify(
+        graph.network().incidentNodes(entryPoint).target().equals(node),
+        "no dependency path from %s to %s in %s",
+        entryPoint,
+        binding,
+        graph);
+    return dependencyTrace.add(entryPoint).build();
+  }
+
+  /**
+   * Computes, in one pass over the graph, the entry point and shortest path that {@link
+   * #dependencyTrace(MaybeBinding, ImmutableSet)} shows for every binding reachable from an entry
+   * point.
+   *
+   * <p>Entry points are grouped by the depth of their component, and each group is searched with a
+   * single breadth-first traversal seeded with the group's entry points in order of preference.
+   * Because the traversal visits each level of the graph in the order of the entry points that
+   * reached it, each binding is claimed by the most preferred entry point among those with a
+   * shortest path to it, which is the same entry point that comparing every entry point's path
+   * separately would choose. Groups closer to the root are searched first, and a binding claimed
+   * by one group is never revisited by a later group, since everything it depends on has already
+   * been claimed as well.
+   */
+  private void computeEntryPointTraceTree() {
+    if (traceEntryPoints != null) {
+      return;
+    }
+    traceEntryPoints = new HashMap<>();
+    tracePredecessors = new HashMap<>();
+    Map<Integer, ImmutableList<DependencyEdge>> entryPointsByComponentDepth =
+        graph.entryPointEdges().stream()
+            .collect(
+                groupingBy(
+                    entryPoint -> source(entryPoint).componentPath().components().size(),
+                    TreeMap::new,
+                    toImmutableList()));
+    for (ImmutableList<DependencyEdge> entryPoints : entryPointsByComponentDepth.values()) {
+      Queue<MaybeBinding> queue = new ArrayDeque<>();
+      entryPoints.stream()
+          .sorted(nearestComponentSupertypeFirst().thenComparing(requestElementDeclarationOrder()))
+          .forEachOrdered(
+              entryPoint -> {
+                MaybeBinding target =
+                    (MaybeBinding) graph.network().incidentNodes(entryPoint).target();
+                if (traceEntryPoints.putIfAbsent(target, entryPoint) == null) {
+                  queue.add(target);
+                }
+              });
+      while (!queue.isEmpty()) {
+        MaybeBinding node = queue.remove();
+        DependencyEdge entryPoint = traceEntryPoints.get(node);
+        for (MaybeBinding successor :
+            filter(graph.network().successors(node), MaybeBinding.class)) {
+          if (traceEntryPoints.putIfAbsent(successor, entryPoint) == null) {
+            tracePredecessors.put(successor, node);
+            queue.add(successor);
+          }
+        }
+      }
+    }
+  }
+
   /** Returns all the nonsynthetic dependency requests for a binding. */
   public ImmutableSet<DependencyEdge> requests(MaybeBinding binding) {
     return graph.network().inEdges(binding).stream()
@@ -17,6 +17,7 @@
 package dagger.internal.codegen.validation;
 
 import static com.google.common.collect.Iterables.getOnlyElement;
+import static dagger.internal.codegen.base.RequestKinds.getRequestKind;
 import static dagger.internal.codegen.binding.ConfigurationAnnotations.getNullableAnnotation;
 import static dagger.internal.codegen.validation.BindingElementValidator.AllowsMultibindings.ALLOWS_MULTIBINDINGS;
 import static dagger.internal.codegen.validation.BindingElementValidator.AllowsScoping.NO_SCOPING;
@@ -24,18 +25,26 @@ import static dagger.internal.codegen.validation.BindingMethodValidator.Abstract
 import static dagger.internal.codegen.validation.BindingMethodValidator.ExceptionSuperclass.EXCEPTION;
 import static dagger.internal.codegen.xprocessing.XTypes.isTypeOf;
 
+import androidx.room.compiler.processing.XAnnotation;
+import androidx.room.compiler.processing.XExecutableParameterElement;
 import androidx.room.compiler.processing.XMethodElement;
 import androidx.room.compiler.processing.XType;
+import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.squareup.javapoet.ClassName;
 import dagger.internal.codegen.binding.InjectionAnnotations;
 import dagger.internal.codegen.javapoet.TypeNames;
 import dagger.internal.codegen.langmodel.DaggerTypes;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletionStage;
 import javax.inject.Inject;
 
 /** A validator for {@link dagger.producers.Produces} methods. */
 final class ProducesMethodValidator extends BindingMethodValidator {
+  private static final ImmutableList<ClassName> FUTURE_TYPES =
+      ImmutableList.of(
+          TypeNames.LISTENABLE_FUTURE, TypeNames.COMPLETION_STAGE, TypeNames.COMPLETABLE_FUTURE);
 
   @Inject
   ProducesMethodValidator(
@@ -81,6 +90,9 @@ final class ProducesMethodValidator extends BindingMethodValidator {
     @Override
     protected void checkAdditionalMethodProperties() {
       checkNullable();
+      checkTimeout();
+      checkHedged();
+      checkCache();
     }
 
     /**
@@ -93,34 +105,101 @@ final class ProducesMethodValidator extends BindingMethodValidator {
       }
     }
 
+    /**
+     * Adds an error if a {@link dagger.producers.ProducerTimeout @ProducerTimeout} on a {@link
+     * dagger.producers.Produces @Produces} method isn't positive.
+     */
+    private void checkTimeout() {
+      if (method.hasAnnotation(TypeNames.PRODUCER_TIMEOUT)
+          && method.getAnnotation(TypeNames.PRODUCER_TIMEOUT).getAsLong("value") <= 0) {
+        report.addError("@ProducerTimeout must have a positive value");
+      }
+    }
+
+    /**
+     * Adds an error if the percentile or initial delay of a {@link dagger.producers.Hedged @Hedged}
+     * {@link dagger.producers.Produces @Produces} method is out of range.
+     */
+    private void checkHedged() {
+      if (!method.hasAnnotation(TypeNames.HEDGED)) {
+        return;
+      }
+      XAnnotation hedged = method.getAnnotation(TypeNames.HEDGED);
+      double percentile = hedged.getAsDouble("percentile");
+      if (percentile <= 0 || percentile >= 100) {
+        report.addError("@Hedged percentile must be greater than 0 and less than 100");
+      }
+      if (hedged.getAsLong("initialDelay") <= 0) {
+        report.addError("@Hedged initialDelay must be positive");
+      }
+    }
+
+    /**
+     * Adds an error if the size or expiration of the {@link dagger.producers.ProducerCache} of a
+     * {@link dagger.producers.Produces @Produces} method isn't positive, or if the method isn't
+     * static or has a parameter whose value can't be part of the cache key. The cache is shared by
+     * all components, so the result must not depend on the module instance.
+     */
+    private void checkCache() {
+      if (!method.hasAnnotation(TypeNames.PRODUCER_CACHE)) {
+        return;
+      }
+      XAnnotation producerCache = method.getAnnotation(TypeNames.PRODUCER_CACHE);
+      if (producerCache.getAsLong("maximumSize") <= 0) {
+        report.addError("@ProducerCache maximumSize must be positive");
+      }
+      if (producerCache.getAsLong("expireAfterWrite") <= 0) {
+        report.addError("@ProducerCache expireAfterWrite must be positive");
+      }
+      if (!method.isStatic()) {
+        report.addError("@ProducerCache methods must be static");
+      }
+      for (XExecutableParameterElement parameter : method.getParameters()) {
+        switch (getRequestKind(parameter.getType())) {
+          case INSTANCE:
+          case PRODUCED:
+            break;
+          default:
+            report.addError(
+                "@ProducerCache methods may only have parameters of instances or Produced<T>",
+                parameter);
+        }
+      }
+    }
+
     /**
      * {@inheritDoc}
      *
-     * <p>Allows {@code keyType} to be a {@link ListenableFuture} of an otherwise-valid key type.
+     * <p>Allows {@code keyType} to be a {@link ListenableFuture}, {@link CompletionStage}, or
+     * {@link java.util.concurrent.CompletableFuture} of an otherwise-valid key type.
      */
     @Override
     protected void checkKeyType(XType keyType) {
-      unwrapListenableFuture(keyType).ifPresent(super::checkKeyType);
+      unwrapFuture(keyType).ifPresent(super::checkKeyType);
     }
 
     /**
      * {@inheritDoc}
      *
      * <p>Allows an {@link dagger.multibindings.ElementsIntoSet @ElementsIntoSet} or {@code
-     * SET_VALUES} method to return a {@link ListenableFuture} of a {@link Set} as well.
+     * SET_VALUES} method to return a {@link ListenableFuture} or {@link CompletionStage} of a
+     * {@link Set} as well.
      */
     @Override
     protected void checkSetValuesType() {
-      unwrapListenableFuture(method.getReturnType()).ifPresent(this::checkSetValuesType);
+      unwrapFuture(method.getReturnType()).ifPresent(this::checkSetValuesType);
     }
 
-    private Optional<XType> unwrapListenableFuture(XType type) {
-      if (isTypeOf(type, TypeNames.LISTENABLE_FUTURE)) {
-        if (type.getTypeArguments().isEmpty()) {
-          report.addError("@Produces methods cannot return a raw ListenableFuture");
-          return Optional.empty();
-        } else {
-          return Optional.of(getOnlyElement(type.getTypeArguments()));
+    private Optional<XType> unwrapFuture(XType type) {
+      for (ClassName futureType : FUTURE_TYPES) {
+        if (isTypeOf(type, futureType)) {
+          if (type.getTypeArguments().isEmpty()) {
+            report.addError(
+                String.format("@Produces methods cannot return a raw %s", futureType.simpleName()));
+            return Optional.empty();
+          } else {
+            return Optional.of(getOnlyElement(type.getTypeArguments()));
+          }
         }
       }
       return Optional.of(type);
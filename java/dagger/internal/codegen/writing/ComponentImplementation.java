@@ -42,6 +42,7 @@ import static javax.lang.model.element.Modifier.PRIVATE;
 import static javax.lang.model.element.Modifier.PUBLIC;
 import static javax.lang.model.element.Modifier.STATIC;
 import static javax.tools.Diagnostic.Kind.ERROR;
+import static kotlin.streams.jdk8.StreamsKt.asStream;
 
 import androidx.room.compiler.processing.XMessager;
 import androidx.room.compiler.processing.compat.XConverters;
@@ -57,18 +58,24 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.MultimapBuilder;
 import com.google.common.collect.Sets;
+import com.google.common.graph.Network;
+import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
 import dagger.internal.Preconditions;
 import dagger.internal.codegen.base.UniqueNameSet;
 import dagger.internal.codegen.binding.Binding;
 import dagger.internal.codegen.binding.BindingGraph;
 import dagger.internal.codegen.binding.BindingNode;
 import dagger.internal.codegen.binding.BindingRequest;
+import dagger.internal.codegen.binding.BindingType;
 import dagger.internal.codegen.binding.ComponentCreatorDescriptor;
 import dagger.internal.codegen.binding.ComponentCreatorKind;
 import dagger.internal.codegen.binding.ComponentDescriptor;
@@ -82,6 +89,7 @@ import dagger.internal.codegen.javapoet.TypeNames;
 import dagger.internal.codegen.javapoet.TypeSpecs;
 import dagger.internal.codegen.langmodel.DaggerElements;
 import dagger.internal.codegen.langmodel.DaggerTypes;
+import dagger.spi.model.BindingGraph.Edge;
 import dagger.spi.model.BindingGraph.Node;
 import dagger.spi.model.Key;
 import dagger.spi.model.RequestKind;
@@ -93,6 +101,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import javax.inject.Inject;
 import javax.inject.Provider;
 import javax.lang.model.element.ExecutableElement;
@@ -171,6 +180,9 @@ public final class ComponentImplementation {
     /** A class for a component shard. */
     COMPONENT_SHARD_TYPE,
 
+    /** A static holder class for the instance of a scoped binding. */
+    SINGLETON_HOLDER,
+
     /** A class for the subcomponent or subcomponent builder. */
     SUBCOMPONENT
   }
@@ -226,6 +238,49 @@ public final class ComponentImplementation {
     return partitions.build();
   }
 
+  /**
+   * Returns the scoped provision bindings owned by the root component, grouped into waves that can
+   * be warmed up one after the other. No binding depends, directly or transitively, on a binding in
+   * the same or a later wave, except that bindings in a dependency cycle are placed in consecutive
+   * waves.
+   */
+  private static ImmutableList<ImmutableList<Binding>> warmUpWaves(BindingGraph graph) {
+    Network<Node, Edge> network = graph.topLevelBindingGraph().network();
+    // For each node, the earliest wave in which a binding that depends on it can be warmed up.
+    Map<Node, Integer> earliestDependentWaves = new HashMap<>();
+    ListMultimap<Integer, Binding> waves = MultimapBuilder.treeKeys().arrayListValues().build();
+    // The strongly connected nodes are in reverse topological order, so each node's dependencies
+    // have been visited before the node itself.
+    for (ImmutableSet<Node> nodes : graph.topLevelBindingGraph().stronglyConnectedNodes()) {
+      int wave = 0;
+      for (Node node : nodes) {
+        for (Node dependency : network.successors(node)) {
+          if (!nodes.contains(dependency)) {
+            wave = Math.max(wave, earliestDependentWaves.getOrDefault(dependency, 0));
+          }
+        }
+      }
+      for (Node node : nodes) {
+        if (node instanceof BindingNode && isWarmUpBinding(graph, (BindingNode) node)) {
+          waves.put(wave++, ((BindingNode) node).delegate());
+        }
+      }
+      for (Node node : nodes) {
+        earliestDependentWaves.put(node, wave);
+      }
+    }
+    return waves.asMap().values().stream().map(ImmutableList::copyOf).collect(toImmutableList());
+  }
+
+  private static boolean isWarmUpBinding(BindingGraph graph, BindingNode bindingNode) {
+    return bindingNode.componentPath().equals(graph.componentPath())
+        && bindingNode.delegate().bindingType().equals(BindingType.PROVISION)
+        && bindingNode.delegate().scope().isPresent();
+  }
+
+  private static final TypeName WILDCARD_PROVIDER =
+      ParameterizedTypeName.get(TypeNames.PROVIDER, WildcardTypeName.subtypeOf(Object.class));
+
   /** The boolean parameter of the onProducerFutureCancelled method. */
   public static final ParameterSpec MAY_INTERRUPT_IF_RUNNING_PARAM =
       ParameterSpec.builder(boolean.class, "mayInterruptIfRunning").build();
@@ -255,6 +310,7 @@ public final class ComponentImplementation {
   private final ImmutableMap<ComponentImplementation, FieldSpec> componentFieldsByImplementation;
   private final XMessager messager;
   private final boolean isFastInit;
+  private final boolean generateWarmUpMethod;
 
   @Inject
   ComponentImplementation(
@@ -296,6 +352,7 @@ public final class ComponentImplementation {
     this.messager = messager;
     this.isFastInit =
         compilerOptions.fastInit(rootComponentImplementation().componentDescriptor().typeElement());
+    this.generateWarmUpMethod = !parent.isPresent() && compilerOptions.generateWarmUpMethod();
   }
 
   /**
@@ -442,6 +499,9 @@ public final class ComponentImplementation {
         MultimapBuilder.enumKeys(TypeSpecKind.class).arrayListValues().build();
     private final List<Supplier<TypeSpec>> typeSuppliers = new ArrayList<>();
     private boolean initialized = false; // This is used for initializing assistedParamNames.
+    private String startedProducersField;
+    private int startedProducerCount = 0;
+    private boolean generated = false;
 
     private ShardImplementation(ClassName name) {
       this.name = name;
@@ -574,6 +634,20 @@ public final class ComponentImplementation {
       cancellations.putIfAbsent(key, codeBlock);
     }
 
+    /**
+     * Returns an expression that creates a producer with {@code producerCreation}, an expression
+     * from this shard, and tracks its start, so that the cancellation listener method of the
+     * component only cancels the producers that were started. Used when {@link
+     * CompilerOptions#trackStartedProducers()} is enabled, in place of {@link #addCancellation}.
+     */
+    CodeBlock trackStartedProducer(CodeBlock producerCreation) {
+      if (startedProducersField == null) {
+        startedProducersField = getUniqueFieldName("startedProducers");
+      }
+      startedProducerCount++;
+      return CodeBlock.of("$N.track($L)", startedProducersField, producerCreation);
+    }
+
     /** Returns a new, unique field name for the component based on the given name. */
     String getUniqueFieldName(String name) {
       return componentFieldNames.getUniqueName(name);
@@ -642,8 +716,16 @@ public final class ComponentImplementation {
       componentMethodNames.claim(name);
     }
 
-    /** Generates the component and returns the resulting {@link TypeSpec.Builder}. */
+    /**
+     * Generates the component and returns the resulting {@link TypeSpec}.
+     *
+     * <p>Once generated, the shard releases the specs and code blocks it accumulated, so that for
+     * large components each shard's intermediate state can be collected while the remaining shards
+     * and subcomponents are still being generated. A shard may therefore only be generated once.
+     */
     private TypeSpec generate() {
+      checkState(!generated, "%s has already been generated", name);
+      generated = true;
       TypeSpec.Builder builder = classBuilder(name);
 
       if (isComponentShard()) {
@@ -651,6 +733,9 @@ public final class ComponentImplementation {
         addCreator();
         addFactoryMethods();
         addInterfaceMethods();
+        if (generateWarmUpMethod) {
+          addWarmUpMethod();
+        }
         addChildComponents();
         addShards();
       }
@@ -658,7 +743,7 @@ public final class ComponentImplementation {
       addConstructorAndInitializationMethods();
 
       if (graph.componentDescriptor().isProduction()) {
-        if (isComponentShard() || !cancellations.isEmpty()) {
+        if (isComponentShard() || !cancellations.isEmpty() || startedProducerCount > 0) {
           TypeSpecs.addSupertype(
               builder, elements.getTypeElement(TypeNames.CANCELLATION_LISTENER.canonicalName()));
           addCancellationListenerImplementation();
@@ -670,7 +755,20 @@ public final class ComponentImplementation {
       methodSpecsMap.asMap().values().forEach(builder::addMethods);
       typeSpecsMap.asMap().values().forEach(builder::addTypes);
       typeSuppliers.stream().map(Supplier::get).forEach(builder::addType);
-      return builder.build();
+      TypeSpec typeSpec = builder.build();
+      releaseGeneratedState();
+      return typeSpec;
+    }
+
+    /** Releases everything that was only needed to build this shard's {@link TypeSpec}. */
+    private void releaseGeneratedState() {
+      initializations.clear();
+      cancellations.clear();
+      componentRequirementInitializations.clear();
+      fieldSpecsMap.clear();
+      methodSpecsMap.clear();
+      typeSpecsMap.clear();
+      typeSuppliers.clear();
     }
 
     private ImmutableSet<Modifier> modifiers() {
@@ -812,6 +910,70 @@ public final class ComponentImplementation {
       }
     }
 
+    private void addWarmUpMethod() {
+      ParameterSpec waves =
+          ParameterSpec.builder(ArrayTypeName.of(ArrayTypeName.of(WILDCARD_PROVIDER)), "waves")
+              .build();
+      // The providers are assigned one statement at a time, rather than in one array initializer,
+      // so that they can be partitioned into methods that stay under the JVM's method size limit.
+      List<CodeBlock> assignments = new ArrayList<>();
+      ImmutableList<ImmutableList<Binding>> bindingWaves = warmUpWaves(graph);
+      for (int i = 0; i < bindingWaves.size(); i++) {
+        ImmutableList<Binding> wave = bindingWaves.get(i);
+        assignments.add(
+            CodeBlock.of("$N[$L] = new $T[$L];", waves, i, WILDCARD_PROVIDER, wave.size()));
+        for (int j = 0; j < wave.size(); j++) {
+          assignments.add(
+              CodeBlock.of(
+                  "$N[$L][$L] = $L;",
+                  waves,
+                  i,
+                  j,
+                  bindingExpressionsProvider
+                      .get()
+                      .getDependencyExpression(
+                          BindingRequest.bindingRequest(wave.get(j).key(), RequestKind.PROVIDER),
+                          name)
+                      .codeBlock()));
+        }
+      }
+      ParameterSpec executor = ParameterSpec.builder(Executor.class, "executor").build();
+      MethodSpec.Builder warmUpMethod =
+          methodBuilder(ComponentDescriptor.WARM_UP_METHOD_NAME)
+              .addModifiers(PUBLIC)
+              .addParameter(executor)
+              .addException(InterruptedException.class)
+              .addStatement(
+                  "$T $N = new $T[$L][]",
+                  waves.type,
+                  waves,
+                  WILDCARD_PROVIDER,
+                  bindingWaves.size());
+      if (assignments.size() < STATEMENTS_PER_METHOD) {
+        warmUpMethod.addCode(CodeBlocks.concat(assignments));
+      } else {
+        for (MethodSpec warmUpWavesMethod :
+            createPartitionedMethods(
+                "warmUpWaves",
+                ImmutableList.of(waves),
+                assignments,
+                methodName -> methodBuilder(methodName))) {
+          warmUpMethod.addStatement("$N($N)", warmUpWavesMethod, waves);
+          addMethod(MethodSpecKind.PRIVATE_METHOD, warmUpWavesMethod);
+        }
+      }
+      // The component may declare the method, as validated by ComponentValidator.
+      if (asStream(graph.componentDescriptor().typeElement().getAllMethods())
+          .anyMatch(ComponentDescriptor::isWarmUpMethod)) {
+        warmUpMethod.addAnnotation(Override.class);
+      }
+      addMethod(
+          COMPONENT_METHOD,
+          warmUpMethod
+              .addStatement("$T.warmUp($N, $N)", TypeNames.PARALLEL_WARM_UP, executor, waves)
+              .build());
+    }
+
     private void addChildComponents() {
       for (BindingGraph subgraph : graph.subgraphs()) {
         rootComponentImplementation()
@@ -893,6 +1055,15 @@ public final class ComponentImplementation {
         addMethod(MethodSpecKind.INITIALIZE_METHOD, initializationMethod);
       }
 
+      if (startedProducerCount > 0) {
+        // Each producer is tracked as it's created, so the field is initialized before them.
+        addField(
+            FieldSpecKind.FRAMEWORK_FIELD,
+            FieldSpec.builder(TypeNames.STARTED_PRODUCERS, startedProducersField, PRIVATE, FINAL)
+                .initializer("new $T($L)", TypeNames.STARTED_PRODUCERS, startedProducerCount)
+                .build());
+      }
+
       if (isComponentShard()) {
         constructor.addCode(CodeBlocks.concat(shardInitializations));
       } else {
@@ -925,7 +1096,7 @@ public final class ComponentImplementation {
       if (isComponentShard()) {
         methodBuilder.addCode(
             CodeBlocks.concat(ImmutableList.copyOf(shardCancellations).reverse()));
-      } else if (!cancellations.isEmpty()) {
+      } else if (!cancellations.isEmpty() || startedProducerCount > 0) {
         shardCancellations.add(
             CodeBlock.of(
                 "$N.$N($N);",
@@ -934,6 +1105,12 @@ public final class ComponentImplementation {
                 MAY_INTERRUPT_IF_RUNNING_PARAM));
       }
 
+      // When the started producers are tracked, only those are cancelled, and in the same order.
+      if (startedProducerCount > 0) {
+        methodBuilder.addStatement(
+            "$N.cancel($N)", startedProducersField, MAY_INTERRUPT_IF_RUNNING_PARAM);
+      }
+
       ImmutableList<CodeBlock> cancellationStatements =
           ImmutableList.copyOf(cancellations.values()).reverse();
       if (cancellationStatements.size() < STATEMENTS_PER_METHOD) {
@@ -47,6 +47,7 @@ import dagger.spi.model.RequestKind;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiFunction;
 import javax.inject.Inject;
 import javax.lang.model.type.TypeMirror;
 
@@ -120,11 +121,26 @@ public final class ComponentRequestRepresentations {
    */
   CodeBlock getCreateMethodArgumentsCodeBlock(
       ContributionBinding binding, ClassName requestingClass) {
-    return makeParametersCodeBlock(getCreateMethodArgumentsCodeBlocks(binding, requestingClass));
+    return getCreateMethodArgumentsCodeBlock(
+        binding, requestingClass, (dependency, argument) -> argument);
+  }
+
+  /**
+   * Like {@link #getCreateMethodArgumentsCodeBlock(ContributionBinding, ClassName)}, but the
+   * argument for each dependency is replaced by the result of {@code argumentMapper}.
+   */
+  CodeBlock getCreateMethodArgumentsCodeBlock(
+      ContributionBinding binding,
+      ClassName requestingClass,
+      BiFunction<DependencyRequest, CodeBlock, CodeBlock> argumentMapper) {
+    return makeParametersCodeBlock(
+        getCreateMethodArgumentsCodeBlocks(binding, requestingClass, argumentMapper));
   }
 
   private ImmutableList<CodeBlock> getCreateMethodArgumentsCodeBlocks(
-      ContributionBinding binding, ClassName requestingClass) {
+      ContributionBinding binding,
+      ClassName requestingClass,
+      BiFunction<DependencyRequest, CodeBlock, CodeBlock> argumentMapper) {
     ImmutableList.Builder<CodeBlock> arguments = ImmutableList.builder();
 
     if (binding.requiresModuleInstance()) {
@@ -135,9 +151,12 @@ public final class ComponentRequestRepresentations {
     }
 
     binding.dependencies().stream()
-        .map(dependency -> frameworkRequest(binding, dependency))
-        .map(request -> getDependencyExpression(request, requestingClass))
-        .map(Expression::codeBlock)
+        .map(
+            dependency ->
+                argumentMapper.apply(
+                    dependency,
+                    getDependencyExpression(frameworkRequest(binding, dependency), requestingClass)
+                        .codeBlock()))
         .forEach(arguments::add);
 
     return arguments.build();
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2021 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.writing;
+
+import static dagger.internal.codegen.javapoet.TypeNames.PROVISION_MONITORING;
+
+import com.squareup.javapoet.CodeBlock;
+import dagger.internal.codegen.binding.ContributionBinding;
+
+/**
+ * Helper class for reporting provisions to {@code dagger.internal.ProvisionMonitoring} when the
+ * {@code dagger.monitorProvisions} compiler option is enabled.
+ */
+final class MonitoredProvisions {
+  /**
+   * Returns true if {@code binding} calls an {@link javax.inject.Inject @Inject} constructor or
+   * {@link dagger.Provides @Provides} method whose provisions are reported.
+   */
+  static boolean isMonitored(ContributionBinding binding) {
+    switch (binding.kind()) {
+      case INJECTION:
+      case PROVISION:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Returns the body of a method that returns {@code instance} and reports evaluating it as a
+   * provision. The thread's provision depth is restored in a {@code finally} block, so that it is
+   * still correct after {@code instance} throws.
+   */
+  static CodeBlock monitoredInstanceMethodBody(ContributionBinding binding, CodeBlock instance) {
+    String key = binding.key().toString();
+    return CodeBlock.builder()
+        .addStatement("int depth = $T.start($S)", PROVISION_MONITORING, key)
+        .beginControlFlow("try")
+        .addStatement("return $T.end($S, depth, $L)", PROVISION_MONITORING, key, instance)
+        .nextControlFlow("finally")
+        .addStatement("$T.exit(depth)", PROVISION_MONITORING)
+        .endControlFlow()
+        .build();
+  }
+
+  /** Returns {@code provider}, wrapped so that each call to its {@code get()} is reported. */
+  static CodeBlock monitoredProvider(ContributionBinding binding, CodeBlock provider) {
+    return CodeBlock.of(
+        "$T.provider($S, $L)", PROVISION_MONITORING, binding.key().toString(), provider);
+  }
+
+  private MonitoredProvisions() {}
+}
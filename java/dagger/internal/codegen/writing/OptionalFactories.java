@@ -28,6 +28,7 @@ import static dagger.internal.codegen.base.RequestKinds.requestTypeName;
 import static dagger.internal.codegen.javapoet.AnnotationSpecs.Suppression.RAWTYPES;
 import static dagger.internal.codegen.javapoet.AnnotationSpecs.Suppression.UNCHECKED;
 import static dagger.internal.codegen.javapoet.TypeNames.PROVIDER;
+import static dagger.internal.codegen.javapoet.TypeNames.SINGLE_CHECK;
 import static dagger.internal.codegen.javapoet.TypeNames.abstractProducerOf;
 import static dagger.internal.codegen.javapoet.TypeNames.listenableFutureOf;
 import static dagger.internal.codegen.javapoet.TypeNames.providerOf;
@@ -57,6 +58,7 @@ import dagger.internal.InstanceFactory;
 import dagger.internal.Preconditions;
 import dagger.internal.codegen.base.OptionalType;
 import dagger.internal.codegen.base.OptionalType.OptionalKind;
+import dagger.internal.codegen.binding.BindingGraph;
 import dagger.internal.codegen.binding.BindingType;
 import dagger.internal.codegen.binding.ContributionBinding;
 import dagger.internal.codegen.binding.FrameworkType;
@@ -64,6 +66,8 @@ import dagger.internal.codegen.javapoet.AnnotationSpecs;
 import dagger.internal.codegen.writing.ComponentImplementation.ShardImplementation;
 import dagger.producers.Producer;
 import dagger.producers.internal.Producers;
+import dagger.spi.model.BindingKind;
+import dagger.spi.model.DependencyRequest;
 import dagger.spi.model.RequestKind;
 import java.util.Comparator;
 import java.util.Map;
@@ -320,6 +324,58 @@ final class OptionalFactories {
         delegateFactory);
   }
 
+  /**
+   * Returns {@code true} if all of the {@code Optional} values provided for the present optional
+   * {@code binding} are interchangeable, so that the component can hand out a single one rather
+   * than creating one for each {@code get()} call.
+   *
+   * <p>That is the case if the value only wraps the delegate provider, e.g. {@code
+   * Optional<Provider<T>>}, or if the underlying binding is scoped, so that the delegate always
+   * returns the same instance.
+   */
+  static boolean cachesPresentValue(ContributionBinding binding, BindingGraph graph) {
+    if (!binding.kind().equals(BindingKind.OPTIONAL)
+        || !binding.bindingType().equals(BindingType.PROVISION)
+        || binding.dependencies().isEmpty()) {
+      return false;
+    }
+    DependencyRequest dependency = getOnlyElement(binding.dependencies());
+    switch (dependency.kind()) {
+      case PROVIDER:
+      case PROVIDER_OF_LAZY:
+        return true;
+      case INSTANCE:
+      case LAZY:
+        ContributionBinding underlyingBinding = graph.contributionBinding(dependency.key());
+        return underlyingBinding.scope().isPresent()
+            && !underlyingBinding.scope().get().isReusable();
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Returns an expression for a {@code Provider<Optional<T>>} for a present optional binding that
+   * returns the same {@code Optional} from every call. See {@link #cachesPresentValue}.
+   *
+   * <p>If the value only depends on the delegate provider, the {@code Optional} is created up front
+   * and no factory class is needed.
+   */
+  CodeBlock cachedPresentOptionalProvider(ContributionBinding binding, CodeBlock delegateFactory) {
+    RequestKind valueKind = getOnlyElement(binding.dependencies()).kind();
+    if (valueKind.equals(RequestKind.INSTANCE)) {
+      // The instance can't be requested until the optional is, so memoize the factory instead.
+      return CodeBlock.of(
+          "$T.provider($L)", SINGLE_CHECK, presentOptionalFactory(binding, delegateFactory));
+    }
+    return CodeBlock.of(
+        "$T.create($L)",
+        InstanceFactory.class,
+        OptionalType.from(binding.key())
+            .kind()
+            .presentExpression(FrameworkType.PROVIDER.to(valueKind, delegateFactory)));
+  }
+
   private TypeSpec presentOptionalFactoryClass(PresentFactorySpec spec) {
     FieldSpec delegateField =
         FieldSpec.builder(spec.delegateType(), "delegate", PRIVATE, FINAL).build();
@@ -23,6 +23,7 @@ import com.squareup.javapoet.CodeBlock;
 import dagger.assisted.Assisted;
 import dagger.assisted.AssistedFactory;
 import dagger.assisted.AssistedInject;
+import dagger.internal.codegen.binding.BindingGraph;
 import dagger.internal.codegen.binding.ContributionBinding;
 import dagger.internal.codegen.writing.FrameworkFieldInitializer.FrameworkInstanceCreationExpression;
 
@@ -36,31 +37,37 @@ final class OptionalFactoryInstanceCreationExpression
   private final ContributionBinding binding;
   private final ComponentImplementation componentImplementation;
   private final ComponentRequestRepresentations componentRequestRepresentations;
+  private final BindingGraph graph;
 
   @AssistedInject
   OptionalFactoryInstanceCreationExpression(
       @Assisted ContributionBinding binding,
       OptionalFactories optionalFactories,
       ComponentImplementation componentImplementation,
-      ComponentRequestRepresentations componentRequestRepresentations) {
+      ComponentRequestRepresentations componentRequestRepresentations,
+      BindingGraph graph) {
     this.optionalFactories = optionalFactories;
     this.binding = binding;
     this.componentImplementation = componentImplementation;
     this.componentRequestRepresentations = componentRequestRepresentations;
+    this.graph = graph;
   }
 
   @Override
   public CodeBlock creationExpression() {
-    return binding.dependencies().isEmpty()
-        ? optionalFactories.absentOptionalProvider(binding)
-        : optionalFactories.presentOptionalFactory(
-            binding,
-            componentRequestRepresentations
-                .getDependencyExpression(
-                    bindingRequest(
-                        getOnlyElement(binding.dependencies()).key(), binding.frameworkType()),
-                    componentImplementation.shardImplementation(binding).name())
-                .codeBlock());
+    if (binding.dependencies().isEmpty()) {
+      return optionalFactories.absentOptionalProvider(binding);
+    }
+    CodeBlock delegateFactory =
+        componentRequestRepresentations
+            .getDependencyExpression(
+                bindingRequest(
+                    getOnlyElement(binding.dependencies()).key(), binding.frameworkType()),
+                componentImplementation.shardImplementation(binding).name())
+            .codeBlock();
+    return OptionalFactories.cachesPresentValue(binding, graph)
+        ? optionalFactories.cachedPresentOptionalProvider(binding, delegateFactory)
+        : optionalFactories.presentOptionalFactory(binding, delegateFactory);
   }
 
   @AssistedFactory
@@ -18,14 +18,18 @@ package dagger.internal.codegen.writing;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static dagger.internal.codegen.binding.SourceFiles.generatedClassNameForBinding;
+import static dagger.internal.codegen.javapoet.TypeNames.PRODUCERS;
 
 import com.squareup.javapoet.CodeBlock;
 import dagger.assisted.Assisted;
 import dagger.assisted.AssistedFactory;
 import dagger.assisted.AssistedInject;
 import dagger.internal.codegen.binding.ContributionBinding;
+import dagger.internal.codegen.binding.KeyFactory;
+import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.writing.ComponentImplementation.ShardImplementation;
 import dagger.internal.codegen.writing.FrameworkFieldInitializer.FrameworkInstanceCreationExpression;
+import dagger.spi.model.DependencyRequest;
 
 /**
  * A {@link dagger.producers.Producer} creation expression for a {@link
@@ -37,15 +41,24 @@ final class ProducerCreationExpression implements FrameworkInstanceCreationExpre
   private final ShardImplementation shardImplementation;
   private final ComponentRequestRepresentations componentRequestRepresentations;
   private final ContributionBinding binding;
+  private final CompilerOptions compilerOptions;
+  private final KeyFactory keyFactory;
+  private final ProducerPriorities producerPriorities;
 
   @AssistedInject
   ProducerCreationExpression(
       @Assisted ContributionBinding binding,
       ComponentImplementation componentImplementation,
-      ComponentRequestRepresentations componentRequestRepresentations) {
+      ComponentRequestRepresentations componentRequestRepresentations,
+      CompilerOptions compilerOptions,
+      KeyFactory keyFactory,
+      ProducerPriorities producerPriorities) {
     this.binding = checkNotNull(binding);
     this.shardImplementation = componentImplementation.shardImplementation(binding);
     this.componentRequestRepresentations = checkNotNull(componentRequestRepresentations);
+    this.compilerOptions = compilerOptions;
+    this.keyFactory = keyFactory;
+    this.producerPriorities = producerPriorities;
   }
 
   @Override
@@ -54,7 +67,22 @@ final class ProducerCreationExpression implements FrameworkInstanceCreationExpre
         "$T.create($L)",
         generatedClassNameForBinding(binding),
         componentRequestRepresentations.getCreateMethodArgumentsCodeBlock(
-            binding, shardImplementation.name()));
+            binding, shardImplementation.name(), this::prioritizeExecutor));
+  }
+
+  /**
+   * Returns the argument for {@code dependency}, wrapped so that the producer's executor tasks have
+   * its priority if the dependency is the producer's executor and producers are prioritized.
+   */
+  private CodeBlock prioritizeExecutor(DependencyRequest dependency, CodeBlock argument) {
+    return compilerOptions.prioritizeProducers()
+            && dependency.key().equals(keyFactory.forProductionImplementationExecutor())
+        ? CodeBlock.of(
+            "$T.executorWithPriority($L, $L)",
+            PRODUCERS,
+            argument,
+            producerPriorities.priority(binding))
+        : argument;
   }
 
   @AssistedFactory
@@ -32,8 +32,14 @@ import static dagger.internal.codegen.javapoet.AnnotationSpecs.Suppression.FUTUR
 import static dagger.internal.codegen.javapoet.AnnotationSpecs.Suppression.UNCHECKED;
 import static dagger.internal.codegen.javapoet.CodeBlocks.makeParametersCodeBlock;
 import static dagger.internal.codegen.javapoet.CodeBlocks.toParametersCodeBlock;
+import static dagger.internal.codegen.javapoet.TypeNames.COMPLETION_STAGE_FUTURE;
 import static dagger.internal.codegen.javapoet.TypeNames.FUTURES;
+import static dagger.internal.codegen.javapoet.TypeNames.HEDGED;
+import static dagger.internal.codegen.javapoet.TypeNames.HEDGING_POLICY;
 import static dagger.internal.codegen.javapoet.TypeNames.PRODUCERS;
+import static dagger.internal.codegen.javapoet.TypeNames.PRODUCER_CACHE;
+import static dagger.internal.codegen.javapoet.TypeNames.PRODUCER_RESULT_CACHE;
+import static dagger.internal.codegen.javapoet.TypeNames.PRODUCER_TIMEOUT;
 import static dagger.internal.codegen.javapoet.TypeNames.PRODUCER_TOKEN;
 import static dagger.internal.codegen.javapoet.TypeNames.VOID_CLASS;
 import static dagger.internal.codegen.javapoet.TypeNames.listOf;
@@ -48,6 +54,7 @@ import static javax.lang.model.element.Modifier.PROTECTED;
 import static javax.lang.model.element.Modifier.PUBLIC;
 import static javax.lang.model.element.Modifier.STATIC;
 
+import androidx.room.compiler.processing.XAnnotation;
 import androidx.room.compiler.processing.XElement;
 import androidx.room.compiler.processing.XFiler;
 import androidx.room.compiler.processing.XType;
@@ -84,6 +91,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import javax.inject.Inject;
 import javax.lang.model.SourceVersion;
 
@@ -226,6 +234,53 @@ public final class ProducerFactoryGenerator extends SourceFileGenerator<Producti
         .addMethod(collectDependenciesBuilder.build())
         .addMethod(callProducesMethod.build());
 
+    timeoutNanos(binding)
+        .ifPresent(
+            timeoutNanos ->
+                factoryBuilder.addMethod(
+                    methodBuilder("timeoutNanos")
+                        .addAnnotation(Override.class)
+                        .addModifiers(PROTECTED)
+                        .returns(TypeName.LONG)
+                        .addStatement("return $LL", timeoutNanos)
+                        .build()));
+
+    hedgingPolicyCreation(binding)
+        .ifPresent(
+            hedgingPolicyCreation -> {
+              FieldSpec hedgingPolicyField =
+                  FieldSpec.builder(HEDGING_POLICY, "HEDGING_POLICY", PRIVATE, STATIC, FINAL)
+                      .initializer(hedgingPolicyCreation)
+                      .build();
+              factoryBuilder
+                  .addField(hedgingPolicyField)
+                  .addMethod(
+                      methodBuilder("hedgingPolicy")
+                          .addAnnotation(Override.class)
+                          .addModifiers(PROTECTED)
+                          .returns(HEDGING_POLICY)
+                          .addStatement("return $N", hedgingPolicyField)
+                          .build());
+            });
+
+    resultCacheCreation(binding)
+        .ifPresent(
+            resultCacheCreation -> {
+              FieldSpec resultCacheField =
+                  FieldSpec.builder(PRODUCER_RESULT_CACHE, "RESULT_CACHE", PRIVATE, STATIC, FINAL)
+                      .initializer(resultCacheCreation)
+                      .build();
+              factoryBuilder
+                  .addField(resultCacheField)
+                  .addMethod(
+                      methodBuilder("resultCache")
+                          .addAnnotation(Override.class)
+                          .addModifiers(PROTECTED)
+                          .returns(PRODUCER_RESULT_CACHE)
+                          .addStatement("return $N", resultCacheField)
+                          .build());
+            });
+
     gwtIncompatibleAnnotation(binding).ifPresent(factoryBuilder::addAnnotation);
 
     // TODO(gak): write a sensible toString
@@ -247,6 +302,62 @@ public final class ProducerFactoryGenerator extends SourceFileGenerator<Producti
         .build();
   }
 
+  /**
+   * Returns the timeout of the {@link dagger.producers.ProducerTimeout @ProducerTimeout} on the
+   * binding's method, in nanoseconds, if there is one.
+   */
+  private static Optional<Long> timeoutNanos(ProductionBinding binding) {
+    XElement bindingElement = binding.bindingElement().get();
+    if (!bindingElement.hasAnnotation(PRODUCER_TIMEOUT)) {
+      return Optional.empty();
+    }
+    XAnnotation timeout = bindingElement.getAnnotation(PRODUCER_TIMEOUT);
+    return Optional.of(
+        TimeUnit.valueOf(timeout.getAsEnum("unit").getName())
+            .toNanos(timeout.getAsLong("value")));
+  }
+
+  /**
+   * Returns an expression that creates the {@code HedgingPolicy} for the {@link
+   * dagger.producers.Hedged @Hedged} annotation on the binding's method, if there is one. The
+   * policy is stored in a static field, so that it learns from the calls of all components.
+   */
+  private static Optional<CodeBlock> hedgingPolicyCreation(ProductionBinding binding) {
+    XElement bindingElement = binding.bindingElement().get();
+    if (!bindingElement.hasAnnotation(HEDGED)) {
+      return Optional.empty();
+    }
+    XAnnotation hedged = bindingElement.getAnnotation(HEDGED);
+    return Optional.of(
+        CodeBlock.of(
+            "$T.create($L, $LL)",
+            HEDGING_POLICY,
+            hedged.getAsDouble("percentile"),
+            TimeUnit.valueOf(hedged.getAsEnum("unit").getName())
+                .toNanos(hedged.getAsLong("initialDelay"))));
+  }
+
+  /**
+   * Returns an expression that creates the {@code ProducerResultCache} for the {@link
+   * dagger.producers.ProducerCache @ProducerCache} annotation on the binding's method, if there is
+   * one. Like the hedging policy, the cache is stored in a static field, so that it is shared by
+   * all components.
+   */
+  private static Optional<CodeBlock> resultCacheCreation(ProductionBinding binding) {
+    XElement bindingElement = binding.bindingElement().get();
+    if (!bindingElement.hasAnnotation(PRODUCER_CACHE)) {
+      return Optional.empty();
+    }
+    XAnnotation producerCache = bindingElement.getAnnotation(PRODUCER_CACHE);
+    return Optional.of(
+        CodeBlock.of(
+            "$T.create($LL, $LL)",
+            PRODUCER_RESULT_CACHE,
+            producerCache.getAsLong("maximumSize"),
+            TimeUnit.valueOf(producerCache.getAsEnum("unit").getName())
+                .toNanos(producerCache.getAsLong("expireAfterWrite"))));
+  }
+
   // TODO(ronshapiro): consolidate versions of these
   private static FieldSpec addFieldAndConstructorParameter(
       TypeSpec.Builder typeBuilder,
@@ -539,6 +650,11 @@ public final class ProducerFactoryGenerator extends SourceFileGenerator<Producti
       case SET_OF_FUTURE:
         returnCodeBlock = CodeBlock.of("$T.allAsSet($L)", PRODUCERS, moduleCodeBlock);
         break;
+      case COMPLETION_STAGE:
+        // Only refer to the Java 8 adapter when the method returns a stage, so that other
+        // producers still run on Java 7.
+        returnCodeBlock = CodeBlock.of("$T.create($L)", COMPLETION_STAGE_FUTURE, moduleCodeBlock);
+        break;
       default:
         throw new AssertionError();
     }
@@ -24,6 +24,7 @@ import dagger.assisted.AssistedInject;
 import dagger.internal.codegen.binding.ComponentDescriptor.ComponentMethodDescriptor;
 import dagger.internal.codegen.binding.ContributionBinding;
 import dagger.internal.codegen.binding.FrameworkType;
+import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.javapoet.Expression;
 import dagger.internal.codegen.langmodel.DaggerElements;
 import dagger.internal.codegen.langmodel.DaggerTypes;
@@ -37,6 +38,7 @@ final class ProducerNodeInstanceRequestRepresentation
   private final ShardImplementation shardImplementation;
   private final Key key;
   private final ProducerEntryPointView producerEntryPointView;
+  private final boolean trackStartedProducers;
 
   @AssistedInject
   ProducerNodeInstanceRequestRepresentation(
@@ -44,11 +46,13 @@ final class ProducerNodeInstanceRequestRepresentation
       @Assisted FrameworkInstanceSupplier frameworkInstanceSupplier,
       DaggerTypes types,
       DaggerElements elements,
-      ComponentImplementation componentImplementation) {
+      ComponentImplementation componentImplementation,
+      CompilerOptions compilerOptions) {
     super(binding, frameworkInstanceSupplier, types, elements);
     this.shardImplementation = componentImplementation.shardImplementation(binding);
     this.key = binding.key();
     this.producerEntryPointView = new ProducerEntryPointView(shardImplementation, types);
+    this.trackStartedProducers = compilerOptions.trackStartedProducers();
   }
 
   @Override
@@ -59,6 +63,11 @@ final class ProducerNodeInstanceRequestRepresentation
   @Override
   Expression getDependencyExpression(ClassName requestingClass) {
     Expression result = super.getDependencyExpression(requestingClass);
+    if (trackStartedProducers) {
+      // The producer was tracked when it was created, see ProductionBindingRepresentation. One
+      // created from a provider has nothing to cancel.
+      return result;
+    }
     shardImplementation.addCancellation(
         key,
         CodeBlock.of(
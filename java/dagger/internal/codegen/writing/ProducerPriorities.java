@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.writing;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.graph.Network;
+import dagger.internal.codegen.binding.BindingGraph;
+import dagger.internal.codegen.binding.BindingNode;
+import dagger.internal.codegen.binding.ContributionBinding;
+import dagger.spi.model.BindingGraph.Edge;
+import dagger.spi.model.BindingGraph.Node;
+import dagger.spi.model.Key;
+import java.util.HashMap;
+import java.util.Map;
+import javax.inject.Inject;
+
+/**
+ * The priorities of the executor tasks of a production component's producers, used when {@link
+ * dagger.internal.codegen.compileroption.CompilerOptions#prioritizeProducers()} is enabled.
+ *
+ * <p>A producer's priority is the length of the longest chain of dependencies from an entry point
+ * of the component down to the producer. The deeper a producer is, the more producers wait on it
+ * before an entry point can complete, so the sooner it should run.
+ */
+@PerComponentImplementation
+final class ProducerPriorities {
+  private final BindingGraph graph;
+  private final Supplier<ImmutableMap<Key, Integer>> depths;
+
+  @Inject
+  ProducerPriorities(BindingGraph graph) {
+    this.graph = graph;
+    this.depths = Suppliers.memoize(this::depths);
+  }
+
+  /** Returns the priority of the tasks of {@code binding}'s producer. */
+  int priority(ContributionBinding binding) {
+    return depths.get().getOrDefault(binding.key(), 0);
+  }
+
+  /**
+   * Returns the depth of each binding owned by this component: one more than the depth of its
+   * deepest dependent, or one for a binding only requested by entry points.
+   */
+  private ImmutableMap<Key, Integer> depths() {
+    Network<Node, Edge> network = graph.topLevelBindingGraph().network();
+    Map<Node, Integer> depths = new HashMap<>();
+    Map<Key, Integer> localDepths = new HashMap<>();
+    // The strongly connected nodes are in reverse topological order, so visiting them in reverse
+    // visits each node's dependents before the node itself. The nodes in a cycle share a depth.
+    for (ImmutableSet<Node> nodes :
+        graph.topLevelBindingGraph().stronglyConnectedNodes().asList().reverse()) {
+      int depth = 0;
+      for (Node node : nodes) {
+        for (Node dependent : network.predecessors(node)) {
+          if (!nodes.contains(dependent)) {
+            depth = Math.max(depth, depths.getOrDefault(dependent, 0) + 1);
+          }
+        }
+      }
+      for (Node node : nodes) {
+        depths.put(node, depth);
+        if (node instanceof BindingNode
+            && ((BindingNode) node).componentPath().equals(graph.componentPath())) {
+          localDepths.put(((BindingNode) node).key(), depth);
+        }
+      }
+    }
+    return ImmutableMap.copyOf(localDepths);
+  }
+}
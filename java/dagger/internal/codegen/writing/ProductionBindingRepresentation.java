@@ -27,7 +27,10 @@ import dagger.assisted.AssistedInject;
 import dagger.internal.codegen.binding.BindingRequest;
 import dagger.internal.codegen.binding.FrameworkType;
 import dagger.internal.codegen.binding.ProductionBinding;
+import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.langmodel.DaggerTypes;
+import dagger.internal.codegen.writing.ComponentImplementation.ShardImplementation;
+import dagger.internal.codegen.writing.FrameworkFieldInitializer.FrameworkInstanceCreationExpression;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -53,21 +56,35 @@ final class ProductionBindingRepresentation implements BindingRepresentation {
           producerNodeInstanceRequestRepresentationFactory,
       UnscopedFrameworkInstanceCreationExpressionFactory
           unscopedFrameworkInstanceCreationExpressionFactory,
+      CompilerOptions compilerOptions,
       DaggerTypes types) {
     this.binding = binding;
     this.derivedFromFrameworkInstanceRequestRepresentationFactory =
         derivedFromFrameworkInstanceRequestRepresentationFactory;
     Optional<MemberSelect> staticMethod = staticFactoryCreation();
-    FrameworkInstanceSupplier frameworkInstanceSupplier =
-        staticMethod.isPresent()
-            ? staticMethod::get
-            : new FrameworkFieldInitializer(
-                componentImplementation,
-                binding,
-                binding.scope().isPresent()
-                    ? scope(
-                        binding, unscopedFrameworkInstanceCreationExpressionFactory.create(binding))
-                    : unscopedFrameworkInstanceCreationExpressionFactory.create(binding));
+    FrameworkInstanceSupplier frameworkInstanceSupplier;
+    if (staticMethod.isPresent()) {
+      frameworkInstanceSupplier = staticMethod::get;
+    } else {
+      FrameworkInstanceCreationExpression unscopedCreationExpression =
+          unscopedFrameworkInstanceCreationExpressionFactory.create(binding);
+      if (compilerOptions.trackStartedProducers()) {
+        // The producer is tracked as it's created rather than by a statement of its own in the
+        // component's constructor.
+        ShardImplementation shardImplementation =
+            componentImplementation.shardImplementation(binding);
+        FrameworkInstanceCreationExpression untracked = unscopedCreationExpression;
+        unscopedCreationExpression =
+            () -> shardImplementation.trackStartedProducer(untracked.creationExpression());
+      }
+      frameworkInstanceSupplier =
+          new FrameworkFieldInitializer(
+              componentImplementation,
+              binding,
+              binding.scope().isPresent()
+                  ? scope(binding, unscopedCreationExpression)
+                  : unscopedCreationExpression);
+    }
     this.frameworkInstanceRequestRepresentation =
         producerNodeInstanceRequestRepresentationFactory.create(binding, frameworkInstanceSupplier);
   }
@@ -41,6 +41,9 @@ final class ProvisionBindingRepresentation implements BindingRepresentation {
   private final ProvisionBinding binding;
   private final DirectInstanceBindingRepresentation directInstanceBindingRepresentation;
   private final FrameworkInstanceBindingRepresentation frameworkInstanceBindingRepresentation;
+  // The representation of instance requests for a binding whose instance is stored outside of a
+  // framework instance, or null.
+  private final RequestRepresentation storedInstanceRequestRepresentation;
 
   @AssistedInject
   ProvisionBindingRepresentation(
@@ -52,6 +55,10 @@ final class ProvisionBindingRepresentation implements BindingRepresentation {
       SwitchingProviderInstanceSupplier.Factory switchingProviderInstanceSupplierFactory,
       ProviderInstanceSupplier.Factory providerInstanceSupplierFactory,
       StaticFactoryInstanceSupplier.Factory staticFactoryInstanceSupplierFactory,
+      ScopedSlots scopedSlots,
+      SingletonHolders singletonHolders,
+      UnscopedDirectInstanceRequestRepresentationFactory
+          unscopedDirectInstanceRequestRepresentationFactory,
       CompilerOptions compilerOptions,
       DaggerTypes types) {
     this.binding = binding;
@@ -60,19 +67,49 @@ final class ProvisionBindingRepresentation implements BindingRepresentation {
     this.directInstanceBindingRepresentation =
         directInstanceBindingRepresentationFactory.create(binding);
     FrameworkInstanceSupplier frameworkInstanceSupplier = null;
-    if (usesSwitchingProvider(binding, isFastInit)) {
+    RequestRepresentation storedInstanceRequestRepresentation = null;
+    if (singletonHolders.usesHolder(binding)) {
+      RequestRepresentation unscopedInstanceRequestRepresentation =
+          unscopedDirectInstanceRequestRepresentationFactory.create(binding);
+      storedInstanceRequestRepresentation =
+          singletonHolders.instanceRequestRepresentation(
+              binding, unscopedInstanceRequestRepresentation);
+      // The holder caches the instance and is itself a Provider and a Lazy, so it needs no
+      // DoubleCheck, and every Lazy request shares it.
+      frameworkInstanceSupplier =
+          new FrameworkFieldInitializer(
+              componentImplementation,
+              binding,
+              singletonHolders.providerCreationExpression(
+                  binding, unscopedInstanceRequestRepresentation));
+    } else if (scopedSlots.usesSlot(binding)) {
+      RequestRepresentation unscopedInstanceRequestRepresentation =
+          unscopedDirectInstanceRequestRepresentationFactory.create(binding);
+      frameworkInstanceSupplier =
+          scopedSlots.frameworkInstanceSupplier(binding, unscopedInstanceRequestRepresentation);
+      storedInstanceRequestRepresentation =
+          scopedSlots.instanceRequestRepresentation(binding, unscopedInstanceRequestRepresentation);
+    } else if (usesSwitchingProvider(binding, isFastInit)) {
       frameworkInstanceSupplier = switchingProviderInstanceSupplierFactory.create(binding);
-    } else if (usesStaticFactoryCreation(binding, isFastInit)) {
+    } else if (usesStaticFactoryCreation(binding, isFastInit)
+        // A monitored provider can't be shared through the factory's static instance.
+        && !(compilerOptions.monitorProvisions() && MonitoredProvisions.isMonitored(binding))) {
       frameworkInstanceSupplier = staticFactoryInstanceSupplierFactory.create(binding);
     } else {
       frameworkInstanceSupplier = providerInstanceSupplierFactory.create(binding);
     }
     this.frameworkInstanceBindingRepresentation =
         frameworkInstanceBindingRepresentationFactory.create(binding, frameworkInstanceSupplier);
+    this.storedInstanceRequestRepresentation = storedInstanceRequestRepresentation;
   }
 
   @Override
   public RequestRepresentation getRequestRepresentation(BindingRequest request) {
+    if (storedInstanceRequestRepresentation != null
+        && request.requestKind().equals(RequestKind.INSTANCE)) {
+      // Read the stored instance directly rather than through its provider.
+      return storedInstanceRequestRepresentation;
+    }
     return usesDirectInstanceExpression(request.requestKind())
         ? directInstanceBindingRepresentation.getRequestRepresentation(request)
         : frameworkInstanceBindingRepresentation.getRequestRepresentation(request);
@@ -94,6 +131,13 @@ final class ProvisionBindingRepresentation implements BindingRepresentation {
       return false;
     }
 
+    // A switching provider that caches its unscoped instances, e.g. for a Map<K, Provider<V>>, is
+    // read through its field so that the instance isn't created again for each request.
+    if (usesSwitchingProvider(binding, isFastInit)
+        && SwitchingProviderInstanceSupplier.cachesUnscopedInstances(binding, graph)) {
+      return false;
+    }
+
     switch (binding.kind()) {
       case MEMBERS_INJECTOR:
         // Currently, we always use a framework instance for MembersInjectors, e.g.
@@ -0,0 +1,287 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.writing;
+
+import static com.google.common.base.CaseFormat.LOWER_CAMEL;
+import static com.google.common.base.CaseFormat.UPPER_CAMEL;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.squareup.javapoet.MethodSpec.methodBuilder;
+import static com.squareup.javapoet.TypeSpec.classBuilder;
+import static dagger.internal.codegen.javapoet.AnnotationSpecs.Suppression.UNCHECKED;
+import static dagger.internal.codegen.javapoet.AnnotationSpecs.suppressWarnings;
+import static dagger.internal.codegen.langmodel.Accessibility.isTypeAccessibleFrom;
+import static dagger.internal.codegen.writing.ProvisionBindingRepresentation.needsCaching;
+import static dagger.internal.codegen.writing.ProvisionBindingRepresentation.usesSwitchingProvider;
+import static javax.lang.model.element.Modifier.FINAL;
+import static javax.lang.model.element.Modifier.PRIVATE;
+import static javax.lang.model.element.Modifier.PROTECTED;
+import static javax.lang.model.element.Modifier.STATIC;
+
+import com.google.auto.common.MoreTypes;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import dagger.internal.codegen.binding.BindingGraph;
+import dagger.internal.codegen.binding.ProvisionBinding;
+import dagger.internal.codegen.compileroption.CompilerOptions;
+import dagger.internal.codegen.javapoet.CodeBlocks;
+import dagger.internal.codegen.javapoet.Expression;
+import dagger.internal.codegen.javapoet.TypeNames;
+import dagger.internal.codegen.langmodel.DaggerElements;
+import dagger.internal.codegen.langmodel.DaggerTypes;
+import dagger.internal.codegen.writing.ComponentImplementation.FieldSpecKind;
+import dagger.internal.codegen.writing.ComponentImplementation.ShardImplementation;
+import dagger.spi.model.Key;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.inject.Inject;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * Keeps track of the scoped bindings of a component whose instances are stored in slots of a
+ * single {@code ScopedInstanceSlots} rather than in a {@code DoubleCheck} field per binding.
+ *
+ * <p>The slots are backed by a generated {@code ScopedInstanceSlots} subclass that creates the
+ * instance for each slot by switching on the slot index, like {@link SwitchingProviders}.
+ */
+@PerComponentImplementation
+final class ScopedSlots {
+  /** See {@code SwitchingProviders#MAX_CASES_PER_SWITCH}. */
+  private static final int MAX_CASES_PER_SWITCH = 100;
+
+  private final Map<Key, Integer> slots = new LinkedHashMap<>();
+  private final List<CodeBlock> slotCases = new ArrayList<>();
+  private final ShardImplementation shardImplementation;
+  private final BindingGraph graph;
+  private final CompilerOptions compilerOptions;
+  private final DaggerTypes types;
+  private final DaggerElements elements;
+  private ClassName slotsType;
+  private FieldSpec slotsField;
+
+  @Inject
+  ScopedSlots(
+      ComponentImplementation componentImplementation,
+      BindingGraph graph,
+      CompilerOptions compilerOptions,
+      DaggerTypes types,
+      DaggerElements elements) {
+    // Like the SwitchingProviders, the slots are only added to the componentShard.
+    this.shardImplementation = checkNotNull(componentImplementation).getComponentShard();
+    this.graph = graph;
+    this.compilerOptions = compilerOptions;
+    this.types = types;
+    this.elements = elements;
+  }
+
+  /** Returns {@code true} if the instance of {@code binding} is stored in a slot. */
+  boolean usesSlot(ProvisionBinding binding) {
+    return compilerOptions.scopedInstanceSlots()
+        && usesSwitchingProvider(
+            binding, shardImplementation.getComponentImplementation().isFastInit())
+        && needsCaching(binding, graph)
+        && !binding.scope().get().isReusable();
+  }
+
+  /** Returns the request representation for the scoped instance of {@code binding}. */
+  RequestRepresentation instanceRequestRepresentation(
+      ProvisionBinding binding, RequestRepresentation unscopedInstanceRequestRepresentation) {
+    return new RequestRepresentation() {
+      @Override
+      Expression getDependencyExpression(ClassName requestingClass) {
+        int slot = slot(binding, unscopedInstanceRequestRepresentation);
+        Expression expression =
+            Expression.create(
+                objectType(),
+                CodeBlock.of("$L.get($L)", slotsFieldReference(requestingClass), slot));
+        return isTypeAccessibleFrom(binding.contributedType(), requestingClass.packageName())
+            ? expression.castTo(boxedType(binding.contributedType()))
+            : expression;
+      }
+    };
+  }
+
+  /** Returns the framework instance supplier for the scoped instance of {@code binding}. */
+  FrameworkInstanceSupplier frameworkInstanceSupplier(
+      ProvisionBinding binding, RequestRepresentation unscopedInstanceRequestRepresentation) {
+    return () ->
+        new MemberSelect(shardImplementation.name(), false) {
+          @Override
+          CodeBlock getExpressionFor(ClassName usingClass) {
+            int slot = slot(binding, unscopedInstanceRequestRepresentation);
+            return isTypeAccessibleFrom(binding.contributedType(), usingClass.packageName())
+                ? CodeBlock.of(
+                    "$L.<$T>provider($L)",
+                    slotsFieldReference(usingClass),
+                    boxedType(binding.contributedType()),
+                    slot)
+                : CodeBlock.of("$L.provider($L)", slotsFieldReference(usingClass), slot);
+          }
+        };
+  }
+
+  private int slot(
+      ProvisionBinding binding, RequestRepresentation unscopedInstanceRequestRepresentation) {
+    Key key = binding.key();
+    if (!slots.containsKey(key)) {
+      if (slotsField == null) {
+        addSlotsType();
+      }
+      // Assign the slot before creating its case, since the case may refer back to this slot.
+      int slot = slots.size();
+      slots.put(key, slot);
+      slotCases.add(null);
+      slotCases.set(
+          slot, createSlotCaseCodeBlock(slot, key, unscopedInstanceRequestRepresentation));
+    }
+    return slots.get(key);
+  }
+
+  private CodeBlock slotsFieldReference(ClassName requestingClass) {
+    return MemberSelect.localField(shardImplementation, slotsField.name)
+        .getExpressionFor(requestingClass);
+  }
+
+  private CodeBlock createSlotCaseCodeBlock(
+      int slot, Key key, RequestRepresentation unscopedInstanceRequestRepresentation) {
+    CodeBlock instanceCodeBlock =
+        unscopedInstanceRequestRepresentation
+            .getDependencyExpression(slotsType)
+            .box(types)
+            .codeBlock();
+
+    return CodeBlock.builder()
+        .add("case $L: // $L \n", slot, key)
+        .addStatement("return $L", instanceCodeBlock)
+        .build();
+  }
+
+  private void addSlotsType() {
+    String name = shardImplementation.getUniqueClassName("ScopedInstances");
+    slotsType = shardImplementation.name().nestedClass(name);
+    slotsField =
+        FieldSpec.builder(
+                slotsType,
+                shardImplementation.getUniqueFieldName(UPPER_CAMEL.to(LOWER_CAMEL, name)),
+                PRIVATE,
+                FINAL)
+            .build();
+    shardImplementation.addField(FieldSpecKind.FRAMEWORK_FIELD, slotsField);
+    shardImplementation.addComponentRequirementInitialization(
+        CodeBlock.of(
+            "this.$N = new $T($L);",
+            slotsField,
+            slotsType,
+            shardImplementation.componentFieldsByImplementation().values().stream()
+                .map(field -> CodeBlock.of("$N", field))
+                .collect(CodeBlocks.toParametersCodeBlock())));
+    shardImplementation.addTypeSupplier(this::build);
+  }
+
+  private TypeSpec build() {
+    TypeSpec.Builder builder =
+        classBuilder(slotsType)
+            .addModifiers(PRIVATE, FINAL, STATIC)
+            .superclass(TypeNames.SCOPED_INSTANCE_SLOTS)
+            .addMethods(createMethods());
+
+    // The constructor lists all component parameters and passes the number of slots to super.
+    MethodSpec.Builder constructor =
+        MethodSpec.constructorBuilder().addStatement("super($L)", slotCases.size());
+    shardImplementation
+        .componentFieldsByImplementation()
+        .values()
+        .forEach(
+            field -> {
+              builder.addField(field);
+              constructor.addParameter(field.type, field.name);
+              constructor.addStatement("this.$1N = $1N", field);
+            });
+
+    return builder.addMethod(constructor.build()).build();
+  }
+
+  private ImmutableList<MethodSpec> createMethods() {
+    List<List<CodeBlock>> partitions = Lists.partition(slotCases, MAX_CASES_PER_SWITCH);
+    if (partitions.size() == 1) {
+      // There are less than MAX_CASES_PER_SWITCH cases, so no need for extra create methods.
+      return ImmutableList.of(
+          createMethodBuilder("create")
+              .addModifiers(PROTECTED)
+              .addAnnotation(Override.class)
+              .addCode(switchCodeBlock(partitions.get(0)))
+              .build());
+    }
+
+    // This is the main "create" method that will route to private create methods.
+    MethodSpec.Builder routerMethod =
+        createMethodBuilder("create")
+            .addModifiers(PROTECTED)
+            .addAnnotation(Override.class)
+            .beginControlFlow("switch (slot / $L)", MAX_CASES_PER_SWITCH);
+
+    ImmutableList.Builder<MethodSpec> createMethods = ImmutableList.builder();
+    for (int i = 0; i < partitions.size(); i++) {
+      MethodSpec method =
+          createMethodBuilder("create" + i)
+              .addModifiers(PRIVATE)
+              .addCode(switchCodeBlock(partitions.get(i)))
+              .build();
+      createMethods.add(method);
+      routerMethod.addStatement("case $L: return $N(slot)", i, method);
+    }
+
+    routerMethod
+        .addStatement("default: throw new $T(slot)", AssertionError.class)
+        .endControlFlow();
+
+    return createMethods.add(routerMethod.build()).build();
+  }
+
+  private static MethodSpec.Builder createMethodBuilder(String name) {
+    return methodBuilder(name)
+        .addAnnotation(suppressWarnings(UNCHECKED))
+        .returns(TypeName.OBJECT)
+        .addParameter(TypeName.INT, "slot");
+  }
+
+  private static CodeBlock switchCodeBlock(List<CodeBlock> cases) {
+    return CodeBlock.builder()
+        .beginControlFlow("switch (slot)")
+        .add(CodeBlocks.concat(cases))
+        .addStatement("default: throw new $T(slot)", AssertionError.class)
+        .endControlFlow()
+        .build();
+  }
+
+  private TypeMirror objectType() {
+    return elements.getTypeElement(TypeName.OBJECT.toString()).asType();
+  }
+
+  private TypeMirror boxedType(TypeMirror type) {
+    return type.getKind().isPrimitive()
+        ? types.boxedClass(MoreTypes.asPrimitiveType(type)).asType()
+        : type;
+  }
+}
@@ -19,11 +19,16 @@ package dagger.internal.codegen.writing;
 import static androidx.room.compiler.processing.compat.XConverters.toJavac;
 import static com.google.auto.common.MoreElements.asExecutable;
 import static com.google.auto.common.MoreElements.asType;
+import static com.google.common.base.CaseFormat.LOWER_CAMEL;
+import static com.google.common.base.CaseFormat.UPPER_CAMEL;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.squareup.javapoet.MethodSpec.methodBuilder;
 import static dagger.internal.codegen.javapoet.CodeBlocks.makeParametersCodeBlock;
 import static dagger.internal.codegen.javapoet.TypeNames.rawTypeName;
 import static dagger.internal.codegen.langmodel.Accessibility.isTypeAccessibleFrom;
+import static dagger.internal.codegen.writing.ComponentImplementation.MethodSpecKind.PRIVATE_METHOD;
 import static dagger.internal.codegen.writing.InjectionMethods.ProvisionMethod.requiresInjectionMethod;
+import static javax.lang.model.element.Modifier.PRIVATE;
 
 import androidx.room.compiler.processing.XTypeElement;
 import com.google.auto.common.MoreTypes;
@@ -34,10 +39,12 @@ import dagger.assisted.Assisted;
 import dagger.assisted.AssistedFactory;
 import dagger.assisted.AssistedInject;
 import dagger.internal.codegen.binding.ComponentRequirement;
+import dagger.internal.codegen.binding.KeyVariableNamer;
 import dagger.internal.codegen.binding.ProvisionBinding;
 import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.javapoet.Expression;
 import dagger.internal.codegen.kotlin.KotlinMetadataUtil;
+import dagger.internal.codegen.langmodel.DaggerTypes;
 import dagger.internal.codegen.writing.ComponentImplementation.ShardImplementation;
 import dagger.internal.codegen.writing.InjectionMethods.ProvisionMethod;
 import dagger.spi.model.DependencyRequest;
@@ -60,6 +67,9 @@ final class SimpleMethodRequestRepresentation extends RequestRepresentation {
   private final SourceVersion sourceVersion;
   private final KotlinMetadataUtil metadataUtil;
   private final ShardImplementation shardImplementation;
+  private final DaggerTypes types;
+  private String monitoredMethodName;
+  private TypeMirror monitoredMethodReturnType;
 
   @AssistedInject
   SimpleMethodRequestRepresentation(
@@ -70,7 +80,8 @@ final class SimpleMethodRequestRepresentation extends RequestRepresentation {
       ComponentRequirementExpressions componentRequirementExpressions,
       SourceVersion sourceVersion,
       KotlinMetadataUtil metadataUtil,
-      ComponentImplementation componentImplementation) {
+      ComponentImplementation componentImplementation,
+      DaggerTypes types) {
     this.compilerOptions = compilerOptions;
     this.provisionBinding = binding;
     this.metadataUtil = metadataUtil;
@@ -83,15 +94,56 @@ final class SimpleMethodRequestRepresentation extends RequestRepresentation {
     this.componentRequirementExpressions = componentRequirementExpressions;
     this.sourceVersion = sourceVersion;
     this.shardImplementation = componentImplementation.shardImplementation(binding);
+    this.types = types;
   }
 
   @Override
   Expression getDependencyExpression(ClassName requestingClass) {
+    if (compilerOptions.monitorProvisions() && MonitoredProvisions.isMonitored(provisionBinding)) {
+      return monitoredInstance(requestingClass);
+    }
+    return invokeMethodOrInjectionMethod(requestingClass);
+  }
+
+  private Expression invokeMethodOrInjectionMethod(ClassName requestingClass) {
     return requiresInjectionMethod(provisionBinding, compilerOptions, requestingClass)
         ? invokeInjectionMethod(requestingClass)
         : invokeMethod(requestingClass);
   }
 
+  /**
+   * Returns a call to a private method of the binding's shard that makes the provision and reports
+   * it. The report needs a {@code finally} block, which an expression can't have.
+   */
+  private Expression monitoredInstance(ClassName requestingClass) {
+    if (monitoredMethodName == null) {
+      Expression instance = invokeMethodOrInjectionMethod(shardImplementation.name());
+      monitoredMethodReturnType =
+          instance.type().getKind().isPrimitive()
+              ? instance.type()
+              : types.accessibleType(instance.type(), shardImplementation.name());
+      monitoredMethodName =
+          shardImplementation.getUniqueMethodName(
+              "monitored"
+                  + LOWER_CAMEL.to(UPPER_CAMEL, KeyVariableNamer.name(provisionBinding.key())));
+      shardImplementation.addMethod(
+          PRIVATE_METHOD,
+          methodBuilder(monitoredMethodName)
+              .addModifiers(PRIVATE)
+              .returns(TypeName.get(monitoredMethodReturnType))
+              .addCode(
+                  MonitoredProvisions.monitoredInstanceMethodBody(
+                      provisionBinding, instance.codeBlock()))
+              .build());
+    }
+    return Expression.create(
+        monitoredMethodReturnType,
+        requestingClass.equals(shardImplementation.name())
+            ? CodeBlock.of("$N()", monitoredMethodName)
+            : CodeBlock.of(
+                "$L.$N()", shardImplementation.shardFieldReference(), monitoredMethodName));
+  }
+
   private Expression invokeMethod(ClassName requestingClass) {
     // TODO(dpb): align this with the contents of InlineMethods.create
     CodeBlock arguments =
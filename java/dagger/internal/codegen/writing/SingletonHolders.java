@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.writing;
+
+import static com.google.common.base.CaseFormat.LOWER_CAMEL;
+import static com.google.common.base.CaseFormat.UPPER_CAMEL;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.squareup.javapoet.MethodSpec.methodBuilder;
+import static com.squareup.javapoet.TypeSpec.classBuilder;
+import static dagger.internal.codegen.extension.DaggerStreams.instancesOf;
+import static dagger.internal.codegen.extension.DaggerStreams.toImmutableSet;
+import static dagger.internal.codegen.langmodel.Accessibility.isTypeAccessibleFrom;
+import static dagger.internal.codegen.writing.ProvisionBindingRepresentation.needsCaching;
+import static javax.lang.model.element.Modifier.FINAL;
+import static javax.lang.model.element.Modifier.PRIVATE;
+import static javax.lang.model.element.Modifier.PUBLIC;
+import static javax.lang.model.element.Modifier.STATIC;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableSet;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import dagger.internal.codegen.binding.BindingGraph;
+import dagger.internal.codegen.binding.BindingNode;
+import dagger.internal.codegen.binding.KeyVariableNamer;
+import dagger.internal.codegen.binding.ProvisionBinding;
+import dagger.internal.codegen.compileroption.CompilerOptions;
+import dagger.internal.codegen.javapoet.Expression;
+import dagger.internal.codegen.javapoet.TypeNames;
+import dagger.internal.codegen.langmodel.DaggerElements;
+import dagger.internal.codegen.writing.ComponentImplementation.FieldSpecKind;
+import dagger.internal.codegen.writing.ComponentImplementation.ShardImplementation;
+import dagger.internal.codegen.writing.ComponentImplementation.TypeSpecKind;
+import dagger.internal.codegen.writing.FrameworkFieldInitializer.FrameworkInstanceCreationExpression;
+import dagger.spi.model.Key;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import javax.inject.Inject;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * Keeps track of the scoped bindings of a root component that are stored in static holder classes,
+ * e.g. {@code FooHolder.INSTANCE}, when the component is created at most once per class loader.
+ *
+ * <p>The JVM initializes each holder class the first time its instance is read, so reading the
+ * instance afterwards is a plain static final field read rather than a {@code DoubleCheck}. The
+ * holder is also the binding's {@code Provider} and {@code Lazy}, so that neither needs a {@code
+ * DoubleCheck} of its own.
+ *
+ * <p>A provision that throws while its holder is initialized is fatal for that binding: the first
+ * request throws an {@link ExceptionInInitializerError} and every later request throws a {@link
+ * NoClassDefFoundError}, rather than creating the instance again as a {@code DoubleCheck} would.
+ */
+@PerComponentImplementation
+final class SingletonHolders {
+  private final Map<Key, ClassName> holderTypes = new HashMap<>();
+  private final ShardImplementation shardImplementation;
+  private final BindingGraph graph;
+  private final CompilerOptions compilerOptions;
+  private final DaggerElements elements;
+  private final Supplier<ImmutableSet<Key>> keysInCycles;
+  private FieldSpec singletonComponentField;
+
+  @Inject
+  SingletonHolders(
+      ComponentImplementation componentImplementation,
+      BindingGraph graph,
+      CompilerOptions compilerOptions,
+      DaggerElements elements) {
+    // The holders are only added to the componentShard.
+    this.shardImplementation = checkNotNull(componentImplementation).getComponentShard();
+    this.graph = graph;
+    this.compilerOptions = compilerOptions;
+    this.elements = elements;
+    this.keysInCycles = Suppliers.memoize(() -> keysInCycles(graph));
+  }
+
+  /** Returns the keys of the bindings owned by {@code graph} that are in a dependency cycle. */
+  private static ImmutableSet<Key> keysInCycles(BindingGraph graph) {
+    return graph.topLevelBindingGraph().stronglyConnectedNodes().stream()
+        .filter(nodes -> nodes.size() > 1)
+        .flatMap(ImmutableSet::stream)
+        .flatMap(instancesOf(BindingNode.class))
+        .filter(bindingNode -> bindingNode.componentPath().equals(graph.componentPath()))
+        .map(BindingNode::key)
+        .collect(toImmutableSet());
+  }
+
+  /** Returns {@code true} if the instance of {@code binding} is stored in a static holder. */
+  boolean usesHolder(ProvisionBinding binding) {
+    if (!compilerOptions.staticSingletonHolders()
+        || !graph.componentPath().atRoot()
+        || !needsCaching(binding, graph)
+        || binding.scope().get().isReusable()
+        // A holder can't tell a null instance from one that is still being initialized.
+        || binding.isNullable()) {
+      return false;
+    }
+    switch (binding.kind()) {
+      case INJECTION:
+      case PROVISION:
+        // A holder being initialized is seen as null by the thread initializing it, so a binding
+        // that can be requested again while it is being created can't use a holder.
+        return !keysInCycles.get().contains(binding.key());
+      default:
+        return false;
+    }
+  }
+
+  /** Returns the request representation for the instance of {@code binding}. */
+  RequestRepresentation instanceRequestRepresentation(
+      ProvisionBinding binding, RequestRepresentation unscopedInstanceRequestRepresentation) {
+    return new RequestRepresentation() {
+      @Override
+      Expression getDependencyExpression(ClassName requestingClass) {
+        ClassName holderType = holderType(binding, unscopedInstanceRequestRepresentation);
+        return Expression.create(instanceType(binding), CodeBlock.of("$T.INSTANCE", holderType));
+      }
+    };
+  }
+
+  /**
+   * Returns the creation expression for the framework instance of {@code binding}, which is a new
+   * instance of the holder class.
+   */
+  FrameworkInstanceCreationExpression providerCreationExpression(
+      ProvisionBinding binding, RequestRepresentation unscopedInstanceRequestRepresentation) {
+    return () ->
+        CodeBlock.of("new $T()", holderType(binding, unscopedInstanceRequestRepresentation));
+  }
+
+  private ClassName holderType(
+      ProvisionBinding binding, RequestRepresentation unscopedInstanceRequestRepresentation) {
+    Key key = binding.key();
+    if (!holderTypes.containsKey(key)) {
+      if (singletonComponentField == null) {
+        addSingletonComponentField();
+      }
+      ClassName holderType =
+          shardImplementation
+              .name()
+              .nestedClass(
+                  shardImplementation.getUniqueClassName(
+                      LOWER_CAMEL.to(UPPER_CAMEL, KeyVariableNamer.name(key)) + "Holder"));
+      holderTypes.put(key, holderType);
+      addHolderType(holderType, binding, unscopedInstanceRequestRepresentation);
+    }
+    return holderTypes.get(key);
+  }
+
+  private void addHolderType(
+      ClassName holderType,
+      ProvisionBinding binding,
+      RequestRepresentation unscopedInstanceRequestRepresentation) {
+    TypeName instanceType = TypeName.get(instanceType(binding));
+    FieldSpec.Builder instanceField = FieldSpec.builder(instanceType, "INSTANCE", STATIC, FINAL);
+    TypeSpec.Builder holder =
+        classBuilder(holderType)
+            .addModifiers(PRIVATE, STATIC, FINAL)
+            .addSuperinterface(ParameterizedTypeName.get(TypeNames.PROVIDER, instanceType.box()))
+            .addSuperinterface(ParameterizedTypeName.get(TypeNames.LAZY, instanceType.box()))
+            .addMethod(
+                methodBuilder("get")
+                    .addAnnotation(Override.class)
+                    .addModifiers(PUBLIC)
+                    .returns(instanceType.box())
+                    .addStatement("return INSTANCE")
+                    .build());
+
+    CodeBlock instance =
+        unscopedInstanceRequestRepresentation.getDependencyExpression(holderType).codeBlock();
+    // The holder refers to the component by the same name as the component's own field, so that
+    // the unscoped instance expression can be used as is. Only holders whose instance expression
+    // refers to the component read it, e.g. to get a module instance.
+    FieldSpec componentField =
+        shardImplementation
+            .componentFieldsByImplementation()
+            .get(shardImplementation.getComponentImplementation());
+    if (refersTo(instance, componentField)) {
+      holder.addStaticBlock(
+          CodeBlock.builder()
+              .addStatement(
+                  "$T $N = $T.$N",
+                  componentField.type,
+                  componentField.name,
+                  shardImplementation.name(),
+                  singletonComponentField)
+              .addStatement("INSTANCE = $L", instance)
+              .build());
+    } else {
+      instanceField.initializer(instance);
+    }
+    shardImplementation.addType(
+        TypeSpecKind.SINGLETON_HOLDER, holder.addField(instanceField.build()).build());
+  }
+
+  private static boolean refersTo(CodeBlock codeBlock, FieldSpec field) {
+    return Pattern.compile("\\b" + Pattern.quote(field.name) + "\\b")
+        .matcher(codeBlock.toString())
+        .find();
+  }
+
+  /**
+   * Adds the static field that the holders read the component from, and the initialization that
+   * sets it when the component is created for the first and only time.
+   */
+  private void addSingletonComponentField() {
+    singletonComponentField =
+        FieldSpec.builder(
+                shardImplementation.name(),
+                shardImplementation.getUniqueFieldName("singletonComponent"),
+                PRIVATE,
+                STATIC)
+            .build();
+    shardImplementation.addField(
+        FieldSpecKind.COMPONENT_REQUIREMENT_FIELD, singletonComponentField);
+    shardImplementation.addComponentRequirementInitialization(
+        CodeBlock.builder()
+            .beginControlFlow("synchronized ($T.class)", shardImplementation.name())
+            .beginControlFlow("if ($N != null)", singletonComponentField)
+            .addStatement(
+                "throw new $T($S)",
+                IllegalStateException.class,
+                shardImplementation.name().simpleName()
+                    + " stores its scoped bindings statically and can only be created once.")
+            .endControlFlow()
+            .addStatement("$N = this", singletonComponentField)
+            .endControlFlow()
+            .build());
+  }
+
+  private TypeMirror instanceType(ProvisionBinding binding) {
+    return isTypeAccessibleFrom(binding.contributedType(), shardImplementation.name().packageName())
+        ? binding.contributedType()
+        : elements.getTypeElement(TypeName.OBJECT.toString()).asType();
+  }
+}
@@ -23,11 +23,12 @@ import com.squareup.javapoet.CodeBlock;
 import dagger.assisted.Assisted;
 import dagger.assisted.AssistedFactory;
 import dagger.assisted.AssistedInject;
+import dagger.internal.codegen.base.MapType;
 import dagger.internal.codegen.binding.Binding;
 import dagger.internal.codegen.binding.BindingGraph;
+import dagger.internal.codegen.binding.ContributionBinding;
 import dagger.internal.codegen.binding.ProvisionBinding;
 import dagger.internal.codegen.writing.FrameworkFieldInitializer.FrameworkInstanceCreationExpression;
-import dagger.spi.model.BindingKind;
 
 /**
  * An object that initializes a framework-type component field for a binding using instances created
@@ -35,6 +36,7 @@ import dagger.spi.model.BindingKind;
  */
 final class SwitchingProviderInstanceSupplier implements FrameworkInstanceSupplier {
   private final FrameworkInstanceSupplier frameworkInstanceSupplier;
+  private final BindingGraph graph;
 
   @AssistedInject
   SwitchingProviderInstanceSupplier(
@@ -44,6 +46,7 @@ final class SwitchingProviderInstanceSupplier implements FrameworkInstanceSuppli
       ComponentImplementation componentImplementation,
       UnscopedDirectInstanceRequestRepresentationFactory
           unscopedDirectInstanceRequestRepresentationFactory) {
+    this.graph = graph;
     FrameworkInstanceCreationExpression frameworkInstanceCreationExpression =
         switchingProviders.newFrameworkInstanceCreationExpression(
             binding, unscopedDirectInstanceRequestRepresentationFactory.create(binding));
@@ -59,9 +62,7 @@ final class SwitchingProviderInstanceSupplier implements FrameworkInstanceSuppli
 
   private FrameworkInstanceCreationExpression scope(
       Binding binding, FrameworkInstanceCreationExpression unscoped) {
-    // Caching assisted factory provider, so that there won't be new factory created for each
-    // provider.get() call.
-    if (!binding.scope().isPresent() && !binding.kind().equals(BindingKind.ASSISTED_FACTORY)) {
+    if (!binding.scope().isPresent() && !cachesUnscopedInstances(binding, graph)) {
       return unscoped;
     }
     return () ->
@@ -73,6 +74,31 @@ final class SwitchingProviderInstanceSupplier implements FrameworkInstanceSuppli
             unscoped.creationExpression());
   }
 
+  /**
+   * Returns {@code true} if the switching provider for an unscoped {@code binding} is still wrapped
+   * in a {@code SingleCheck}, because all of the instances it could create are interchangeable.
+   */
+  static boolean cachesUnscopedInstances(Binding binding, BindingGraph graph) {
+    switch (binding.kind()) {
+      case ASSISTED_FACTORY:
+        // Caching assisted factory provider, so that there won't be new factory created for each
+        // provider.get() call.
+        return true;
+      case MULTIBOUND_MAP:
+        // A map whose values are framework instances, e.g. Map<K, Provider<V>>, never changes for
+        // a given component, so build it once rather than rebuilding every entry for each
+        // provider.get() call.
+        return !binding.dependencies().isEmpty()
+            && MapType.from(binding.key()).valuesAreFrameworkType();
+      case OPTIONAL:
+        // A present optional whose value wraps a provider or a scoped instance can be created once
+        // rather than for each provider.get() call.
+        return OptionalFactories.cachesPresentValue((ContributionBinding) binding, graph);
+      default:
+        return false;
+    }
+  }
+
   @AssistedFactory
   static interface Factory {
     SwitchingProviderInstanceSupplier create(ProvisionBinding binding);
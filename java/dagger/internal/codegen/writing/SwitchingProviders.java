@@ -39,12 +39,12 @@ import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 import com.squareup.javapoet.TypeVariableName;
 import dagger.internal.codegen.base.UniqueNameSet;
+import dagger.internal.codegen.binding.BindingGraph;
 import dagger.internal.codegen.binding.ContributionBinding;
 import dagger.internal.codegen.javapoet.CodeBlocks;
 import dagger.internal.codegen.langmodel.DaggerTypes;
 import dagger.internal.codegen.writing.ComponentImplementation.ShardImplementation;
 import dagger.internal.codegen.writing.FrameworkFieldInitializer.FrameworkInstanceCreationExpression;
-import dagger.spi.model.BindingKind;
 import dagger.spi.model.Key;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -81,13 +81,16 @@ final class SwitchingProviders {
       new LinkedHashMap<>();
 
   private final ShardImplementation shardImplementation;
+  private final BindingGraph graph;
   private final DaggerTypes types;
   private final UniqueNameSet switchingProviderNames = new UniqueNameSet();
 
   @Inject
-  SwitchingProviders(ComponentImplementation componentImplementation, DaggerTypes types) {
+  SwitchingProviders(
+      ComponentImplementation componentImplementation, BindingGraph graph, DaggerTypes types) {
     // Currently, the SwitchingProviders types are only added to the componentShard.
     this.shardImplementation = checkNotNull(componentImplementation).getComponentShard();
+    this.graph = checkNotNull(graph);
     this.types = checkNotNull(types);
   }
 
@@ -142,7 +145,8 @@ final class SwitchingProviders {
           // Add the type parameter explicitly when the binding is scoped because Java can't resolve
           // the type when wrapped. For example, the following will error:
           //   fooProvider = DoubleCheck.provider(new SwitchingProvider<>(1));
-          (binding.scope().isPresent() || binding.kind().equals(BindingKind.ASSISTED_FACTORY))
+          (binding.scope().isPresent()
+                  || SwitchingProviderInstanceSupplier.cachesUnscopedInstances(binding, graph))
               ? CodeBlock.of(
                   "$T", types.accessibleType(binding.contributedType(), switchingProviderType))
               : "",
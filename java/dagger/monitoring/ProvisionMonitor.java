@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2021 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.monitoring;
+
+import static dagger.internal.Preconditions.checkNotNull;
+
+import dagger.internal.Beta;
+import dagger.internal.GwtIncompatible;
+import dagger.internal.ProvisionMonitoring;
+
+/**
+ * A hook for monitoring the provisions made by components. Only components that were compiled with
+ * the {@code -Adagger.monitorProvisions=enabled} option call a monitor; other components contain
+ * no monitoring code at all.
+ *
+ * <p>A monitor observes each call to an {@link javax.inject.Inject @Inject} constructor or {@link
+ * dagger.Provides @Provides} method made by a monitored component, identified by the string form of
+ * its binding's key. Scoped bindings are observed only when their instance is created. Provisions
+ * that happen while another provision is in progress on the same thread, e.g. those of its
+ * dependencies, are reported with a greater depth.
+ *
+ * <p>For example: <pre><code>
+ *   ProvisionMonitor.install(new ProvisionMonitor() {
+ *     {@literal @Override}
+ *     public void onProvisionEnd(String key, int depth, Thread thread, long nanoTime) {
+ *       ...
+ *     }
+ *   });
+ * </code></pre>
+ *
+ * <p>If any of these methods throw, then the exception will be logged, and the provision will
+ * continue as though the monitor had returned normally.
+ */
+@Beta
+@GwtIncompatible
+public abstract class ProvisionMonitor {
+  /**
+   * Installs {@code monitor} as the monitor for all monitored components, replacing any previously
+   * installed monitor.
+   */
+  public static void install(ProvisionMonitor monitor) {
+    ProvisionMonitoring.install(checkNotNull(monitor));
+  }
+
+  /** Uninstalls the currently installed monitor, if any. */
+  public static void uninstall() {
+    ProvisionMonitoring.install(null);
+  }
+
+  /**
+   * Called when a provision starts, on the thread that makes it.
+   *
+   * @param key the key of the binding being provisioned
+   * @param depth the number of provisions in progress on {@code thread} that this one is nested in
+   * @param thread the thread making the provision
+   * @param nanoTime the value of {@link System#nanoTime()} when the provision started
+   */
+  public void onProvisionStart(String key, int depth, Thread thread, long nanoTime) {}
+
+  /**
+   * Called when a provision that was reported to {@link #onProvisionStart} returns. This is not
+   * called if the provision throws.
+   *
+   * @param key the key of the binding that was provisioned
+   * @param depth the same depth that was passed to {@link #onProvisionStart}
+   * @param thread the thread that made the provision
+   * @param nanoTime the value of {@link System#nanoTime()} when the provision finished
+   */
+  public void onProvisionEnd(String key, int depth, Thread thread, long nanoTime) {}
+}
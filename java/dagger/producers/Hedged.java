@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.CLASS;
+
+import dagger.internal.Beta;
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Annotates an idempotent {@link Produces} method whose producer may call it a second time if the
+ * first call's future takes unusually long.
+ *
+ * <p>If the first call's future has not completed after the {@link #percentile()}th percentile of
+ * the method's recent latencies, the method is called again with the same arguments, on the same
+ * executor. The producer completes like whichever future succeeds first, and the other one is
+ * cancelled. A call that fails is ignored while the other one is still in flight. The producer's
+ * monitor is told when the second call starts by {@link
+ * dagger.producers.monitoring.ProducerMonitor#hedged() hedged()}.
+ *
+ * <p>Only use this for methods that may safely be called more than once for the same request, e.g.
+ * a read from a backend.
+ */
+@Documented
+@Target(METHOD)
+@Retention(CLASS)
+@Beta
+public @interface Hedged {
+  /**
+   * The percentile of the method's recent latencies after which the method is called again. Must
+   * be greater than 0 and less than 100.
+   */
+  double percentile() default 95;
+
+  /**
+   * The delay, in {@link #unit()}s, after which the method is called again until enough of its
+   * latencies have been recorded. Must be positive.
+   */
+  long initialDelay();
+
+  /** The unit of {@link #initialDelay()}. */
+  TimeUnit unit() default TimeUnit.MILLISECONDS;
+}
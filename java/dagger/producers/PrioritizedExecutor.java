@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import dagger.internal.Beta;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed-size thread pool, shared by production components, that runs the producer methods that
+ * matter most to latency first.
+ *
+ * <p>Each component is given an executor for a <em>priority class</em> with {@link
+ * #forPriorityClass(int)}, e.g. a higher class for interactive requests than for batch requests.
+ * Bind it as the component's {@link Production @Production} {@link Executor}:
+ *
+ * <pre><code>
+ *   {@literal @Provides @Production} Executor executor(PrioritizedExecutor pool) {
+ *     return pool.forPriorityClass(INTERACTIVE);
+ *   }
+ * </code></pre>
+ *
+ * <p>Queued methods of a higher priority class are run before those of a lower one. Within a
+ * priority class, when the component was generated with {@code
+ * -Adagger.prioritizeProducers=enabled}, the methods that are deeper below the component's entry
+ * points are run first, since more of the graph waits on them. Otherwise, and between methods of
+ * equal priority, methods are run in the order they were submitted.
+ */
+@Beta
+public final class PrioritizedExecutor {
+  private final ThreadPoolExecutor threadPool;
+  private final AtomicLong submittedTasks = new AtomicLong();
+
+  private PrioritizedExecutor(ThreadPoolExecutor threadPool) {
+    this.threadPool = threadPool;
+  }
+
+  /** Returns a pool of {@code threads} daemon threads. */
+  public static PrioritizedExecutor create(int threads) {
+    return create(
+        threads,
+        new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("dagger-prioritized-executor-%d")
+            .build());
+  }
+
+  /** Returns a pool of {@code threads} threads created by {@code threadFactory}. */
+  public static PrioritizedExecutor create(int threads, ThreadFactory threadFactory) {
+    checkArgument(threads > 0, "threads: %s", threads);
+    return new PrioritizedExecutor(
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0,
+            TimeUnit.MILLISECONDS,
+            new PriorityBlockingQueue<Runnable>(),
+            checkNotNull(threadFactory)));
+  }
+
+  /** Returns an executor that runs tasks in this pool with the given priority class. */
+  public PriorityClassExecutor forPriorityClass(int priorityClass) {
+    return new PriorityClassExecutor(this, priorityClass, 0);
+  }
+
+  /** Stops accepting tasks, and lets the threads exit once the queued tasks have run. */
+  public void shutdown() {
+    threadPool.shutdown();
+  }
+
+  /** Stops accepting tasks, and returns the tasks that were queued but haven't run. */
+  public List<Runnable> shutdownNow() {
+    return threadPool.shutdownNow();
+  }
+
+  /**
+   * Blocks until all tasks have run after a shutdown, or the timeout elapses. Returns whether the
+   * tasks have run.
+   */
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    return threadPool.awaitTermination(timeout, unit);
+  }
+
+  private void execute(Runnable command, int priorityClass, int producerPriority) {
+    checkNotNull(command);
+    long sequenceNumber = submittedTasks.getAndIncrement();
+    threadPool.execute(
+        new PrioritizedTask(command, priorityClass, producerPriority, sequenceNumber));
+  }
+
+  /** An executor that runs tasks in a {@link PrioritizedExecutor} with a priority class. */
+  public static final class PriorityClassExecutor implements Executor {
+    private final PrioritizedExecutor pool;
+    private final int priorityClass;
+    private final int producerPriority;
+
+    private PriorityClassExecutor(
+        PrioritizedExecutor pool, int priorityClass, int producerPriority) {
+      this.pool = pool;
+      this.priorityClass = priorityClass;
+      this.producerPriority = producerPriority;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      pool.execute(command, priorityClass, producerPriority);
+    }
+
+    /**
+     * Returns an executor that runs the tasks of a producer with the given priority within this
+     * priority class.
+     *
+     * <p><b>Do not use this!</b> This is intended to be called by generated code only, and its
+     * signature may change at any time.
+     */
+    public Executor withProducerPriority(int producerPriority) {
+      return new PriorityClassExecutor(pool, priorityClass, producerPriority);
+    }
+  }
+
+  private static final class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+    private final Runnable command;
+    private final int priorityClass;
+    private final int producerPriority;
+    private final long sequenceNumber;
+
+    PrioritizedTask(
+        Runnable command, int priorityClass, int producerPriority, long sequenceNumber) {
+      this.command = command;
+      this.priorityClass = priorityClass;
+      this.producerPriority = producerPriority;
+      this.sequenceNumber = sequenceNumber;
+    }
+
+    @Override
+    public void run() {
+      command.run();
+    }
+
+    /** Orders the tasks that should run first before the others. */
+    @Override
+    public int compareTo(PrioritizedTask that) {
+      if (this.priorityClass != that.priorityClass) {
+        return this.priorityClass > that.priorityClass ? -1 : 1;
+      }
+      if (this.producerPriority != that.producerPriority) {
+        return this.producerPriority > that.producerPriority ? -1 : 1;
+      }
+      return this.sequenceNumber < that.sequenceNumber ? -1 : 1;
+    }
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.CLASS;
+
+import dagger.internal.Beta;
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Annotates a {@link Produces} method whose results are cached by the values of its parameters,
+ * and shared by all production components.
+ *
+ * <p>When the method's producer has collected the values of the method's parameters, it reuses the
+ * result of an earlier call with equal parameters, from any component, if that call's future was
+ * created less than {@link #expireAfterWrite()} ago and didn't fail. That includes calls whose
+ * future hasn't completed yet, so concurrent requests for the same parameters share a single call.
+ * Cancelling a producer whose result is shared doesn't cancel the call. It does stop sharing the
+ * call if it hasn't completed yet, e.g. when the producer's {@link ProducerTimeout} expires or its
+ * component is cancelled, so that a call that hangs is only shared until a request gives up on it.
+ *
+ * <p>Only use this for methods whose result depends on nothing but their parameters, e.g. values
+ * derived from configuration. The method must be static, since the cache is shared by components
+ * with different module instances. It may only have parameters of instances or {@link Produced},
+ * and their values must implement {@link Object#equals(Object)} and {@link Object#hashCode()}. The
+ * values are held by the cache until their entries are evicted.
+ */
+@Documented
+@Target(METHOD)
+@Retention(CLASS)
+@Beta
+public @interface ProducerCache {
+  /** The maximum number of results that are cached. Must be positive. */
+  long maximumSize() default 1000;
+
+  /**
+   * The time, in {@link #unit()}s, after which a cached result is no longer used. Must be positive.
+   */
+  long expireAfterWrite();
+
+  /** The unit of {@link #expireAfterWrite()}. */
+  TimeUnit unit() default TimeUnit.MILLISECONDS;
+}
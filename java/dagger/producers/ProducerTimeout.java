@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.CLASS;
+
+import dagger.internal.Beta;
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Annotates a {@link Produces} method to bound the time its producer may take.
+ *
+ * <p>The timeout starts when the producer is requested, so it includes the time spent waiting for
+ * the method's dependencies. If the method's future has not completed by then, it is cancelled and
+ * the producer fails with a {@link java.util.concurrent.TimeoutException}. Nodes that depend on it
+ * as a {@link Produced} can handle the failure; other nodes fail as well.
+ *
+ * <p>The timer is cancelled as soon as the producer completes, or when the component is cancelled.
+ */
+@Documented
+@Target(METHOD)
+@Retention(CLASS)
+@Beta
+public @interface ProducerTimeout {
+  /** The timeout, in {@link #unit()}s. Must be positive. */
+  long value();
+
+  /** The unit of {@link #value()}. */
+  TimeUnit unit() default TimeUnit.MILLISECONDS;
+}
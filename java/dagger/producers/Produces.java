@@ -31,6 +31,11 @@ import java.lang.annotation.Target;
  * to the value that the future produces; otherwise, the return type is bound to the returned value.
  * The production component will pass dependencies to the method as parameters.
  *
+ * <p>The method may also return a {@link java.util.concurrent.CompletionStage} or {@link
+ * java.util.concurrent.CompletableFuture}, such as one returned by a JDK asynchronous API, whose
+ * parameter type is bound in the same way. Cancelling the production cancels the stage's {@code
+ * CompletableFuture}.
+ *
  * @since 2.0
  */
 @Documented
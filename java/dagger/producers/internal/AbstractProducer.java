@@ -21,12 +21,22 @@ import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import com.google.common.util.concurrent.AbstractFuture;
 import com.google.common.util.concurrent.ListenableFuture;
 import dagger.producers.Producer;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
 
 /** An abstract {@link Producer} implementation that memoizes the result of its compute method. */
 public abstract class AbstractProducer<T> implements CancellableProducer<T> {
-  private final AtomicBoolean requested = new AtomicBoolean();
+  // A field updater rather than an AtomicBoolean, since a production component allocates a
+  // producer for each of its nodes every time it is created.
+  @SuppressWarnings("rawtypes") // the updater updates the field of any AbstractProducer<T>
+  private static final AtomicIntegerFieldUpdater<AbstractProducer> REQUESTED =
+      AtomicIntegerFieldUpdater.newUpdater(AbstractProducer.class, "requested");
+
+  private volatile int requested;
   private final NonExternallyCancellableFuture<T> future = new NonExternallyCancellableFuture<T>();
+  // Set as the component creates this producer, so it's published along with the component's own
+  // producer fields.
+  @NullableDecl private StartedProducers startedProducers;
 
   protected AbstractProducer() {}
 
@@ -35,21 +45,34 @@ public abstract class AbstractProducer<T> implements CancellableProducer<T> {
 
   @Override
   public final ListenableFuture<T> get() {
-    if (requested.compareAndSet(false, true)) {
-      future.setFuture(compute());
+    if (REQUESTED.compareAndSet(this, 0, 1)) {
+      StartedProducers startedProducers = this.startedProducers;
+      if (startedProducers == null || startedProducers.started(this)) {
+        future.setFuture(compute());
+      }
     }
     return future;
   }
 
+  /**
+   * Records this producer in {@code startedProducers} when it is started, unless it is already
+   * tracked.
+   */
+  final void setStartedProducers(StartedProducers startedProducers) {
+    if (this.startedProducers == null) {
+      this.startedProducers = startedProducers;
+    }
+  }
+
   @Override
   public final void cancel(boolean mayInterruptIfRunning) {
-    requested.set(true); // Avoid potentially starting the task later only to cancel it immediately.
+    requested = 1; // Avoid potentially starting the task later only to cancel it immediately.
     future.doCancel(mayInterruptIfRunning);
   }
 
   @Override
   public Producer<T> newDependencyView() {
-    return new NonCancellationPropagatingView();
+    return new DependencyView();
   }
 
   @Override
@@ -59,6 +82,35 @@ public abstract class AbstractProducer<T> implements CancellableProducer<T> {
     return result;
   }
 
+  /**
+   * A view of this producer that returns a future that can be cancelled without cancelling the
+   * producer itself.
+   *
+   * <p>Unlike {@link NonCancellationPropagatingView}, the view's future is only created when the
+   * view is first requested, since a component creates a dependency view for each of its
+   * dependency edges but may not request all of them. By then this producer's future is often
+   * already done, in which case it is returned as is: it can't be cancelled by its consumers.
+   */
+  private final class DependencyView implements Producer<T> {
+    @NullableDecl private volatile ListenableFuture<T> viewFuture;
+
+    @SuppressWarnings("FutureReturnValueIgnored")
+    @Override
+    public ListenableFuture<T> get() {
+      AbstractProducer.this.get(); // force compute()
+      ListenableFuture<T> result = viewFuture;
+      if (result == null) {
+        synchronized (this) {
+          result = viewFuture;
+          if (result == null) {
+            viewFuture = result = nonCancellationPropagating(future);
+          }
+        }
+      }
+      return result;
+    }
+  }
+
   /**
    * A view of this producer that returns a future that can be cancelled without cancelling the
    * producer itself.
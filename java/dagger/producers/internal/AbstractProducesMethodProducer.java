@@ -16,15 +16,29 @@
 
 package dagger.producers.internal;
 
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static dagger.internal.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
+import com.google.common.util.concurrent.AbstractFuture;
 import com.google.common.util.concurrent.AsyncFunction;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import dagger.producers.monitoring.ProducerMonitor;
 import dagger.producers.monitoring.ProducerToken;
 import dagger.producers.monitoring.ProductionComponentMonitor;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.inject.Provider;
 import org.checkerframework.checker.nullness.compatqual.NullableDecl;
 
@@ -59,10 +73,41 @@ public abstract class AbstractProducesMethodProducer<D, T> extends AbstractProdu
     monitor = monitorProvider.get().producerMonitorFor(token);
     monitor.requested();
     ListenableFuture<T> result = Futures.transformAsync(collectDependencies(), this, this);
+    long timeoutNanos = timeoutNanos();
+    if (timeoutNanos > 0) {
+      // The timer is cancelled when the result completes or is cancelled with the component.
+      result = Futures.withTimeout(result, timeoutNanos, NANOSECONDS, Scheduler.INSTANCE);
+    }
     monitor.addCallbackTo(result);
     return result;
   }
 
+  /**
+   * Returns the time, in nanoseconds, that this producer may take from when it is requested, or
+   * {@code 0} if it has no timeout. See {@link dagger.producers.ProducerTimeout}.
+   */
+  protected long timeoutNanos() {
+    return 0;
+  }
+
+  /**
+   * Returns the policy for calling the {@link dagger.producers.Produces} method again if it takes
+   * too long, or {@code null} if it is only called once. See {@link dagger.producers.Hedged}.
+   */
+  @NullableDecl
+  protected HedgingPolicy hedgingPolicy() {
+    return null;
+  }
+
+  /**
+   * Returns the cache of the {@link dagger.producers.Produces} method's results, or {@code null} if
+   * they aren't cached. See {@link dagger.producers.ProducerCache}.
+   */
+  @NullableDecl
+  protected ProducerResultCache resultCache() {
+    return null;
+  }
+
   /**
    * Collects the asynchronous dependencies to be passed to {@link
    * Futures#transformAsync(ListenableFuture, AsyncFunction, Executor)}.
@@ -76,6 +121,36 @@ public abstract class AbstractProducesMethodProducer<D, T> extends AbstractProdu
     // NOTE(beder): We don't worry about catching exceptions from the monitor methods themselves
     // because we'll wrap all monitoring in non-throwing monitors before we pass them to the
     // factories.
+    ProducerResultCache resultCache = resultCache();
+    if (resultCache == null) {
+      return callProducesMethodUncached(asyncDependencies);
+    }
+    SettableFuture<T> newResult = SettableFuture.create();
+    @SuppressWarnings("unchecked") // the cache only holds results of this producer's method
+    ListenableFuture<T> result =
+        (ListenableFuture<T>) resultCache.putIfAbsent(asyncDependencies, newResult);
+    if (result == null) {
+      result = newResult;
+      try {
+        newResult.setFuture(callProducesMethodUncached(asyncDependencies));
+      } catch (Throwable t) {
+        newResult.setException(t);
+      }
+    }
+    // Other requests may share the result, so they mustn't be affected by this one's cancellation.
+    ListenableFuture<T> request = Futures.nonCancellationPropagating(result);
+    resultCache.removeIfAbandoned(asyncDependencies, result, request);
+    return request;
+  }
+
+  private ListenableFuture<T> callProducesMethodUncached(D asyncDependencies) throws Exception {
+    HedgingPolicy hedgingPolicy = hedgingPolicy();
+    return hedgingPolicy == null
+        ? callProducesMethodMonitored(asyncDependencies)
+        : new HedgedCall(asyncDependencies, hedgingPolicy).start();
+  }
+
+  private ListenableFuture<T> callProducesMethodMonitored(D asyncDependencies) throws Exception {
     monitor.methodStarting();
     try {
       return callProducesMethod(asyncDependencies);
@@ -97,4 +172,154 @@ public abstract class AbstractProducesMethodProducer<D, T> extends AbstractProdu
     monitor.ready();
     executorProvider.get().execute(runnable);
   }
+
+  /**
+   * The future for a {@link dagger.producers.Hedged} method, which calls the method again if the
+   * first call's future hasn't completed after the policy's delay. It completes like whichever call
+   * succeeds first, and then cancels the other one. A call that fails is ignored while the other
+   * call is still in flight, since that one may still succeed.
+   *
+   * <p>Only the first call is reported to the monitor's {@link ProducerMonitor#methodStarting()}
+   * and {@link ProducerMonitor#methodFinished()}; the second one is reported by {@link
+   * ProducerMonitor#hedged()}. The latency recorded by the policy is measured from the first call,
+   * so that a fast second call doesn't make the method look faster than it is.
+   */
+  private final class HedgedCall extends AbstractFuture<T> {
+    private final D asyncDependencies;
+    private final HedgingPolicy hedgingPolicy;
+    private final Queue<ListenableFuture<T>> calls = new ConcurrentLinkedQueue<>();
+    // The number of calls that were started and whose futures haven't completed yet.
+    private final AtomicInteger pendingCalls = new AtomicInteger();
+    private final long startNanos = System.nanoTime();
+    @NullableDecl private volatile Future<?> hedgeTimer;
+
+    HedgedCall(D asyncDependencies, HedgingPolicy hedgingPolicy) {
+      this.asyncDependencies = asyncDependencies;
+      this.hedgingPolicy = hedgingPolicy;
+    }
+
+    ListenableFuture<T> start() throws Exception {
+      pendingCalls.incrementAndGet();
+      addCall(callProducesMethodMonitored(asyncDependencies));
+      if (!isDone()) {
+        hedgeTimer =
+            Scheduler.INSTANCE.schedule(
+                new Runnable() {
+                  @Override
+                  public void run() {
+                    try {
+                      executorProvider
+                          .get()
+                          .execute(
+                              new Runnable() {
+                                @Override
+                                public void run() {
+                                  callAgain();
+                                }
+                              });
+                    } catch (RejectedExecutionException e) {
+                      // The method can't be called again, so this just waits for the first call.
+                    }
+                  }
+                },
+                hedgingPolicy.delayNanos(),
+                NANOSECONDS);
+        if (isDone()) {
+          hedgeTimer.cancel(false);
+        }
+      }
+      return this;
+    }
+
+    private void callAgain() {
+      if (isDone()) {
+        return;
+      }
+      monitor.hedged();
+      // The call is counted before it starts, so that the first call failing meanwhile is ignored.
+      pendingCalls.incrementAndGet();
+      ListenableFuture<T> call;
+      try {
+        call = callProducesMethod(asyncDependencies);
+      } catch (Throwable t) {
+        call = Futures.immediateFailedFuture(t);
+      }
+      addCall(call);
+    }
+
+    private void addCall(final ListenableFuture<T> call) {
+      calls.add(call);
+      if (isDone()) {
+        // afterDone() may have missed this call.
+        call.cancel(wasInterrupted());
+      }
+      call.addListener(
+          new Runnable() {
+            @Override
+            public void run() {
+              completeWith(call);
+            }
+          },
+          directExecutor());
+    }
+
+    private void completeWith(ListenableFuture<T> call) {
+      boolean lastCall = pendingCalls.decrementAndGet() == 0;
+      if (isDone()) {
+        return;
+      }
+      try {
+        T value = Futures.getDone(call);
+        hedgingPolicy.recordLatency(System.nanoTime() - startNanos);
+        set(value);
+      } catch (ExecutionException e) {
+        if (lastCall) {
+          hedgingPolicy.recordLatency(System.nanoTime() - startNanos);
+          setException(e.getCause());
+        }
+      } catch (CancellationException e) {
+        if (lastCall) {
+          cancel(false);
+        }
+      } catch (RuntimeException | Error e) {
+        if (lastCall) {
+          setException(e);
+        }
+      }
+    }
+
+    @Override
+    protected void afterDone() {
+      Future<?> timer = hedgeTimer;
+      if (timer != null) {
+        timer.cancel(false);
+      }
+      boolean wasInterrupted = wasInterrupted();
+      for (ListenableFuture<T> call : calls) {
+        call.cancel(wasInterrupted);
+      }
+    }
+  }
+
+  /**
+   * The scheduler for the timeouts and hedged calls of all producers, created when it is first
+   * needed.
+   */
+  private static final class Scheduler {
+    static final ScheduledExecutorService INSTANCE = create();
+
+    private static ScheduledExecutorService create() {
+      ScheduledThreadPoolExecutor scheduler =
+          new ScheduledThreadPoolExecutor(
+              1,
+              new ThreadFactoryBuilder()
+                  .setDaemon(true)
+                  .setNameFormat("dagger-producer-scheduler")
+                  .build());
+      // Most producers complete in time, so drop their timers right away rather than keeping them
+      // queued until they would have fired.
+      scheduler.setRemoveOnCancelPolicy(true);
+      return scheduler;
+    }
+  }
 }
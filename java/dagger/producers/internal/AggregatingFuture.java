@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A future that collects the values of a fixed number of input futures into an array and then
+ * {@linkplain #combine combines} them once, when all of them have succeeded.
+ *
+ * <p>This behaves like {@code Futures.transform(Futures.allAsList(inputs), combine)}: if any input
+ * fails or is cancelled, this future fails or is cancelled, too, and cancelling this future
+ * cancels the inputs. However, it only allocates a listener for each input that isn't done yet,
+ * rather than a future for each input and another for the list.
+ *
+ * <p>Inputs are added with {@link #setInput} for each index, followed by one call to {@link
+ * #inputsSet}. These are only intended to be called from within the producers runtime.
+ */
+abstract class AggregatingFuture<V, R> extends AbstractFuture<R> {
+  private ListenableFuture<?>[] inputs;
+  private Object[] values;
+  // One more than the number of inputs that haven't completed yet, until inputsSet() is called.
+  private final AtomicInteger remaining;
+
+  AggregatingFuture(int size) {
+    this.inputs = new ListenableFuture<?>[size];
+    this.values = new Object[size];
+    this.remaining = new AtomicInteger(size + 1);
+  }
+
+  /** Combines the values of the inputs, in the order of their indices. */
+  abstract R combine(List<V> values);
+
+  /** Sets the input future for {@code index}. */
+  final void setInput(final int index, final ListenableFuture<? extends V> input) {
+    checkNotNull(input);
+    ListenableFuture<?>[] localInputs = inputs;
+    if (localInputs == null) {
+      // This future is already done.
+      cancelIfCancelled(input);
+      return;
+    }
+    localInputs[index] = input;
+    // This future may have been cancelled before afterDone() could see the input.
+    cancelIfCancelled(input);
+    if (input.isDone()) {
+      collect(index, input);
+    } else {
+      input.addListener(
+          new Runnable() {
+            @Override
+            public void run() {
+              collect(index, input);
+            }
+          },
+          directExecutor());
+    }
+  }
+
+  /** Signals that all inputs have been set. */
+  final void inputsSet() {
+    countDown();
+  }
+
+  private void cancelIfCancelled(ListenableFuture<?> input) {
+    if (isCancelled()) {
+      input.cancel(wasInterrupted());
+    }
+  }
+
+  private void collect(int index, ListenableFuture<? extends V> input) {
+    Object[] localValues = values;
+    if (localValues == null || isDone()) {
+      return;
+    }
+    try {
+      localValues[index] = Futures.getDone(input);
+    } catch (ExecutionException e) {
+      setException(e.getCause());
+      return;
+    } catch (CancellationException e) {
+      cancel(false);
+      return;
+    } catch (RuntimeException | Error e) {
+      setException(e);
+      return;
+    }
+    countDown();
+  }
+
+  @SuppressWarnings("unchecked") // values[i] was set from the input future for index i
+  private void countDown() {
+    Object[] localValues = values;
+    if (remaining.decrementAndGet() == 0 && localValues != null) {
+      try {
+        set(combine((List<V>) Arrays.asList(localValues)));
+      } catch (RuntimeException | Error e) {
+        setException(e);
+      }
+    }
+  }
+
+  @Override
+  protected final void afterDone() {
+    ListenableFuture<?>[] localInputs = inputs;
+    inputs = null;
+    values = null;
+    if (isCancelled() && localInputs != null) {
+      boolean wasInterrupted = wasInterrupted();
+      for (ListenableFuture<?> input : localInputs) {
+        if (input != null) {
+          input.cancel(wasInterrupted);
+        }
+      }
+    }
+  }
+}
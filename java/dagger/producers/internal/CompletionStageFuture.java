@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.internal;
+
+import static dagger.internal.Preconditions.checkNotNull;
+
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.ListenableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.BiConsumer;
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
+
+/**
+ * A future that completes with the result of a {@link CompletionStage}, so that a {@code @Produces}
+ * method can return a stage from a JDK asynchronous API without being adapted on each of its
+ * dependents.
+ *
+ * <p>This is the only class of the producers runtime that uses Java 8 APIs. Generated code only
+ * refers to it from the factories of methods that return a stage, so the rest of the runtime still
+ * runs on Java 7.
+ *
+ * <p>The stage's completion is delivered directly to this future, without a task on an executor.
+ * Cancelling this future cancels the stage's {@link CompletionStage#toCompletableFuture()
+ * CompletableFuture}, if it has one, just as cancelling a producer cancels the future returned by
+ * a {@code @Produces} method that returns a {@code ListenableFuture}. Cancelling the stage cancels
+ * this future.
+ */
+public final class CompletionStageFuture<T> extends AbstractFuture<T>
+    implements BiConsumer<T, Throwable> {
+  @NullableDecl private final CompletableFuture<T> completableFuture;
+
+  /**
+   * Returns a {@code ListenableFuture} that completes with the result of {@code stage}. Cancelling
+   * the returned future cancels {@code stage}'s {@link CompletionStage#toCompletableFuture()
+   * CompletableFuture}, if it has one.
+   */
+  public static <T> ListenableFuture<T> create(CompletionStage<T> stage) {
+    return new CompletionStageFuture<T>(checkNotNull(stage));
+  }
+
+  private CompletionStageFuture(CompletionStage<T> stage) {
+    this.completableFuture = toCompletableFuture(stage);
+    stage.whenComplete(this);
+  }
+
+  @NullableDecl
+  private static <T> CompletableFuture<T> toCompletableFuture(CompletionStage<T> stage) {
+    try {
+      return stage.toCompletableFuture();
+    } catch (UnsupportedOperationException e) {
+      // The stage can't be cancelled, so cancelling this future only cancels this future.
+      return null;
+    }
+  }
+
+  @Override
+  public void accept(@NullableDecl T value, @NullableDecl Throwable throwable) {
+    if (throwable == null) {
+      set(value);
+      return;
+    }
+    // Stages that depend on a failed stage fail with a CompletionException that wraps the failure.
+    if (throwable instanceof CompletionException && throwable.getCause() != null) {
+      throwable = throwable.getCause();
+    }
+    if (throwable instanceof CancellationException) {
+      cancel(false);
+    } else {
+      setException(throwable);
+    }
+  }
+
+  @Override
+  protected void afterDone() {
+    if (isCancelled() && completableFuture != null) {
+      completableFuture.cancel(wasInterrupted());
+    }
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Decides when a {@link dagger.producers.Hedged} producer method is called a second time, based on
+ * the latencies of its recent calls. A policy is shared by all producers for the same method.
+ */
+public final class HedgingPolicy {
+  /** The number of recent latencies that the percentile is computed from. */
+  private static final int SAMPLE_SIZE = 128;
+
+  /** The number of latencies recorded between updates of the delay. */
+  private static final int UPDATE_INTERVAL = 16;
+
+  private final double percentile;
+  private final AtomicLongArray latencies = new AtomicLongArray(SAMPLE_SIZE);
+  private final AtomicLong recordedLatencies = new AtomicLong();
+  private volatile long delayNanos;
+
+  private HedgingPolicy(double percentile, long initialDelayNanos) {
+    this.percentile = percentile;
+    this.delayNanos = initialDelayNanos;
+  }
+
+  /**
+   * Returns a policy that calls the method again after the {@code percentile}th percentile of its
+   * recent latencies, or after {@code initialDelayNanos} until enough latencies have been recorded.
+   */
+  public static HedgingPolicy create(double percentile, long initialDelayNanos) {
+    checkArgument(percentile > 0 && percentile < 100, "percentile: %s", percentile);
+    checkArgument(initialDelayNanos > 0, "initialDelayNanos: %s", initialDelayNanos);
+    return new HedgingPolicy(percentile, initialDelayNanos);
+  }
+
+  /** Returns the time, in nanoseconds, after which an incomplete call is made again. */
+  long delayNanos() {
+    return delayNanos;
+  }
+
+  /** Records the time from the first call of the method until its producer completed. */
+  void recordLatency(long latencyNanos) {
+    long count = recordedLatencies.getAndIncrement();
+    latencies.set((int) (count % SAMPLE_SIZE), latencyNanos);
+    // Updating the delay sorts a copy of the samples, so only do it once in a while.
+    if (count + 1 >= SAMPLE_SIZE && (count + 1) % UPDATE_INTERVAL == 0) {
+      updateDelay();
+    }
+  }
+
+  private void updateDelay() {
+    long[] samples = new long[SAMPLE_SIZE];
+    for (int i = 0; i < SAMPLE_SIZE; i++) {
+      samples[i] = latencies.get(i);
+    }
+    Arrays.sort(samples);
+    int index = (int) Math.ceil(percentile / 100 * SAMPLE_SIZE) - 1;
+    delayNanos = Math.max(samples[Math.max(index, 0)], 1);
+  }
+}
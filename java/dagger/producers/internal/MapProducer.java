@@ -16,18 +16,12 @@
 
 package dagger.producers.internal;
 
-import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
-
-import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Maps;
-import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import dagger.producers.Producer;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import javax.inject.Provider;
 
 /**
@@ -76,28 +70,23 @@ public final class MapProducer<K, V> extends AbstractMapProducer<K, V, V> {
 
   @Override
   protected ListenableFuture<Map<K, V>> compute() {
-    final List<ListenableFuture<Map.Entry<K, V>>> listOfEntries = new ArrayList<>();
-    for (final Entry<K, Producer<V>> entry : contributingMap().entrySet()) {
-      listOfEntries.add(
-          Futures.transform(
-              entry.getValue().get(),
-              new Function<V, Entry<K, V>>() {
-                @Override
-                public Entry<K, V> apply(V computedValue) {
-                  return Maps.immutableEntry(entry.getKey(), computedValue);
-                }
-              },
-              directExecutor()));
-    }
-
-    return Futures.transform(
-        Futures.allAsList(listOfEntries),
-        new Function<List<Map.Entry<K, V>>, Map<K, V>>() {
+    final ImmutableList<K> keys = contributingMap().keySet().asList();
+    AggregatingFuture<V, Map<K, V>> future =
+        new AggregatingFuture<V, Map<K, V>>(keys.size()) {
           @Override
-          public Map<K, V> apply(List<Map.Entry<K, V>> entries) {
-            return ImmutableMap.copyOf(entries);
+          Map<K, V> combine(List<V> values) {
+            ImmutableMap.Builder<K, V> builder = ImmutableMap.builderWithExpectedSize(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+              builder.put(keys.get(i), values.get(i));
+            }
+            return builder.build();
           }
-        },
-        directExecutor());
+        };
+    int index = 0;
+    for (Producer<V> producer : contributingMap().values()) {
+      future.setInput(index++, producer.get());
+    }
+    future.inputsSet();
+    return future;
   }
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import java.util.concurrent.ConcurrentMap;
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
+
+/**
+ * The results of a {@link dagger.producers.ProducerCache} method, keyed by the values of its
+ * asynchronous dependencies. A cache is shared by all producers for the same method.
+ */
+public final class ProducerResultCache {
+  /** The key for methods without asynchronous dependencies, which the cache can't store. */
+  private static final Object NO_DEPENDENCIES = new Object();
+
+  private final ConcurrentMap<Object, ListenableFuture<?>> results;
+
+  private ProducerResultCache(long maximumSize, long expireAfterWriteNanos) {
+    this.results =
+        CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireAfterWriteNanos, NANOSECONDS)
+            .<Object, ListenableFuture<?>>build()
+            .asMap();
+  }
+
+  /**
+   * Returns a cache that holds up to {@code maximumSize} results, each for {@code
+   * expireAfterWriteNanos} after its call.
+   */
+  public static ProducerResultCache create(long maximumSize, long expireAfterWriteNanos) {
+    checkArgument(maximumSize > 0, "maximumSize: %s", maximumSize);
+    checkArgument(expireAfterWriteNanos > 0, "expireAfterWriteNanos: %s", expireAfterWriteNanos);
+    return new ProducerResultCache(maximumSize, expireAfterWriteNanos);
+  }
+
+  /**
+   * Returns the cached result for {@code asyncDependencies}, or {@code null} after storing {@code
+   * newResult} for them. The caller must then set {@code newResult}. Results that fail are removed,
+   * so that the next request calls the method again.
+   */
+  @NullableDecl
+  ListenableFuture<?> putIfAbsent(
+      @NullableDecl Object asyncDependencies, final SettableFuture<?> newResult) {
+    final Object key = key(asyncDependencies);
+    ListenableFuture<?> cachedResult = results.putIfAbsent(key, newResult);
+    if (cachedResult == null) {
+      newResult.addListener(
+          new Runnable() {
+            @Override
+            public void run() {
+              if (failed(newResult)) {
+                results.remove(key, newResult);
+              }
+            }
+          },
+          directExecutor());
+    }
+    return cachedResult;
+  }
+
+  /**
+   * Removes {@code result} for {@code asyncDependencies} if {@code request}, a request that shares
+   * it, is cancelled before {@code result} completes, e.g. by a {@link
+   * dagger.producers.ProducerTimeout} or with its component. The requests that already share the
+   * result still get it, but later ones call the method again rather than wait for a call that may
+   * never complete.
+   */
+  void removeIfAbandoned(
+      @NullableDecl Object asyncDependencies,
+      final ListenableFuture<?> result,
+      final ListenableFuture<?> request) {
+    final Object key = key(asyncDependencies);
+    request.addListener(
+        new Runnable() {
+          @Override
+          public void run() {
+            if (request.isCancelled() && !result.isDone()) {
+              results.remove(key, result);
+            }
+          }
+        },
+        directExecutor());
+  }
+
+  private static Object key(@NullableDecl Object asyncDependencies) {
+    return asyncDependencies == null ? NO_DEPENDENCIES : asyncDependencies;
+  }
+
+  private static boolean failed(ListenableFuture<?> result) {
+    try {
+      Futures.getDone(result);
+      return false;
+    } catch (Exception e) {
+      return true;
+    }
+  }
+}
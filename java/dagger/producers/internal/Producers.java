@@ -22,16 +22,19 @@ import static com.google.common.util.concurrent.Futures.transform;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 
 import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.AsyncFunction;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import dagger.producers.PrioritizedExecutor;
 import dagger.producers.Produced;
 import dagger.producers.Producer;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import javax.inject.Provider;
 
 /**
@@ -109,15 +112,49 @@ public final class Producers {
    */
   public static <T> ListenableFuture<Set<T>> allAsSet(
       Iterable<? extends ListenableFuture<? extends T>> futures) {
-    return transform(
-        Futures.allAsList(futures),
-        new Function<List<T>, Set<T>>() {
+    ImmutableList<? extends ListenableFuture<? extends T>> futureList =
+        ImmutableList.copyOf(futures);
+    AggregatingFuture<T, Set<T>> future =
+        new AggregatingFuture<T, Set<T>>(futureList.size()) {
           @Override
-          public Set<T> apply(List<T> values) {
+          Set<T> combine(List<T> values) {
             return ImmutableSet.copyOf(values);
           }
-        },
-        directExecutor());
+        };
+    for (int i = 0; i < futureList.size(); i++) {
+      future.setInput(i, futureList.get(i));
+    }
+    future.inputsSet();
+    return future;
+  }
+
+  /**
+   * Returns a provider of the executor of {@code executorProvider} that runs tasks with the given
+   * producer priority, if the executor is a {@link PrioritizedExecutor.PriorityClassExecutor}.
+   * Otherwise, the executor is returned as is.
+   */
+  public static Provider<Executor> executorWithPriority(
+      final Provider<Executor> executorProvider, final int producerPriority) {
+    checkNotNull(executorProvider);
+    return new Provider<Executor>() {
+      // The production executor is scoped, so it only needs to be wrapped once.
+      private volatile Executor executor;
+
+      @Override
+      public Executor get() {
+        Executor result = executor;
+        if (result == null) {
+          result = executorProvider.get();
+          if (result instanceof PrioritizedExecutor.PriorityClassExecutor) {
+            result =
+                ((PrioritizedExecutor.PriorityClassExecutor) result)
+                    .withProducerPriority(producerPriority);
+          }
+          executor = result;
+        }
+        return result;
+      }
+    };
   }
 
   /**
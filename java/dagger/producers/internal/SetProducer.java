@@ -17,17 +17,12 @@
 package dagger.producers.internal;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.util.concurrent.Futures.transform;
-import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static dagger.internal.DaggerCollections.hasDuplicates;
 import static dagger.internal.DaggerCollections.presizedList;
 
-import com.google.common.base.Function;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import dagger.producers.Producer;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
@@ -116,32 +111,35 @@ public final class SetProducer<T> extends AbstractProducer<Set<T>> {
    */
   @Override
   public ListenableFuture<Set<T>> compute() {
-    List<ListenableFuture<T>> individualFutures =
-        new ArrayList<ListenableFuture<T>>(individualProducers.size());
-    for (Producer<T> producer : individualProducers) {
-      individualFutures.add(checkNotNull(producer.get()));
-    }
-
-    // Presize the list of collections produced by the amount of collectionProducers, with one more
-    // for the consolidate individualFutures from Futures.allAsList.
-    List<ListenableFuture<? extends Collection<T>>> futureCollections =
-        new ArrayList<ListenableFuture<? extends Collection<T>>>(collectionProducers.size() + 1);
-    futureCollections.add(Futures.allAsList(individualFutures));
-    for (Producer<Collection<T>> producer : collectionProducers) {
-      futureCollections.add(checkNotNull(producer.get()));
-    }
-    return transform(
-        Futures.allAsList(futureCollections),
-        new Function<List<Collection<T>>, Set<T>>() {
+    final int individualSize = individualProducers.size();
+    // The values are the individual elements followed by the collections of elements.
+    AggregatingFuture<Object, Set<T>> future =
+        new AggregatingFuture<Object, Set<T>>(individualSize + collectionProducers.size()) {
+          @SuppressWarnings("unchecked") // values are ordered as described above
           @Override
-          public Set<T> apply(List<Collection<T>> sets) {
-            ImmutableSet.Builder<T> builder = ImmutableSet.builder();
-            for (Collection<T> set : sets) {
-              builder.addAll(set);
+          Set<T> combine(List<Object> values) {
+            int expectedSize = individualSize;
+            for (int i = individualSize; i < values.size(); i++) {
+              expectedSize += ((Collection<T>) checkNotNull(values.get(i))).size();
+            }
+            ImmutableSet.Builder<T> builder = ImmutableSet.builderWithExpectedSize(expectedSize);
+            for (int i = 0; i < individualSize; i++) {
+              builder.add((T) values.get(i));
+            }
+            for (int i = individualSize; i < values.size(); i++) {
+              builder.addAll((Collection<T>) values.get(i));
             }
             return builder.build();
           }
-        },
-        directExecutor());
+        };
+    int index = 0;
+    for (Producer<T> producer : individualProducers) {
+      future.setInput(index++, checkNotNull(producer.get()));
+    }
+    for (Producer<Collection<T>> producer : collectionProducers) {
+      future.setInput(index++, checkNotNull(producer.get()));
+    }
+    future.inputsSet();
+    return future;
   }
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.internal;
+
+import dagger.producers.Producer;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The producers of a production component that have been started, so that cancelling the component
+ * only cancels those producers rather than every producer of the component.
+ *
+ * <p>A producer that is started after the component was cancelled is cancelled instead of being
+ * started, just as it would be if it had been cancelled along with the others.
+ */
+public final class StartedProducers {
+  // A field updater rather than an AtomicInteger, since a production component creates one of these
+  // every time it is created.
+  private static final AtomicIntegerFieldUpdater<StartedProducers> SIZE =
+      AtomicIntegerFieldUpdater.newUpdater(StartedProducers.class, "size");
+
+  // Each tracked producer takes at most one slot, so starting a producer doesn't allocate.
+  private final AtomicReferenceArray<CancellableProducer<?>> started;
+  private volatile int size;
+  private volatile boolean cancelled;
+  private volatile boolean mayInterruptIfRunning;
+
+  /** Creates an instance for a component that tracks {@code capacity} producers. */
+  public StartedProducers(int capacity) {
+    started = new AtomicReferenceArray<CancellableProducer<?>>(capacity);
+  }
+
+  /**
+   * Tracks {@code producer}, a newly created producer of the component, and returns it. An {@link
+   * AbstractProducer} is recorded when it is started; any other producer is cancelled along with
+   * the started producers.
+   *
+   * <p>An {@link AbstractProducer} that is already tracked by another component, such as a parent
+   * component's producer that is bound again in a subcomponent, stays with that component.
+   *
+   * <p><b>Do not use this!</b> This is intended to be called by generated code only, and its
+   * signature may change at any time.
+   *
+   * @throws IllegalArgumentException if {@code producer} is not a {@code CancellableProducer}
+   */
+  public <T> Producer<T> track(Producer<T> producer) {
+    if (producer instanceof AbstractProducer) {
+      ((AbstractProducer<T>) producer).setStartedProducers(this);
+    } else if (producer instanceof CancellableProducer) {
+      started((CancellableProducer<T>) producer);
+    } else {
+      throw new IllegalArgumentException("track called with non-CancellableProducer: " + producer);
+    }
+    return producer;
+  }
+
+  /**
+   * Records that {@code producer} has been started. Returns false if the component was already
+   * cancelled, in which case {@code producer} has been cancelled and should not compute its
+   * result.
+   */
+  boolean started(CancellableProducer<?> producer) {
+    started.set(SIZE.getAndIncrement(this), producer);
+    // A producer recorded after cancel() read its slot is cancelled here; one recorded before is
+    // cancelled by cancel(). Cancelling a producer twice has no effect.
+    if (cancelled) {
+      producer.cancel(mayInterruptIfRunning);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Cancels the started producers, in the order they were started, and any producer that is
+   * started later.
+   */
+  public void cancel(boolean mayInterruptIfRunning) {
+    this.mayInterruptIfRunning = mayInterruptIfRunning;
+    cancelled = true;
+    // Producers are started before their dependencies, so this cancels them starting from entry
+    // points and going down to leaves. A slot that is still empty belongs to a producer that will
+    // see that the component was cancelled.
+    int size = this.size;
+    for (int i = 0; i < size; i++) {
+      CancellableProducer<?> producer = started.get(i);
+      if (producer != null) {
+        producer.cancel(mayInterruptIfRunning);
+      }
+    }
+  }
+}
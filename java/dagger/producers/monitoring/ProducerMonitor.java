@@ -137,6 +137,19 @@ public abstract class ProducerMonitor {
    */
   public void methodFinished() {}
 
+  /**
+   * Called when a {@link dagger.producers.Hedged @Hedged} producer method is about to be called a
+   * second time, because the future of its first call has not completed in time. This will be
+   * called from the same thread as the second call. The second call is not reported to {@link
+   * #methodStarting()} and {@link #methodFinished()}, which are only called for the first call.
+   *
+   * <p>When multiple monitors are installed, calls to this method will be in the reverse order from
+   * calls to {@link #requested()}.
+   *
+   * <p>This implementation is a no-op.
+   */
+  public void hedged() {}
+
   /**
    * Called when the producer’s future has completed successfully with a value.
    *
@@ -0,0 +1,243 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.monitoring;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import dagger.internal.Beta;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
+
+/**
+ * The timeline of the producers of a production component, recorded by a {@link
+ * TracingProductionComponentMonitor}.
+ *
+ * <p>For each producer, the trace records when it was requested, when its inputs were ready, when
+ * its method ran and on which thread, and when its future completed. It also records which input
+ * completed last, and so made the producer ready. Following those inputs back from the producer
+ * that completed last gives the {@linkplain #criticalPath() critical path} of the execution: the
+ * chain of producers that determined its latency.
+ *
+ * <p>The trace may be read while the component is still executing, in which case it only has the
+ * events recorded so far.
+ */
+@Beta
+public final class ProductionTrace {
+  private final Stopwatch stopwatch;
+  private final Queue<Node> nodes = new ConcurrentLinkedQueue<>();
+
+  ProductionTrace(Stopwatch stopwatch) {
+    this.stopwatch = stopwatch;
+  }
+
+  /** Records the events of a producer of the component. */
+  Node addNode(ProducerToken token) {
+    Node node = new Node(this, token);
+    nodes.add(node);
+    return node;
+  }
+
+  private long elapsedNanos() {
+    return stopwatch.elapsed(NANOSECONDS);
+  }
+
+  /**
+   * Returns the producers that determined the latency of the execution so far, in the order they
+   * ran. The last producer is the one that completed last. Each other producer is the input that
+   * completed last before the next one was ready.
+   */
+  public ImmutableList<ProducerToken> criticalPath() {
+    ImmutableList.Builder<ProducerToken> criticalPath = ImmutableList.builder();
+    for (Node node : criticalPathNodes()) {
+      criticalPath.add(node.token);
+    }
+    return criticalPath.build();
+  }
+
+  private List<Node> criticalPathNodes() {
+    Node last = null;
+    for (Node node : nodes) {
+      if (node.completedNanos >= 0 && (last == null || node.completedNanos > last.completedNanos)) {
+        last = node;
+      }
+    }
+    List<Node> criticalPath = new ArrayList<>();
+    for (Node node = last; node != null; node = node.lastInput) {
+      criticalPath.add(node);
+    }
+    return Lists.reverse(criticalPath);
+  }
+
+  /**
+   * Returns the trace in the <a
+   * href="https://docs.google.com/document/d/1CvAClvFfyA5R-PhYUmn5OOQtYMH4h6I0nSsKchNAySU">Trace
+   * Event Format</a>, which can be opened in {@code chrome://tracing} or Perfetto.
+   *
+   * <p>Each producer is an async event from when it was requested to when it completed, in the
+   * {@code producer} category, or in the {@code producer,critical_path} category if it is on the
+   * critical path. Each producer method call is a complete event in the {@code method} category, on
+   * the thread that called it.
+   */
+  public String toChromeTraceJson() {
+    Set<Node> criticalPath = new HashSet<>(criticalPathNodes());
+    StringBuilder json = new StringBuilder("{\"traceEvents\":[");
+    int id = 0;
+    String separator = "";
+    for (Node node : nodes) {
+      id++;
+      if (node.requestedNanos < 0) {
+        continue;
+      }
+      String category = criticalPath.contains(node) ? "producer,critical_path" : "producer";
+      json.append(separator);
+      appendEvent(json, node.token, category, "b", node.requestedNanos, id, node.requestedThreadId);
+      if (node.readyNanos >= 0) {
+        json.append(",\"args\":{\"ready\":").append(micros(node.readyNanos)).append("}");
+      }
+      json.append("}");
+      separator = ",";
+      if (node.completedNanos >= 0) {
+        json.append(separator);
+        appendEvent(
+                json, node.token, category, "e", node.completedNanos, id, node.requestedThreadId)
+            .append("}");
+      }
+      if (node.methodStartingNanos >= 0 && node.methodFinishedNanos >= 0) {
+        json.append(separator);
+        appendEvent(
+                json, node.token, "method", "X", node.methodStartingNanos, -1, node.methodThreadId)
+            .append(",\"dur\":")
+            .append(micros(node.methodFinishedNanos - node.methodStartingNanos))
+            .append("}");
+      }
+    }
+    return json.append("],\"displayTimeUnit\":\"ms\"}").toString();
+  }
+
+  /** Appends the fields common to all events, leaving the event's object open. */
+  private static StringBuilder appendEvent(
+      StringBuilder json,
+      ProducerToken token,
+      String category,
+      String phase,
+      long nanos,
+      int id,
+      long threadId) {
+    json.append("{\"name\":");
+    appendString(json, token.toString());
+    json.append(",\"cat\":\"")
+        .append(category)
+        .append("\",\"ph\":\"")
+        .append(phase)
+        .append("\",\"ts\":")
+        .append(micros(nanos))
+        .append(",\"pid\":1,\"tid\":")
+        .append(threadId);
+    if (id >= 0) {
+      json.append(",\"id\":").append(id);
+    }
+    return json;
+  }
+
+  private static void appendString(StringBuilder json, String value) {
+    json.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        json.append('\\').append(c);
+      } else if (c < 0x20) {
+        json.append(String.format("\\u%04x", (int) c));
+      } else {
+        json.append(c);
+      }
+    }
+    json.append('"');
+  }
+
+  /** Returns {@code nanos} in microseconds, as the trace event format expects. */
+  private static String micros(long nanos) {
+    return String.valueOf(nanos / 1000.0);
+  }
+
+  /** The events of a single producer. */
+  static final class Node {
+    /**
+     * The producer that most recently completed on each thread. A producer's future is completed
+     * before the listeners that make its dependents ready run on the same thread, so this is the
+     * input that made a producer ready when its {@link #ready()} is called. The reference is weak
+     * so that threads don't keep finished traces alive.
+     */
+    private static final ThreadLocal<WeakReference<Node>> lastCompletedOnThread =
+        new ThreadLocal<>();
+
+    private final ProductionTrace trace;
+    private final ProducerToken token;
+    private volatile long requestedNanos = -1;
+    private volatile long requestedThreadId;
+    private volatile long readyNanos = -1;
+    private volatile long methodStartingNanos = -1;
+    private volatile long methodFinishedNanos = -1;
+    private volatile long methodThreadId;
+    private volatile long completedNanos = -1;
+    @NullableDecl private volatile Node lastInput;
+
+    private Node(ProductionTrace trace, ProducerToken token) {
+      this.trace = trace;
+      this.token = token;
+    }
+
+    void requested() {
+      requestedThreadId = Thread.currentThread().getId();
+      requestedNanos = trace.elapsedNanos();
+    }
+
+    void ready() {
+      readyNanos = trace.elapsedNanos();
+      WeakReference<Node> lastCompletedReference = lastCompletedOnThread.get();
+      Node lastCompleted = lastCompletedReference == null ? null : lastCompletedReference.get();
+      // An input that completed before this producer was requested didn't keep it waiting.
+      if (lastCompleted != null
+          && lastCompleted.trace == trace
+          && lastCompleted.completedNanos >= requestedNanos) {
+        lastInput = lastCompleted;
+      }
+    }
+
+    void methodStarting() {
+      methodThreadId = Thread.currentThread().getId();
+      methodStartingNanos = trace.elapsedNanos();
+    }
+
+    void methodFinished() {
+      methodFinishedNanos = trace.elapsedNanos();
+    }
+
+    void completed() {
+      completedNanos = trace.elapsedNanos();
+      lastCompletedOnThread.set(new WeakReference<>(this));
+    }
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.monitoring;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Ticker;
+import com.google.common.collect.MapMaker;
+import dagger.internal.Beta;
+import java.util.concurrent.ConcurrentMap;
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
+
+/**
+ * A monitor that records the {@link ProductionTrace} of the execution of a production component.
+ *
+ * <p>To read the trace of a component, e.g. once the future of its entry point has completed, call
+ * {@link Factory#traceFor(Object)} with the component.
+ */
+@Beta
+public final class TracingProductionComponentMonitor extends ProductionComponentMonitor {
+  private final ProductionTrace trace;
+
+  TracingProductionComponentMonitor(ProductionTrace trace) {
+    this.trace = trace;
+  }
+
+  @Override
+  public ProducerMonitor producerMonitorFor(ProducerToken token) {
+    return new TracingProducerMonitor(trace.addNode(token));
+  }
+
+  public static final class Factory extends ProductionComponentMonitor.Factory {
+    private final ConcurrentMap<Object, ProductionTrace> traces =
+        new MapMaker().weakKeys().makeMap();
+    private final Ticker ticker;
+
+    public Factory() {
+      this(Ticker.systemTicker());
+    }
+
+    Factory(Ticker ticker) {
+      this.ticker = ticker;
+    }
+
+    @Override
+    public ProductionComponentMonitor create(Object component) {
+      ProductionTrace trace = new ProductionTrace(Stopwatch.createStarted(ticker));
+      traces.put(component, trace);
+      return new TracingProductionComponentMonitor(trace);
+    }
+
+    /**
+     * Returns the trace of {@code component}, or {@code null} if it wasn't created with this
+     * factory. Traces are kept until their component is garbage collected.
+     */
+    @NullableDecl
+    public ProductionTrace traceFor(Object component) {
+      return traces.get(component);
+    }
+  }
+
+  private static final class TracingProducerMonitor extends ProducerMonitor {
+    private final ProductionTrace.Node node;
+
+    TracingProducerMonitor(ProductionTrace.Node node) {
+      this.node = node;
+    }
+
+    @Override
+    public void requested() {
+      node.requested();
+    }
+
+    @Override
+    public void ready() {
+      node.ready();
+    }
+
+    @Override
+    public void methodStarting() {
+      node.methodStarting();
+    }
+
+    @Override
+    public void methodFinished() {
+      node.methodFinished();
+    }
+
+    @Override
+    public void succeeded(Object value) {
+      node.completed();
+    }
+
+    @Override
+    public void failed(Throwable t) {
+      node.completed();
+    }
+  }
+}
@@ -162,6 +162,15 @@ public final class Monitors {
       }
     }
 
+    @Override
+    public void hedged() {
+      try {
+        delegate.hedged();
+      } catch (RuntimeException e) {
+        logProducerMonitorMethodException(e, delegate, "hedged");
+      }
+    }
+
     @Override
     public void succeeded(Object o) {
       try {
@@ -303,6 +312,17 @@ public final class Monitors {
       }
     }
 
+    @Override
+    public void hedged() {
+      for (ProducerMonitor delegate : delegates.reverse()) {
+        try {
+          delegate.hedged();
+        } catch (RuntimeException e) {
+          logProducerMonitorMethodException(e, delegate, "hedged");
+        }
+      }
+    }
+
     @Override
     public void succeeded(Object o) {
       for (ProducerMonitor delegate : delegates.reverse()) {
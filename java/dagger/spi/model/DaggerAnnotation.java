@@ -21,6 +21,7 @@ import static androidx.room.compiler.processing.compat.XConverters.toJavac;
 import androidx.room.compiler.processing.XAnnotation;
 import com.google.auto.common.AnnotationMirrors;
 import com.google.auto.value.AutoValue;
+import com.google.auto.value.extension.memoized.Memoized;
 import com.google.common.base.Equivalence;
 import com.google.common.base.Preconditions;
 import com.squareup.javapoet.ClassName;
@@ -41,6 +42,15 @@ public abstract class DaggerAnnotation {
 
   abstract Equivalence.Wrapper<AnnotationMirror> annotationMirror();
 
+  // Hashing the wrapped value walks the whole structure via its Equivalence, and these are hashed
+  // repeatedly as part of every Key, so compute it only once.
+  @Memoized
+  @Override
+  public abstract int hashCode();
+
+  @Override
+  public abstract boolean equals(Object o);
+
   public DaggerTypeElement annotationTypeElement() {
     return DaggerTypeElement.from(annotation.getType().getTypeElement());
   }
@@ -21,6 +21,7 @@ import static androidx.room.compiler.processing.compat.XConverters.toJavac;
 import androidx.room.compiler.processing.XType;
 import com.google.auto.common.MoreTypes;
 import com.google.auto.value.AutoValue;
+import com.google.auto.value.extension.memoized.Memoized;
 import com.google.common.base.Equivalence;
 import com.google.common.base.Preconditions;
 import javax.lang.model.type.TypeMirror;
@@ -39,6 +40,15 @@ public abstract class DaggerType {
 
   abstract Equivalence.Wrapper<TypeMirror> typeMirror();
 
+  // Hashing the wrapped value walks the whole structure via its Equivalence, and these are hashed
+  // repeatedly as part of every Key, so compute it only once.
+  @Memoized
+  @Override
+  public abstract int hashCode();
+
+  @Override
+  public abstract boolean equals(Object o);
+
   public XType xprocessing() {
     return type;
   }
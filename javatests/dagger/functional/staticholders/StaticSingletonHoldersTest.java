@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.staticholders;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import dagger.Component;
+import dagger.Lazy;
+import dagger.Module;
+import dagger.Provides;
+import javax.inject.Singleton;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class StaticSingletonHoldersTest {
+  static final class Foo {}
+
+  static final class Bar {}
+
+  @Module
+  static final class TestModule {
+    static int calls;
+
+    @Provides
+    @Singleton
+    static Foo foo() {
+      calls++;
+      return new Foo();
+    }
+  }
+
+  @Singleton
+  @Component(modules = TestModule.class)
+  interface TestComponent {
+    Foo foo();
+
+    Lazy<Foo> lazyFoo();
+  }
+
+  @Module
+  static final class ThrowingModule {
+    static int calls;
+
+    @Provides
+    @Singleton
+    static Bar bar() {
+      calls++;
+      throw new IllegalStateException("bar");
+    }
+  }
+
+  @Singleton
+  @Component(modules = ThrowingModule.class)
+  interface ThrowingComponent {
+    Bar bar();
+  }
+
+  // A component compiled with static singleton holders can only be created once per class loader,
+  // so each component is only created by one test.
+  @Test
+  public void scopedBinding_isCreatedOnce() {
+    TestComponent component = DaggerStaticSingletonHoldersTest_TestComponent.create();
+
+    Foo foo = component.foo();
+    assertThat(component.foo()).isSameInstanceAs(foo);
+    assertThat(component.lazyFoo().get()).isSameInstanceAs(foo);
+    // The holder is itself the Lazy, so every Lazy request shares it.
+    assertThat(component.lazyFoo()).isSameInstanceAs(component.lazyFoo());
+    assertThat(TestModule.calls).isEqualTo(1);
+  }
+
+  @Test
+  public void throwingProvision_isFatal() {
+    ThrowingComponent component = DaggerStaticSingletonHoldersTest_ThrowingComponent.create();
+    try {
+      component.bar();
+      fail();
+    } catch (ExceptionInInitializerError expected) {
+      assertThat(expected).hasCauseThat().hasMessageThat().isEqualTo("bar");
+    }
+
+    // The holder class failed to initialize, so the binding isn't created again.
+    try {
+      component.bar();
+      fail();
+    } catch (NoClassDefFoundError expected) {
+    }
+    assertThat(ThrowingModule.calls).isEqualTo(1);
+  }
+}
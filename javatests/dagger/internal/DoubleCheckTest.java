@@ -72,6 +72,23 @@ public class DoubleCheckTest {
         .isSameInstanceAs(DOUBLE_CHECK_OBJECT_PROVIDER);
   }
 
+  @Test
+  public void lazy_delegateFactoryWithMemoizingDelegate_returnsDelegate() {
+    Provider<Object> delegateFactory = new DelegateFactory<>();
+    DelegateFactory.setDelegate(delegateFactory, DOUBLE_CHECK_OBJECT_PROVIDER);
+    assertThat(DoubleCheck.lazy(delegateFactory)).isSameInstanceAs(DOUBLE_CHECK_OBJECT_PROVIDER);
+  }
+
+  @Test
+  public void lazy_delegateFactoryWithoutMemoizingDelegate_wraps() {
+    Provider<Object> delegateFactory = new DelegateFactory<>();
+    Provider<Object> delegate = Object::new;
+    DelegateFactory.setDelegate(delegateFactory, delegate);
+    Lazy<Object> lazy = DoubleCheck.lazy(delegateFactory);
+    assertThat(lazy).isNotSameInstanceAs(delegate);
+    assertThat(lazy.get()).isSameInstanceAs(lazy.get());
+  }
+
   @Test
   public void get() throws Exception {
     int numThreads = 10;
@@ -18,6 +18,7 @@ package dagger.internal;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import java.util.EnumMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -75,6 +76,53 @@ public class MapProviderFactoryTest {
         .inOrder();
   }
 
+  private enum Color {
+    RED,
+    GREEN,
+    BLUE
+  }
+
+  @Test
+  public void enumKeysInDeclarationOrder() {
+    Provider<Integer> p1 = incrementingIntegerProvider(10);
+    Provider<Integer> p2 = incrementingIntegerProvider(20);
+
+    MapProviderFactory<Color, Integer> factory =
+        MapProviderFactory.<Color, Integer>builder(2)
+            .put(Color.RED, p1)
+            .put(Color.BLUE, p2)
+            .build();
+    Map<Color, Provider<Integer>> map = factory.get();
+
+    // The map is an unmodifiable view, so check the kind of map that the factory backs it with.
+    assertThat(factory.newMapWithSameKeys()).isInstanceOf(EnumMap.class);
+    // An EnumMap iterates in declaration order, which is also the order the keys were put in.
+    assertThat(map.keySet()).containsExactly(Color.RED, Color.BLUE).inOrder();
+    assertThat(map.values()).containsExactly(p1, p2).inOrder();
+    assertThat(map.get(Color.BLUE)).isSameInstanceAs(p2);
+    assertThat(map).doesNotContainKey(Color.GREEN);
+    assertThat(map).doesNotContainKey("RED");
+  }
+
+  @Test
+  public void enumKeysOutOfDeclarationOrder() {
+    Provider<Integer> p1 = incrementingIntegerProvider(10);
+    Provider<Integer> p2 = incrementingIntegerProvider(20);
+    Provider<Integer> p3 = incrementingIntegerProvider(30);
+
+    MapFactory<Color, Integer> factory =
+        MapFactory.<Color, Integer>builder(3)
+            .put(Color.BLUE, p1)
+            .put(Color.RED, p2)
+            .put(Color.GREEN, p3)
+            .build();
+    Map<Color, Integer> map = factory.get();
+
+    // An EnumMap would iterate in declaration order, so the insertion order is kept instead.
+    assertThat(factory.newMapWithSameKeys()).isInstanceOf(LinkedHashMap.class);
+    assertThat(map.keySet()).containsExactly(Color.BLUE, Color.RED, Color.GREEN).inOrder();
+    assertThat(map).containsEntry(Color.RED, 20);
+  }
 
   private static Provider<Integer> incrementingIntegerProvider(int seed) {
     return new AtomicInteger(seed)::getAndIncrement;
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2021 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import javax.inject.Provider;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests {@link ParallelWarmUp}.
+ */
+@RunWith(JUnit4.class)
+public class ParallelWarmUpTest {
+  @Test
+  public void warmUp_runsWavesInOrder() throws Exception {
+    List<String> calls = Collections.synchronizedList(new ArrayList<>());
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      ParallelWarmUp.warmUp(
+          executor,
+          new Provider<?>[][] {
+            {recording(calls, "a1"), recording(calls, "a2"), recording(calls, "a3")},
+            {recording(calls, "b1")},
+            {recording(calls, "c1"), recording(calls, "c2")}
+          });
+    } finally {
+      executor.shutdown();
+    }
+
+    assertThat(calls.subList(0, 3)).containsExactly("a1", "a2", "a3");
+    assertThat(calls.get(3)).isEqualTo("b1");
+    assertThat(calls.subList(4, 6)).containsExactly("c1", "c2");
+  }
+
+  @Test
+  public void warmUp_rejectedTasksRunOnCallingThread() throws Exception {
+    List<String> calls = Collections.synchronizedList(new ArrayList<>());
+    ParallelWarmUp.warmUp(
+        command -> {
+          throw new RejectedExecutionException();
+        },
+        new Provider<?>[][] {{recording(calls, "a1"), recording(calls, "a2")}});
+
+    assertThat(calls).containsExactly("a1", "a2");
+  }
+
+  @Test
+  public void warmUp_rethrowsFailure() {
+    IllegalStateException failure = new IllegalStateException();
+    List<String> calls = Collections.synchronizedList(new ArrayList<>());
+    IllegalStateException thrown =
+        assertThrows(
+            IllegalStateException.class,
+            () ->
+                ParallelWarmUp.warmUp(
+                    Runnable::run,
+                    new Provider<?>[][] {
+                      {recording(calls, "a1"), () -> { throw failure; }},
+                      {recording(calls, "b1")}
+                    }));
+
+    assertThat(thrown).isSameInstanceAs(failure);
+    assertThat(calls).containsExactly("a1");
+  }
+
+  private static Provider<String> recording(List<String> calls, String name) {
+    return () -> {
+      calls.add(name);
+      return name;
+    };
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2021 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import dagger.monitoring.ProvisionMonitor;
+import java.util.ArrayList;
+import java.util.List;
+import javax.inject.Provider;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests {@link ProvisionMonitoring}.
+ */
+@RunWith(JUnit4.class)
+public class ProvisionMonitoringTest {
+  private final List<String> events = new ArrayList<>();
+
+  private final ProvisionMonitor recordingMonitor =
+      new ProvisionMonitor() {
+        @Override
+        public void onProvisionStart(String key, int depth, Thread thread, long nanoTime) {
+          events.add("start " + key + " " + depth);
+        }
+
+        @Override
+        public void onProvisionEnd(String key, int depth, Thread thread, long nanoTime) {
+          events.add("end " + key + " " + depth);
+        }
+      };
+
+  @After
+  public void uninstallMonitor() {
+    ProvisionMonitor.uninstall();
+  }
+
+  @Test
+  public void noMonitorInstalled() {
+    assertThat(ProvisionMonitoring.end("Foo", ProvisionMonitoring.start("Foo"), "foo"))
+        .isEqualTo("foo");
+    assertThat(events).isEmpty();
+  }
+
+  @Test
+  public void nestedProvisions() {
+    ProvisionMonitor.install(recordingMonitor);
+    Provider<String> bar = ProvisionMonitoring.provider("Bar", () -> "bar");
+    Provider<String> foo =
+        ProvisionMonitoring.provider(
+            "Foo",
+            () -> ProvisionMonitoring.end("Baz", ProvisionMonitoring.start("Baz"), bar.get()));
+
+    assertThat(foo.get()).isEqualTo("bar");
+    assertThat(events)
+        .containsExactly(
+            "start Foo 0", "start Baz 1", "start Bar 2", "end Bar 2", "end Baz 1", "end Foo 0")
+        .inOrder();
+  }
+
+  @Test
+  public void depthRecoversAfterNestedProvisionThrows() {
+    ProvisionMonitor.install(recordingMonitor);
+    Provider<String> failing =
+        ProvisionMonitoring.provider(
+            "Failing",
+            () -> {
+              throw new IllegalStateException();
+            });
+    Provider<String> foo =
+        ProvisionMonitoring.provider(
+            "Foo",
+            () -> {
+              try {
+                failing.get();
+              } catch (IllegalStateException expected) {
+              }
+              return "foo";
+            });
+
+    foo.get();
+    events.clear();
+    ProvisionMonitoring.provider("Baz", () -> "baz").get();
+    assertThat(events).containsExactly("start Baz 0", "end Baz 0").inOrder();
+  }
+
+  @Test
+  public void depthRecoversAfterTopLevelProvisionThrows() {
+    ProvisionMonitor.install(recordingMonitor);
+    Provider<String> failing =
+        ProvisionMonitoring.provider(
+            "Failing",
+            () -> {
+              throw new IllegalStateException();
+            });
+    try {
+      failing.get();
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+
+    events.clear();
+    ProvisionMonitoring.provider("Baz", () -> "baz").get();
+    assertThat(events).containsExactly("start Baz 0", "end Baz 0").inOrder();
+  }
+
+  @Test
+  public void exitRestoresDepth() {
+    ProvisionMonitor.install(recordingMonitor);
+    int depth = ProvisionMonitoring.start("Failing");
+    ProvisionMonitoring.start("Nested");
+    ProvisionMonitoring.exit(depth);
+
+    events.clear();
+    int bazDepth = ProvisionMonitoring.start("Baz");
+    ProvisionMonitoring.end("Baz", bazDepth, "baz");
+    ProvisionMonitoring.exit(bazDepth);
+    assertThat(events).containsExactly("start Baz 0", "end Baz 0").inOrder();
+  }
+
+  @Test
+  public void monitorExceptionsAreIgnored() {
+    ProvisionMonitor.install(
+        new ProvisionMonitor() {
+          @Override
+          public void onProvisionStart(String key, int depth, Thread thread, long nanoTime) {
+            throw new IllegalStateException();
+          }
+        });
+    assertThat(ProvisionMonitoring.provider("Foo", () -> "foo").get()).isEqualTo("foo");
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Provider;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests {@link ScopedInstanceSlots}. */
+@RunWith(JUnit4.class)
+public class ScopedInstanceSlotsTest {
+  private static final class CountingSlots extends ScopedInstanceSlots {
+    final AtomicInteger creations = new AtomicInteger();
+
+    CountingSlots(int size) {
+      super(size);
+    }
+
+    @Override
+    protected Object create(int slot) {
+      creations.incrementAndGet();
+      return slot == 1 ? null : new Object();
+    }
+  }
+
+  @Test
+  public void get_createsEachSlotOnce() {
+    CountingSlots slots = new CountingSlots(3);
+    Object first = slots.get(0);
+    assertThat(slots.get(0)).isSameInstanceAs(first);
+    assertThat(slots.get(2)).isNotSameInstanceAs(first);
+    assertThat(slots.creations.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void get_cachesNull() {
+    CountingSlots slots = new CountingSlots(2);
+    assertThat(slots.get(1)).isNull();
+    assertThat(slots.get(1)).isNull();
+    assertThat(slots.creations.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void provider() {
+    CountingSlots slots = new CountingSlots(1);
+    Provider<Object> provider = slots.provider(0);
+    assertThat(slots.provider(0)).isSameInstanceAs(provider);
+    assertThat(slots.creations.get()).isEqualTo(0);
+    assertThat(provider.get()).isSameInstanceAs(slots.get(0));
+    assertThat(slots.creations.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void provider_isLazy() {
+    CountingSlots slots = new CountingSlots(1);
+    Provider<Object> provider = slots.provider(0);
+    assertThat(DoubleCheck.lazy(provider)).isSameInstanceAs(provider);
+  }
+
+  @Test
+  public void get_createsIndependentSlotsConcurrently() throws Exception {
+    CountDownLatch secondSlotCreated = new CountDownLatch(1);
+    ScopedInstanceSlots slots =
+        new ScopedInstanceSlots(2) {
+          @Override
+          protected Object create(int slot) {
+            if (slot == 0) {
+              try {
+                // Only completes if slot 1 can be created while slot 0 is being created.
+                assertThat(secondSlotCreated.await(10, TimeUnit.SECONDS)).isTrue();
+              } catch (InterruptedException e) {
+                throw new AssertionError(e);
+              }
+            } else {
+              secondSlotCreated.countDown();
+            }
+            return new Object();
+          }
+        };
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<Object> first = executor.submit(() -> slots.get(0));
+      Future<Object> second = executor.submit(() -> slots.get(1));
+      assertThat(second.get(10, TimeUnit.SECONDS)).isNotNull();
+      assertThat(first.get(10, TimeUnit.SECONDS)).isNotNull();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void reentranceReturningDifferentInstances() {
+    ScopedInstanceSlots slots =
+        new ScopedInstanceSlots(1) {
+          private boolean reentered;
+
+          @Override
+          protected Object create(int slot) {
+            if (!reentered) {
+              reentered = true;
+              get(slot);
+            }
+            return new Object();
+          }
+        };
+    assertThrows(IllegalStateException.class, () -> slots.get(0));
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static androidx.room.compiler.processing.compat.XConverters.toJavac;
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import androidx.room.compiler.processing.XProcessingEnv;
+import com.google.testing.compile.CompilationRule;
+import com.squareup.javapoet.TypeSpec;
+import dagger.Component;
+import dagger.Module;
+import dagger.Provides;
+import dagger.internal.codegen.binding.BindingGraph;
+import dagger.internal.codegen.binding.BindingGraphFactory;
+import dagger.internal.codegen.binding.ComponentDescriptorFactory;
+import dagger.internal.codegen.componentgenerator.ComponentGeneratorModule;
+import dagger.internal.codegen.componentgenerator.TopLevelImplementationComponent;
+import dagger.internal.codegen.javac.JavacPluginModule;
+import dagger.internal.codegen.validation.InjectBindingRegistryModule;
+import dagger.internal.codegen.writing.ComponentImplementation;
+import java.util.Optional;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.lang.model.SourceVersion;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests {@link ComponentImplementation}. */
+@RunWith(JUnit4.class)
+public class ComponentImplementationTest {
+  @Rule public CompilationRule compilationRule = new CompilationRule();
+
+  @Inject XProcessingEnv processingEnv;
+  @Inject ComponentDescriptorFactory componentDescriptorFactory;
+  @Inject BindingGraphFactory bindingGraphFactory;
+  @Inject TopLevelImplementationComponent.Factory topLevelImplementationComponentFactory;
+
+  private ComponentImplementation componentImplementation;
+
+  @Before
+  public void setUp() {
+    DaggerComponentImplementationTest_TestComponent.builder()
+        .javacPluginModule(
+            new JavacPluginModule(compilationRule.getElements(), compilationRule.getTypes()))
+        .build()
+        .inject(this);
+    BindingGraph graph =
+        bindingGraphFactory.create(
+            componentDescriptorFactory.rootComponentDescriptor(
+                processingEnv.findTypeElement(SubjectComponent.class.getCanonicalName())),
+            false);
+    componentImplementation =
+        topLevelImplementationComponentFactory
+            .create(graph)
+            .currentImplementationSubcomponentBuilder()
+            .bindingGraph(graph)
+            .parentImplementation(Optional.empty())
+            .parentRequestRepresentations(Optional.empty())
+            .parentRequirementExpressions(Optional.empty())
+            .build()
+            .componentImplementation();
+  }
+
+  @Test
+  public void generate() {
+    TypeSpec typeSpec = componentImplementation.generate();
+
+    assertThat(typeSpec.name).isEqualTo("DaggerComponentImplementationTest_SubjectComponent");
+  }
+
+  @Test
+  public void generate_alreadyGenerated_fails() {
+    componentImplementation.generate();
+
+    // The state the component was built from is released once it has been generated.
+    try {
+      componentImplementation.generate();
+      fail("expected IllegalStateException");
+    } catch (IllegalStateException expected) {
+      assertThat(expected).hasMessageThat().contains("has already been generated");
+    }
+  }
+
+  static final class Foo {
+    @Inject
+    Foo() {}
+  }
+
+  @Component
+  interface SubjectComponent {
+    Foo foo();
+  }
+
+  @Module
+  static final class SourceVersionModule {
+    @Provides
+    static SourceVersion sourceVersion(XProcessingEnv processingEnv) {
+      return toJavac(processingEnv).getSourceVersion();
+    }
+  }
+
+  @Singleton
+  @Component(
+      modules = {
+        ComponentGeneratorModule.class,
+        InjectBindingRegistryModule.class,
+        JavacPluginModule.class,
+        SourceVersionModule.class
+      })
+  interface TestComponent {
+    void inject(ComponentImplementationTest test);
+  }
+}
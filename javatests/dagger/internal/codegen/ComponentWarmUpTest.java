@@ -0,0 +1,392 @@
+/*
+ * Copyright (C) 2021 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static dagger.internal.codegen.Compilers.compilerWithOptions;
+import static dagger.internal.codegen.Compilers.daggerCompiler;
+
+import com.google.common.collect.ImmutableList;
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ComponentWarmUpTest {
+  private static final JavaFileObject A =
+      JavaFileObjects.forSourceLines(
+          "test.A",
+          "package test;",
+          "",
+          "import javax.inject.Inject;",
+          "import javax.inject.Singleton;",
+          "",
+          "@Singleton",
+          "final class A {",
+          "  @Inject A() {}",
+          "}");
+
+  private static final JavaFileObject B =
+      JavaFileObjects.forSourceLines(
+          "test.B",
+          "package test;",
+          "",
+          "import javax.inject.Inject;",
+          "import javax.inject.Singleton;",
+          "",
+          "@Singleton",
+          "final class B {",
+          "  @Inject B(A a) {}",
+          "}");
+
+  private static final JavaFileObject C =
+      JavaFileObjects.forSourceLines(
+          "test.C",
+          "package test;",
+          "",
+          "import javax.inject.Inject;",
+          "",
+          "final class C {",
+          "  @Inject C(B b) {}",
+          "}");
+
+  private static final JavaFileObject D =
+      JavaFileObjects.forSourceLines(
+          "test.D",
+          "package test;",
+          "",
+          "import javax.inject.Inject;",
+          "import javax.inject.Singleton;",
+          "",
+          "@Singleton",
+          "final class D {",
+          "  @Inject D(C c) {}",
+          "}");
+
+  private static final JavaFileObject COMPONENT =
+      JavaFileObjects.forSourceLines(
+          "test.TestComponent",
+          "package test;",
+          "",
+          "import dagger.Component;",
+          "import javax.inject.Singleton;",
+          "",
+          "@Singleton",
+          "@Component",
+          "interface TestComponent {",
+          "  D d();",
+          "}");
+
+  @Test
+  public void warmUpMethod() {
+    Compilation compilation =
+        compilerWithOptions("-Adagger.generateWarmUpMethod=enabled")
+            .compile(A, B, C, D, COMPONENT);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .containsElementsIn(
+            JavaFileObjects.forSourceLines(
+                "test.DaggerTestComponent",
+                "package test;",
+                "",
+                "import dagger.internal.ParallelWarmUp;",
+                "import java.util.concurrent.Executor;",
+                "import javax.inject.Provider;",
+                "",
+                GeneratedLines.generatedAnnotations(),
+                "final class DaggerTestComponent implements TestComponent {",
+                "  public void warmUp(Executor executor) throws InterruptedException {",
+                "    Provider<?>[][] waves = new Provider<?>[3][];",
+                "    waves[0] = new Provider<?>[1];",
+                "    waves[0][0] = aProvider;",
+                "    waves[1] = new Provider<?>[1];",
+                "    waves[1][0] = bProvider;",
+                "    waves[2] = new Provider<?>[1];",
+                "    waves[2][0] = dProvider;",
+                "    ParallelWarmUp.warmUp(executor, waves);",
+                "  }",
+                "}"));
+  }
+
+  @Test
+  public void warmUpMethod_bindingsInSameWave() {
+    JavaFileObject e =
+        JavaFileObjects.forSourceLines(
+            "test.E",
+            "package test;",
+            "",
+            "import javax.inject.Inject;",
+            "import javax.inject.Singleton;",
+            "",
+            "@Singleton",
+            "final class E {",
+            "  @Inject E(A a) {}",
+            "}");
+    JavaFileObject component =
+        JavaFileObjects.forSourceLines(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "import javax.inject.Singleton;",
+            "",
+            "@Singleton",
+            "@Component",
+            "interface TestComponent {",
+            "  D d();",
+            "  E e();",
+            "}");
+    Compilation compilation =
+        compilerWithOptions("-Adagger.generateWarmUpMethod=enabled")
+            .compile(A, B, C, D, e, component);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .contentsAsUtf8String()
+        .contains("Provider<?>[][] waves = new Provider<?>[3][];");
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .contentsAsUtf8String()
+        .contains("waves[1] = new Provider<?>[2];");
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .contentsAsUtf8String()
+        .contains("waves[2][0] = dProvider;");
+  }
+
+  @Test
+  public void warmUpMethod_fastInit() {
+    Compilation compilation =
+        compilerWithOptions(
+                "-Adagger.generateWarmUpMethod=enabled", "-Adagger.fastInit=enabled")
+            .compile(A, B, C, D, COMPONENT);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .contentsAsUtf8String()
+        .contains("waves[0][0] = aProvider;");
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .contentsAsUtf8String()
+        .contains("waves[2][0] = dProvider;");
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .contentsAsUtf8String()
+        .contains("ParallelWarmUp.warmUp(executor, waves);");
+  }
+
+  @Test
+  public void warmUpMethod_partitioned() {
+    ImmutableList.Builder<JavaFileObject> sources = ImmutableList.builder();
+    // Each binding takes two statements: one for its wave and one for itself.
+    for (int i = 0; i < 60; i++) {
+      String constructor =
+          i == 0
+              ? "  @Inject Scoped0() {}"
+              : String.format("  @Inject Scoped%s(Scoped%s dependency) {}", i, i - 1);
+      sources.add(
+          JavaFileObjects.forSourceLines(
+              "test.Scoped" + i,
+              "package test;",
+              "",
+              "import javax.inject.Inject;",
+              "import javax.inject.Singleton;",
+              "",
+              "@Singleton",
+              "final class Scoped" + i + " {",
+              constructor,
+              "}"));
+    }
+    sources.add(
+        JavaFileObjects.forSourceLines(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "import javax.inject.Singleton;",
+            "",
+            "@Singleton",
+            "@Component",
+            "interface TestComponent {",
+            "  Scoped59 scoped();",
+            "}"));
+    Compilation compilation =
+        compilerWithOptions("-Adagger.generateWarmUpMethod=enabled").compile(sources.build());
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .contentsAsUtf8String()
+        .contains("private void warmUpWaves(Provider<?>[][] waves) {");
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .contentsAsUtf8String()
+        .contains("warmUpWaves2(waves);");
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .contentsAsUtf8String()
+        .contains("waves[59][0] = scoped59Provider;");
+  }
+
+  @Test
+  public void warmUpMethod_declaredOnComponent() {
+    JavaFileObject component =
+        JavaFileObjects.forSourceLines(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "import java.util.concurrent.Executor;",
+            "import javax.inject.Singleton;",
+            "",
+            "@Singleton",
+            "@Component",
+            "interface TestComponent {",
+            "  D d();",
+            "",
+            "  void warmUp(Executor executor) throws InterruptedException;",
+            "}");
+    Compilation compilation =
+        compilerWithOptions("-Adagger.generateWarmUpMethod=enabled")
+            .compile(A, B, C, D, component);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .containsElementsIn(
+            JavaFileObjects.forSourceLines(
+                "test.DaggerTestComponent",
+                "package test;",
+                "",
+                "import dagger.internal.ParallelWarmUp;",
+                "import java.util.concurrent.Executor;",
+                "import javax.inject.Provider;",
+                "",
+                GeneratedLines.generatedAnnotations(),
+                "final class DaggerTestComponent implements TestComponent {",
+                "  @Override",
+                "  public void warmUp(Executor executor) throws InterruptedException {",
+                "    Provider<?>[][] waves = new Provider<?>[3][];",
+                "    waves[0] = new Provider<?>[1];",
+                "    waves[0][0] = aProvider;",
+                "    waves[1] = new Provider<?>[1];",
+                "    waves[1][0] = bProvider;",
+                "    waves[2] = new Provider<?>[1];",
+                "    waves[2][0] = dProvider;",
+                "    ParallelWarmUp.warmUp(executor, waves);",
+                "  }",
+                "}"));
+  }
+
+  @Test
+  public void warmUpMethod_declaredWithoutInterruptedException() {
+    JavaFileObject component =
+        JavaFileObjects.forSourceLines(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "import java.util.concurrent.Executor;",
+            "import javax.inject.Singleton;",
+            "",
+            "@Singleton",
+            "@Component",
+            "interface TestComponent {",
+            "  D d();",
+            "",
+            "  void warmUp(Executor executor);",
+            "}");
+    Compilation compilation =
+        compilerWithOptions("-Adagger.generateWarmUpMethod=enabled")
+            .compile(A, B, C, D, component);
+    assertThat(compilation).failed();
+    assertThat(compilation)
+        .hadErrorContaining(
+            "The generated warm-up method must be declared as: "
+                + "void warmUp(Executor) throws InterruptedException")
+        .inFile(component)
+        .onLineContaining("warmUp");
+  }
+
+  @Test
+  public void warmUpMethod_declaredWithReturnType() {
+    JavaFileObject component =
+        JavaFileObjects.forSourceLines(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "import java.util.concurrent.Executor;",
+            "import javax.inject.Singleton;",
+            "",
+            "@Singleton",
+            "@Component",
+            "interface TestComponent {",
+            "  D d();",
+            "",
+            "  Executor warmUp(Executor executor) throws InterruptedException;",
+            "}");
+    Compilation compilation =
+        compilerWithOptions("-Adagger.generateWarmUpMethod=enabled")
+            .compile(A, B, C, D, component);
+    assertThat(compilation).failed();
+    assertThat(compilation)
+        .hadErrorContaining("The generated warm-up method must be declared as")
+        .inFile(component)
+        .onLineContaining("warmUp");
+  }
+
+  @Test
+  public void warmUpMethod_implementedByComponent() {
+    JavaFileObject component =
+        JavaFileObjects.forSourceLines(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "import java.util.concurrent.Executor;",
+            "import javax.inject.Singleton;",
+            "",
+            "@Singleton",
+            "@Component",
+            "abstract class TestComponent {",
+            "  abstract D d();",
+            "",
+            "  void warmUp(Executor executor) {}",
+            "}");
+    Compilation compilation =
+        compilerWithOptions("-Adagger.generateWarmUpMethod=enabled")
+            .compile(A, B, C, D, component);
+    assertThat(compilation).failed();
+    assertThat(compilation)
+        .hadErrorContaining("Cannot override generated method")
+        .inFile(component)
+        .onLineContaining("warmUp");
+  }
+
+  @Test
+  public void noWarmUpMethodByDefault() {
+    Compilation compilation = daggerCompiler().compile(A, B, C, D, COMPONENT);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .contentsAsUtf8String()
+        .doesNotContain("warmUp");
+  }
+}
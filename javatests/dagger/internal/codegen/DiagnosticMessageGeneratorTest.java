@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static com.google.common.collect.MoreCollectors.onlyElement;
+import static com.google.common.truth.Truth.assertThat;
+import static dagger.internal.codegen.xprocessing.XElements.getSimpleName;
+
+import androidx.room.compiler.processing.XProcessingEnv;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.testing.compile.CompilationRule;
+import dagger.Component;
+import dagger.internal.codegen.binding.BindingGraphFactory;
+import dagger.internal.codegen.binding.ComponentDescriptorFactory;
+import dagger.internal.codegen.javac.JavacPluginModule;
+import dagger.internal.codegen.validation.DiagnosticMessageGenerator;
+import dagger.internal.codegen.validation.InjectBindingRegistryModule;
+import dagger.spi.model.BindingGraph;
+import dagger.spi.model.BindingGraph.DependencyEdge;
+import dagger.spi.model.BindingGraph.MaybeBinding;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests {@link DiagnosticMessageGenerator}. */
+@RunWith(JUnit4.class)
+public class DiagnosticMessageGeneratorTest {
+  @Rule public CompilationRule compilationRule = new CompilationRule();
+
+  @Inject XProcessingEnv processingEnv;
+  @Inject ComponentDescriptorFactory componentDescriptorFactory;
+  @Inject BindingGraphFactory bindingGraphFactory;
+  @Inject DiagnosticMessageGenerator.Factory diagnosticMessageGeneratorFactory;
+
+  private BindingGraph graph;
+  private DiagnosticMessageGenerator diagnosticMessageGenerator;
+
+  @Before
+  public void setUp() {
+    DaggerDiagnosticMessageGeneratorTest_TestComponent.builder()
+        .javacPluginModule(
+            new JavacPluginModule(compilationRule.getElements(), compilationRule.getTypes()))
+        .build()
+        .inject(this);
+    graph =
+        bindingGraphFactory
+            .create(
+                componentDescriptorFactory.rootComponentDescriptor(
+                    processingEnv.findTypeElement(SubjectComponent.class.getCanonicalName())),
+                false)
+            .topLevelBindingGraph();
+    diagnosticMessageGenerator = diagnosticMessageGeneratorFactory.create(graph);
+  }
+
+  @Test
+  public void dependencyTrace_allEntryPoints_usesEntryPointWithShortestPath() {
+    MaybeBinding leaf = target(entryPoint("leaf"));
+
+    assertThat(diagnosticMessageGenerator.dependencyTrace(leaf, graph.entryPointEdges()))
+        .containsExactly(entryPoint("leaf"));
+  }
+
+  @Test
+  public void dependencyTrace_entryPointsWithoutTracedEntryPoint_usesBestOfGivenEntryPoints() {
+    MaybeBinding leaf = target(entryPoint("leaf"));
+
+    // leaf() is the entry point traced for Leaf when all entry points are given, so this has to
+    // search the remaining ones. middle() is declared after top(), but its path is shorter.
+    ImmutableList<DependencyEdge> trace =
+        diagnosticMessageGenerator.dependencyTrace(
+            leaf, ImmutableSet.of(entryPoint("top"), entryPoint("middle")));
+
+    assertThat(trace).hasSize(2);
+    assertThat(target(trace.get(0))).isEqualTo(leaf);
+    assertThat(trace.get(1)).isEqualTo(entryPoint("middle"));
+  }
+
+  private DependencyEdge entryPoint(String methodName) {
+    return graph.entryPointEdges().stream()
+        .filter(
+            entryPoint ->
+                getSimpleName(entryPoint.dependencyRequest().requestElement().get().xprocessing())
+                    .equals(methodName))
+        .collect(onlyElement());
+  }
+
+  private MaybeBinding target(DependencyEdge edge) {
+    return (MaybeBinding) graph.network().incidentNodes(edge).target();
+  }
+
+  static final class Leaf {
+    @Inject
+    Leaf() {}
+  }
+
+  static final class Middle {
+    @Inject
+    Middle(@SuppressWarnings("unused") Leaf leaf) {}
+  }
+
+  static final class Top {
+    @Inject
+    Top(@SuppressWarnings("unused") Middle middle) {}
+  }
+
+  @Component
+  interface SubjectComponent {
+    Top top();
+
+    Middle middle();
+
+    Leaf leaf();
+  }
+
+  @Singleton
+  @Component(modules = {InjectBindingRegistryModule.class, JavacPluginModule.class})
+  interface TestComponent {
+    void inject(DiagnosticMessageGeneratorTest test);
+  }
+}
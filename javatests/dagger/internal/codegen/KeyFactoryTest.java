@@ -272,6 +272,25 @@ public class KeyFactoryTest {
     assertThat(integerKey.toString()).isEqualTo("java.lang.Integer");
   }
 
+  @Test public void equalKeysAreInterned() {
+    TypeElement primitiveHolder = elements.getTypeElement(PrimitiveTypes.class.getCanonicalName());
+    ExecutableElement intMethod =
+        Iterables.getOnlyElement(ElementFilter.methodsIn(primitiveHolder.getEnclosedElements()));
+    TypeElement boxedPrimitiveHolder =
+        elements.getTypeElement(BoxedPrimitiveTypes.class.getCanonicalName());
+    ExecutableElement integerMethod = Iterables.getOnlyElement(
+        ElementFilter.methodsIn(boxedPrimitiveHolder.getEnclosedElements()));
+
+    Key intKey = keyFactory.forProvidesMethod(intMethod, primitiveHolder);
+    assertThat(keyFactory.forProvidesMethod(integerMethod, boxedPrimitiveHolder))
+        .isSameInstanceAs(intKey);
+
+    keyFactory.clearCache();
+    Key integerKey = keyFactory.forProvidesMethod(integerMethod, boxedPrimitiveHolder);
+    assertThat(integerKey).isEqualTo(intKey);
+    assertThat(integerKey).isNotSameInstanceAs(intKey);
+  }
+
   @Test public void forProducesMethod() {
     TypeMirror stringType = elements.getTypeElement(String.class.getCanonicalName()).asType();
     TypeElement moduleElement =
@@ -178,7 +178,9 @@ public class MapBindingComponentProcessorTest {
                     "    this.provideLoginHandlerProvider =",
                     "       new SwitchingProvider<>(testComponent, 2);",
                     "    this.mapOfPathEnumAndProviderOfHandlerProvider =",
-                    "        new SwitchingProvider<>(testComponent, 0);",
+                    "        SingleCheck.provider(",
+                    "            new SwitchingProvider<Map<PathEnum, Provider<Handler>>>(",
+                    "                testComponent, 0));",
                     "  }")
                 .addLines(
                     "  @Override",
@@ -542,7 +544,9 @@ public class MapBindingComponentProcessorTest {
                     "    this.provideLoginHandlerProvider =",
                     "        new SwitchingProvider<>(testComponent, 2);",
                     "    this.mapOfStringAndProviderOfHandlerProvider =",
-                    "        new SwitchingProvider<>(testComponent, 0);",
+                    "        SingleCheck.provider(",
+                    "            new SwitchingProvider<Map<String, Provider<Handler>>>(",
+                    "                testComponent, 0));",
                     "  }")
                 .addLines(
                     "  @Override",
@@ -573,6 +577,96 @@ public class MapBindingComponentProcessorTest {
                 .build());
   }
 
+  @Test
+  public void mapOfProvidersWithOnlyInstanceRequest() {
+    JavaFileObject mapModuleFile =
+        JavaFileObjects.forSourceLines(
+            "test.MapModule",
+            "package test;",
+            "",
+            "import dagger.Module;",
+            "import dagger.Provides;",
+            "import dagger.multibindings.IntoMap;",
+            "import dagger.multibindings.StringKey;",
+            "",
+            "@Module",
+            "interface MapModule {",
+            "  @Provides @IntoMap @StringKey(\"Admin\") static Handler provideAdminHandler() {",
+            "    return new Handler();",
+            "  }",
+            "",
+            "  @Provides @IntoMap @StringKey(\"Login\") static Handler provideLoginHandler() {",
+            "    return new Handler();",
+            "  }",
+            "}");
+    JavaFileObject handlerFile =
+        JavaFileObjects.forSourceLines("test.Handler", "package test;", "", "class Handler {}");
+    JavaFileObject componentFile =
+        JavaFileObjects.forSourceLines(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "import java.util.Map;",
+            "import javax.inject.Provider;",
+            "",
+            "@Component(modules = MapModule.class)",
+            "interface TestComponent {",
+            "  Map<String, Provider<Handler>> handlers();",
+            "}");
+
+    Compilation compilation =
+        compilerWithOptions(compilerMode.javacopts())
+            .compile(mapModuleFile, handlerFile, componentFile);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .containsElementsIn(
+            compilerMode
+                .javaFileBuilder("test.DaggerTestComponent")
+                .addLines(
+                    "package test;",
+                    "",
+                    GeneratedLines.generatedAnnotations(),
+                    "final class DaggerTestComponent implements TestComponent {")
+                .addLinesIn(
+                    DEFAULT_MODE,
+                    "  @Override",
+                    "  public Map<String, Provider<Handler>> handlers() {",
+                    "    return ImmutableMap.<String, Provider<Handler>>of(",
+                    "        \"Admin\", MapModule_ProvideAdminHandlerFactory.create(),",
+                    "        \"Login\", MapModule_ProvideLoginHandlerFactory.create());",
+                    "  }",
+                    "}")
+                // The map is built once by its cached switching provider, even though it is only
+                // requested as an instance.
+                .addLinesIn(
+                    FAST_INIT_MODE,
+                    "  private Provider<Handler> provideAdminHandlerProvider;",
+                    "  private Provider<Handler> provideLoginHandlerProvider;",
+                    "  private Provider<Map<String, Provider<Handler>>>",
+                    "      mapOfStringAndProviderOfHandlerProvider;",
+                    "",
+                    "  @SuppressWarnings(\"unchecked\")",
+                    "  private void initialize() {",
+                    "    this.provideAdminHandlerProvider =",
+                    "        new SwitchingProvider<>(testComponent, 1);",
+                    "    this.provideLoginHandlerProvider =",
+                    "        new SwitchingProvider<>(testComponent, 2);",
+                    "    this.mapOfStringAndProviderOfHandlerProvider =",
+                    "        SingleCheck.provider(",
+                    "            new SwitchingProvider<Map<String, Provider<Handler>>>(",
+                    "                testComponent, 0));",
+                    "  }",
+                    "",
+                    "  @Override",
+                    "  public Map<String, Provider<Handler>> handlers() {",
+                    "    return mapOfStringAndProviderOfHandlerProvider.get();",
+                    "  }",
+                    "}")
+                .build());
+  }
+
   @Test
   public void mapBindingsWithWrappedKey() {
     JavaFileObject mapModuleOneFile =
@@ -702,7 +796,9 @@ public class MapBindingComponentProcessorTest {
                     "    this.provideLoginHandlerProvider =",
                     "        new SwitchingProvider<>(testComponent, 2);",
                     "    this.mapOfWrappedClassKeyAndProviderOfHandlerProvider =",
-                    "        new SwitchingProvider<>(testComponent, 0);",
+                    "        SingleCheck.provider(",
+                    "            new SwitchingProvider<Map<WrappedClassKey, Provider<Handler>>>(",
+                    "                testComponent, 0));",
                     "  }")
                 .addLines(
                     "  @Override",
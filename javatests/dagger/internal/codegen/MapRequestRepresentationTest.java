@@ -94,16 +94,26 @@ public class MapRequestRepresentationTest {
             .addLinesIn(
                 FAST_INIT_MODE,
                 "  private Provider<Integer> provideIntProvider;",
+                "  private Provider<Map<Integer, Provider<Integer>>>",
+                "      mapOfIntegerAndProviderOfIntegerProvider;",
                 "  private Provider<Long> provideLong0Provider;",
                 "  private Provider<Long> provideLong1Provider;",
                 "  private Provider<Long> provideLong2Provider;",
+                "  private Provider<Map<Long, Provider<Long>>> mapOfLongAndProviderOfLongProvider;",
                 "",
                 "  @SuppressWarnings(\"unchecked\")",
                 "  private void initialize() {",
                 "    this.provideIntProvider = new SwitchingProvider<>(testComponent, 0);",
-                "    this.provideLong0Provider = new SwitchingProvider<>(testComponent, 1);",
-                "    this.provideLong1Provider = new SwitchingProvider<>(testComponent, 2);",
-                "    this.provideLong2Provider = new SwitchingProvider<>(testComponent, 3);",
+                "    this.mapOfIntegerAndProviderOfIntegerProvider =",
+                "        SingleCheck.provider(",
+                "            new SwitchingProvider<Map<Integer, Provider<Integer>>>(",
+                "                testComponent, 1));",
+                "    this.provideLong0Provider = new SwitchingProvider<>(testComponent, 2);",
+                "    this.provideLong1Provider = new SwitchingProvider<>(testComponent, 3);",
+                "    this.provideLong2Provider = new SwitchingProvider<>(testComponent, 4);",
+                "    this.mapOfLongAndProviderOfLongProvider =",
+                "        SingleCheck.provider(",
+                "            new SwitchingProvider<Map<Long, Provider<Long>>>(testComponent, 5));",
                 "  }")
             .addLines(
                 "  @Override",
@@ -130,16 +140,12 @@ public class MapRequestRepresentationTest {
                 "    return Collections.<Integer, Integer>singletonMap(0,"
                     + " provideIntProvider.get());",
                 "  }")
-            .addLines(
-                "  @Override",
-                "  public Map<Integer, Provider<Integer>> providerInts() {",
-                "    return Collections.<Integer, Provider<Integer>>singletonMap(")
-            .addLinesIn(
-                DEFAULT_MODE, //
-                "        0, MapModule_ProvideIntFactory.create());")
-            .addLinesIn(FAST_INIT_MODE, "        0, provideIntProvider;")
             .addLinesIn(
                 DEFAULT_MODE,
+                "  @Override",
+                "  public Map<Integer, Provider<Integer>> providerInts() {",
+                "    return Collections.<Integer, Provider<Integer>>singletonMap(",
+                "        0, MapModule_ProvideIntFactory.create());",
                 "  }",
                 "",
                 "  @Override",
@@ -149,9 +155,23 @@ public class MapRequestRepresentationTest {
                 "        .put(1L, MapModule.provideLong1())",
                 "        .put(2L, MapModule.provideLong2())",
                 "        .build();",
+                "  }",
+                "",
+                "  @Override",
+                "  public Map<Long, Provider<Long>> providerLongs() {",
+                "    return MapBuilder.<Long, Provider<Long>>newMapBuilder(3)",
+                "        .put(0L, MapModule_ProvideLong0Factory.create())",
+                "        .put(1L, MapModule_ProvideLong1Factory.create())",
+                "        .put(2L, MapModule_ProvideLong2Factory.create())",
+                "        .build();",
                 "  }")
             .addLinesIn(
                 FAST_INIT_MODE,
+                // Maps of providers are built once by their cached switching provider, even for
+                // instance requests.
+                "  @Override",
+                "  public Map<Integer, Provider<Integer>> providerInts() {",
+                "    return mapOfIntegerAndProviderOfIntegerProvider.get();",
                 "  }",
                 "",
                 "  @Override",
@@ -161,34 +181,29 @@ public class MapRequestRepresentationTest {
                 "        .put(1L, provideLong1Provider.get())",
                 "        .put(2L, provideLong2Provider.get())",
                 "        .build();",
-                "  }")
-            .addLines(
+                "  }",
+                "",
                 "  @Override",
                 "  public Map<Long, Provider<Long>> providerLongs() {",
-                "    return MapBuilder.<Long, Provider<Long>>newMapBuilder(3)")
-            .addLinesIn(
-                DEFAULT_MODE,
-                "        .put(0L, MapModule_ProvideLong0Factory.create())",
-                "        .put(1L, MapModule_ProvideLong1Factory.create())",
-                "        .put(2L, MapModule_ProvideLong2Factory.create())")
-            .addLinesIn(
-                FAST_INIT_MODE,
-                "        .put(0L, provideLong0Provider)",
-                "        .put(1L, provideLong1Provider)",
-                "        .put(2L, provideLong2Provider)")
-            .addLines( //
-                "        .build();", "  }")
-            .addLinesIn(
-                FAST_INIT_MODE,
+                "    return mapOfLongAndProviderOfLongProvider.get();",
+                "  }",
+                "",
                 "  private static final class SwitchingProvider<T> implements Provider<T> {",
                 "    @SuppressWarnings(\"unchecked\")",
                 "    @Override",
                 "    public T get() {",
                 "      switch (id) {",
                 "        case 0: return (T) (Integer) MapModule.provideInt();",
-                "        case 1: return (T) (Long) MapModule.provideLong0();",
-                "        case 2: return (T) (Long) MapModule.provideLong1();",
-                "        case 3: return (T) (Long) MapModule.provideLong2();",
+                "        case 1: return (T) Collections.<Integer, Provider<Integer>>singletonMap(",
+                "            0, testComponent.provideIntProvider);",
+                "        case 2: return (T) (Long) MapModule.provideLong0();",
+                "        case 3: return (T) (Long) MapModule.provideLong1();",
+                "        case 4: return (T) (Long) MapModule.provideLong2();",
+                "        case 5: return (T) MapBuilder.<Long, Provider<Long>>newMapBuilder(3)",
+                "            .put(0L, testComponent.provideLong0Provider)",
+                "            .put(1L, testComponent.provideLong1Provider)",
+                "            .put(2L, testComponent.provideLong2Provider)",
+                "            .build();",
                 "        default: throw new AssertionError(id);",
                 "      }",
                 "    }",
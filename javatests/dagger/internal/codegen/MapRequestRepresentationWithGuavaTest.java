@@ -131,16 +131,26 @@ public class MapRequestRepresentationWithGuavaTest {
             .addLinesIn(
                 FAST_INIT_MODE,
                 "  private Provider<Integer> provideIntProvider;",
+                "  private Provider<Map<Integer, Provider<Integer>>>",
+                "      mapOfIntegerAndProviderOfIntegerProvider;",
                 "  private Provider<Long> provideLong0Provider;",
                 "  private Provider<Long> provideLong1Provider;",
                 "  private Provider<Long> provideLong2Provider;",
+                "  private Provider<Map<Long, Provider<Long>>> mapOfLongAndProviderOfLongProvider;",
                 "",
                 "  @SuppressWarnings(\"unchecked\")",
                 "  private void initialize() {",
                 "    this.provideIntProvider = new SwitchingProvider<>(testComponent, 0);",
-                "    this.provideLong0Provider = new SwitchingProvider<>(testComponent, 1);",
-                "    this.provideLong1Provider = new SwitchingProvider<>(testComponent, 2);",
-                "    this.provideLong2Provider = new SwitchingProvider<>(testComponent, 3);",
+                "    this.mapOfIntegerAndProviderOfIntegerProvider =",
+                "        SingleCheck.provider(",
+                "            new SwitchingProvider<Map<Integer, Provider<Integer>>>(",
+                "                testComponent, 1));",
+                "    this.provideLong0Provider = new SwitchingProvider<>(testComponent, 2);",
+                "    this.provideLong1Provider = new SwitchingProvider<>(testComponent, 3);",
+                "    this.provideLong2Provider = new SwitchingProvider<>(testComponent, 4);",
+                "    this.mapOfLongAndProviderOfLongProvider =",
+                "        SingleCheck.provider(",
+                "            new SwitchingProvider<Map<Long, Provider<Long>>>(testComponent, 5));",
                 "  }")
             .addLines(
                 "  @Override",
@@ -175,7 +185,7 @@ public class MapRequestRepresentationWithGuavaTest {
                 FAST_INIT_MODE,
                 "  @Override",
                 "  public Map<Integer, Provider<Integer>> providerInts() {",
-                "    return ImmutableMap.<Integer, Provider<Integer>>of(0, provideIntProvider);",
+                "    return mapOfIntegerAndProviderOfIntegerProvider.get();",
                 "  }")
             .addLinesIn(
                 DEFAULT_MODE,
@@ -208,10 +218,7 @@ public class MapRequestRepresentationWithGuavaTest {
                 FAST_INIT_MODE,
                 "  @Override",
                 "  public Map<Long, Provider<Long>> providerLongs() {",
-                "    return ImmutableMap.<Long, Provider<Long>>of(",
-                "      0L, provideLong0Provider,",
-                "      1L, provideLong1Provider,",
-                "      2L, provideLong2Provider);",
+                "    return mapOfLongAndProviderOfLongProvider.get();",
                 "  }")
             .addLines(
                 "  @Override",
@@ -225,6 +232,8 @@ public class MapRequestRepresentationWithGuavaTest {
                 "    private Provider<Long> provideLong3Provider;",
                 "    private Provider<Long> provideLong4Provider;",
                 "    private Provider<Long> provideLong5Provider;",
+                "    private Provider<Map<Long, Provider<Long>>>",
+                "        mapOfLongAndProviderOfLongProvider;",
                 "",
                 "    @SuppressWarnings(\"unchecked\")",
                 "    private void initialize() {",
@@ -234,6 +243,10 @@ public class MapRequestRepresentationWithGuavaTest {
                 "          new SwitchingProvider<>(testComponent, subImpl, 1);",
                 "      this.provideLong5Provider =",
                 "          new SwitchingProvider<>(testComponent, subImpl, 2);",
+                "      this.mapOfLongAndProviderOfLongProvider =",
+                "          SingleCheck.provider(",
+                "              new SwitchingProvider<Map<Long, Provider<Long>>>(",
+                "                  testComponent, subImpl, 3));",
                 "    }")
             .addLinesIn(
                 DEFAULT_MODE,
@@ -278,14 +291,7 @@ public class MapRequestRepresentationWithGuavaTest {
                 FAST_INIT_MODE,
                 "    @Override",
                 "    public Map<Long, Provider<Long>> providerLongs() {",
-                "      return ImmutableMap.<Long, Provider<Long>>builderWithExpectedSize(6)",
-                "          .put(0L, testComponent.provideLong0Provider)",
-                "          .put(1L, testComponent.provideLong1Provider)",
-                "          .put(2L, testComponent.provideLong2Provider)",
-                "          .put(3L, provideLong3Provider)",
-                "          .put(4L, provideLong4Provider)",
-                "          .put(5L, provideLong5Provider)",
-                "          .build();",
+                "      return mapOfLongAndProviderOfLongProvider.get();",
                 "    }")
             .addLinesIn(
                 FAST_INIT_MODE,
@@ -297,6 +303,15 @@ public class MapRequestRepresentationWithGuavaTest {
                 "          case 0: return (T) (Long) SubcomponentMapModule.provideLong3();",
                 "          case 1: return (T) (Long) SubcomponentMapModule.provideLong4();",
                 "          case 2: return (T) (Long) SubcomponentMapModule.provideLong5();",
+                "          case 3: return (T) ImmutableMap.<Long, Provider<Long>>",
+                "                builderWithExpectedSize(6)",
+                "                .put(0L, testComponent.provideLong0Provider)",
+                "                .put(1L, testComponent.provideLong1Provider)",
+                "                .put(2L, testComponent.provideLong2Provider)",
+                "                .put(3L, subImpl.provideLong3Provider)",
+                "                .put(4L, subImpl.provideLong4Provider)",
+                "                .put(5L, subImpl.provideLong5Provider)",
+                "                .build();",
                 "          default: throw new AssertionError(id);",
                 "        }",
                 "      }",
@@ -309,9 +324,15 @@ public class MapRequestRepresentationWithGuavaTest {
                 "    public T get() {",
                 "      switch (id) {",
                 "        case 0: return (T) (Integer) MapModule.provideInt();",
-                "        case 1: return (T) (Long) MapModule.provideLong0();",
-                "        case 2: return (T) (Long) MapModule.provideLong1();",
-                "        case 3: return (T) (Long) MapModule.provideLong2();",
+                "        case 1: return (T) ImmutableMap.<Integer, Provider<Integer>>of(",
+                "            0, testComponent.provideIntProvider);",
+                "        case 2: return (T) (Long) MapModule.provideLong0();",
+                "        case 3: return (T) (Long) MapModule.provideLong1();",
+                "        case 4: return (T) (Long) MapModule.provideLong2();",
+                "        case 5: return (T) ImmutableMap.<Long, Provider<Long>>of(",
+                "            0L, testComponent.provideLong0Provider,",
+                "            1L, testComponent.provideLong1Provider,",
+                "            2L, testComponent.provideLong2Provider);",
                 "        default: throw new AssertionError(id);",
                 "      }",
                 "    }",
@@ -855,6 +855,140 @@ public class MissingBindingValidationTest {
         .onLineContaining("interface Parent");
   }
 
+  @Test
+  public void missingBindingTracePrefersRootEntryPointsInDeclarationOrder() {
+    JavaFileObject parent =
+        JavaFileObjects.forSourceLines(
+            "Parent",
+            "import dagger.Component;",
+            "",
+            "@Component",
+            "interface Parent {",
+            "  Bar bar();",
+            "  Qux qux();",
+            "  Child child();",
+            "}");
+    JavaFileObject child =
+        JavaFileObjects.forSourceLines(
+            "Child",
+            "import dagger.Subcomponent;",
+            "",
+            "@Subcomponent",
+            "interface Child {",
+            "  Foo foo();",
+            "}");
+    JavaFileObject foo =
+        JavaFileObjects.forSourceLines(
+            "Foo",
+            "import javax.inject.Inject;",
+            "",
+            "class Foo {",
+            "  @Inject Foo(NotBound notBound) {}",
+            "}");
+    JavaFileObject bar =
+        JavaFileObjects.forSourceLines(
+            "Bar",
+            "import javax.inject.Inject;",
+            "",
+            "class Bar {",
+            "  @Inject Bar(Foo foo) {}",
+            "}");
+    JavaFileObject qux =
+        JavaFileObjects.forSourceLines(
+            "Qux",
+            "import javax.inject.Inject;",
+            "",
+            "class Qux {",
+            "  @Inject Qux(Foo foo) {}",
+            "}");
+    JavaFileObject notBound =
+        JavaFileObjects.forSourceLines("NotBound", "interface NotBound {}");
+
+    Compilation compilation =
+        daggerCompiler().compile(parent, child, foo, bar, qux, notBound);
+    assertThat(compilation).failed();
+    assertThat(compilation).hadErrorCount(1);
+    // Child.foo() has the shortest path, but entry points of the root component are preferred, and
+    // Parent.bar() is declared before Parent.qux().
+    assertThat(compilation)
+        .hadErrorContaining(
+            message(
+                "\033[1;31m[Dagger/MissingBinding]\033[0m NotBound cannot be provided without an "
+                    + "@Provides-annotated method.",
+                "    NotBound is injected at",
+                "        Foo(notBound)",
+                "    Foo is injected at",
+                "        Bar(foo)",
+                "    Bar is requested at",
+                "        Parent.bar()",
+                "The following other entry points also depend on it:",
+                "    Parent.qux()",
+                "    Child.foo() [Parent → Child]"))
+        .inFile(parent)
+        .onLineContaining("interface Parent");
+  }
+
+  @Test
+  public void missingBindingTracePrefersShortestPathOverDeclarationOrder() {
+    JavaFileObject parent =
+        JavaFileObjects.forSourceLines(
+            "Parent",
+            "import dagger.Component;",
+            "",
+            "@Component",
+            "interface Parent {",
+            "  Bar bar();",
+            "  Foo foo();",
+            "  Child child();",
+            "}");
+    JavaFileObject child =
+        JavaFileObjects.forSourceLines(
+            "Child",
+            "import dagger.Subcomponent;",
+            "",
+            "@Subcomponent",
+            "interface Child {",
+            "  NotBound notBound();",
+            "}");
+    JavaFileObject foo =
+        JavaFileObjects.forSourceLines(
+            "Foo",
+            "import javax.inject.Inject;",
+            "",
+            "class Foo {",
+            "  @Inject Foo(NotBound notBound) {}",
+            "}");
+    JavaFileObject bar =
+        JavaFileObjects.forSourceLines(
+            "Bar",
+            "import javax.inject.Inject;",
+            "",
+            "class Bar {",
+            "  @Inject Bar(Foo foo) {}",
+            "}");
+    JavaFileObject notBound =
+        JavaFileObjects.forSourceLines("NotBound", "interface NotBound {}");
+
+    Compilation compilation = daggerCompiler().compile(parent, child, foo, bar, notBound);
+    assertThat(compilation).failed();
+    assertThat(compilation).hadErrorCount(1);
+    // Parent.foo() is declared after Parent.bar(), but its path to the missing binding is shorter.
+    assertThat(compilation)
+        .hadErrorContaining(
+            message(
+                "\033[1;31m[Dagger/MissingBinding]\033[0m NotBound cannot be provided without an "
+                    + "@Provides-annotated method.",
+                "    NotBound is injected at",
+                "        Foo(notBound)",
+                "    Foo is requested at",
+                "        Parent.foo()",
+                "The following other entry points also depend on it:",
+                "    Parent.bar()",
+                "    Child.notBound() [Parent → Child]"))
+        .inFile(parent)
+        .onLineContaining("interface Parent");
+  }
+
   // Regression test for b/147423208 where if the same subcomponent was used
   // in two different parts of the hierarchy and only one side had a missing binding
   // incorrect caching during binding graph conversion might cause validation to pass
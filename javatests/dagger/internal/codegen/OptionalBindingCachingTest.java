@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static dagger.internal.codegen.Compilers.compilerWithOptions;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class OptionalBindingCachingTest {
+  private static final JavaFileObject FOO =
+      JavaFileObjects.forSourceLines(
+          "test.Foo",
+          "package test;",
+          "",
+          "import javax.inject.Inject;",
+          "import javax.inject.Singleton;",
+          "",
+          "@Singleton",
+          "final class Foo {",
+          "  @Inject Foo() {}",
+          "}");
+
+  private static final JavaFileObject BAR =
+      JavaFileObjects.forSourceLines(
+          "test.Bar",
+          "package test;",
+          "",
+          "import javax.inject.Inject;",
+          "",
+          "final class Bar {",
+          "  @Inject Bar() {}",
+          "}");
+
+  private static final JavaFileObject MODULE =
+      JavaFileObjects.forSourceLines(
+          "test.TestModule",
+          "package test;",
+          "",
+          "import dagger.BindsOptionalOf;",
+          "import dagger.Module;",
+          "",
+          "@Module",
+          "interface TestModule {",
+          "  @BindsOptionalOf Foo foo();",
+          "  @BindsOptionalOf Bar bar();",
+          "}");
+
+  private static final JavaFileObject COMPONENT =
+      JavaFileObjects.forSourceLines(
+          "test.TestComponent",
+          "package test;",
+          "",
+          "import dagger.Component;",
+          "import dagger.Lazy;",
+          "import java.util.Optional;",
+          "import javax.inject.Provider;",
+          "import javax.inject.Singleton;",
+          "",
+          "@Singleton",
+          "@Component(modules = TestModule.class)",
+          "interface TestComponent {",
+          "  Provider<Optional<Foo>> optionalFoo();",
+          "  Provider<Optional<Provider<Foo>>> optionalProviderOfFoo();",
+          "  Provider<Optional<Lazy<Foo>>> optionalLazyOfFoo();",
+          "  Provider<Optional<Provider<Lazy<Bar>>>> optionalProviderOfLazyOfBar();",
+          "  Provider<Optional<Bar>> optionalBar();",
+          "  Provider<Optional<Lazy<Bar>>> optionalLazyOfBar();",
+          "}");
+
+  @Test
+  public void presentOptionalsAreCached() {
+    Compilation compilation = compilerWithOptions().compile(FOO, BAR, MODULE, COMPONENT);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .containsElementsIn(
+            JavaFileObjects.forSourceLines(
+                "test.DaggerTestComponent",
+                "package test;",
+                "",
+                GeneratedLines.generatedAnnotations(),
+                "final class DaggerTestComponent implements TestComponent {",
+                "  @SuppressWarnings(\"unchecked\")",
+                "  private void initialize() {",
+                "    this.fooProvider = DoubleCheck.provider(Foo_Factory.create());",
+                "    this.optionalOfFooProvider =",
+                "        SingleCheck.provider(PresentJdkOptionalInstanceProvider.of(fooProvider));",
+                "    this.optionalOfProviderOfFooProvider =",
+                "        InstanceFactory.create(Optional.of(fooProvider));",
+                "    this.optionalOfLazyOfFooProvider =",
+                "        InstanceFactory.create(Optional.of(DoubleCheck.lazy(fooProvider)));",
+                "    this.optionalOfProviderOfLazyOfBarProvider =",
+                "        InstanceFactory.create(",
+                "            Optional.of(ProviderOfLazy.create(Bar_Factory.create())));",
+                "    this.optionalOfBarProvider =",
+                "        PresentJdkOptionalInstanceProvider.of(Bar_Factory.create());",
+                "    this.optionalOfLazyOfBarProvider =",
+                "        PresentJdkOptionalLazyProvider.of(Bar_Factory.create());",
+                "  }",
+                "}"));
+  }
+
+  @Test
+  public void presentOptionalsAreCached_fastInit() {
+    Compilation compilation =
+        compilerWithOptions("-Adagger.fastInit=enabled").compile(FOO, BAR, MODULE, COMPONENT);
+    assertThat(compilation).succeeded();
+    for (String optionalType :
+        new String[] {
+          "Optional<Foo>",
+          "Optional<Provider<Foo>>",
+          "Optional<Lazy<Foo>>",
+          "Optional<Provider<Lazy<Bar>>>"
+        }) {
+      assertThat(compilation)
+          .generatedSourceFile("test.DaggerTestComponent")
+          .contentsAsUtf8String()
+          .contains("SingleCheck.provider(new SwitchingProvider<" + optionalType + ">(");
+    }
+    // The values of unscoped bindings must be requested for each Optional.
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .contentsAsUtf8String()
+        .doesNotContain("SingleCheck.provider(new SwitchingProvider<Optional<Bar>>");
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .contentsAsUtf8String()
+        .doesNotContain("SingleCheck.provider(new SwitchingProvider<Optional<Lazy<Bar>>>");
+  }
+}
@@ -112,10 +112,16 @@ public class OptionalBindingRequestFulfillmentTest {
             .addLinesIn(
                 FAST_INIT_MODE,
                 "  private Provider<Maybe> provideMaybeProvider;",
+                "  private Provider<Optional<Provider<Lazy<Maybe>>>>",
+                "      optionalOfProviderOfLazyOfMaybeProvider;",
                 "",
                 "  @SuppressWarnings(\"unchecked\")",
                 "  private void initialize() {",
                 "    this.provideMaybeProvider = new SwitchingProvider<>(testComponent, 0);",
+                "    this.optionalOfProviderOfLazyOfMaybeProvider =",
+                "        SingleCheck.provider(",
+                "            new SwitchingProvider<Optional<Provider<Lazy<Maybe>>>>(",
+                "                testComponent, 1));",
                 "  }")
             .addLinesIn(
                 DEFAULT_MODE,
@@ -140,7 +146,7 @@ public class OptionalBindingRequestFulfillmentTest {
                 FAST_INIT_MODE,
                 "  @Override",
                 "  public Optional<Provider<Lazy<Maybe>>> providerOfLazyOfMaybe() {",
-                "    return Optional.of(ProviderOfLazy.create(provideMaybeProvider));",
+                "    return optionalOfProviderOfLazyOfMaybeProvider.get();",
                 "  }")
             .addLines(
                 "  @Override",
@@ -161,6 +167,8 @@ public class OptionalBindingRequestFulfillmentTest {
                 "    public T get() {",
                 "      switch (id) {",
                 "        case 0: return (T) Maybe_MaybeModule_ProvideMaybeFactory.provideMaybe();",
+                "        case 1: return (T) Optional.of(",
+                "            ProviderOfLazy.create(testComponent.provideMaybeProvider));",
                 "        default: throw new AssertionError(id);",
                 "      }",
                 "    }",
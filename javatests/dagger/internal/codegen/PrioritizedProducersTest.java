@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static dagger.internal.codegen.Compilers.compilerWithOptions;
+import static dagger.internal.codegen.Compilers.daggerCompiler;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class PrioritizedProducersTest {
+  private static final JavaFileObject COMPONENT =
+      JavaFileObjects.forSourceLines(
+          "test.TestClass",
+          "package test;",
+          "",
+          "import com.google.common.util.concurrent.ListenableFuture;",
+          "import com.google.common.util.concurrent.MoreExecutors;",
+          "import dagger.Module;",
+          "import dagger.Provides;",
+          "import dagger.producers.ProducerModule;",
+          "import dagger.producers.Produces;",
+          "import dagger.producers.Production;",
+          "import dagger.producers.ProductionComponent;",
+          "import java.util.concurrent.Executor;",
+          "",
+          "final class TestClass {",
+          "  interface A {}",
+          "  interface B {}",
+          "  interface C {}",
+          "",
+          "  @Module",
+          "  static final class ExecutorModule {",
+          "    @Provides @Production static Executor executor() {",
+          "      return MoreExecutors.directExecutor();",
+          "    }",
+          "  }",
+          "",
+          "  @ProducerModule",
+          "  static final class TestModule {",
+          "    @Produces static A a(B b, C c) {",
+          "      return null;",
+          "    }",
+          "",
+          "    @Produces static B b(C c) {",
+          "      return null;",
+          "    }",
+          "",
+          "    @Produces static C c() {",
+          "      return null;",
+          "    }",
+          "  }",
+          "",
+          "  @ProductionComponent(modules = {ExecutorModule.class, TestModule.class})",
+          "  interface SimpleComponent {",
+          "    ListenableFuture<A> a();",
+          "  }",
+          "}");
+
+  @Test
+  public void prioritizeProducers() {
+    Compilation compilation =
+        compilerWithOptions("-Adagger.prioritizeProducers=enabled").compile(COMPONENT);
+    assertThat(compilation).succeeded();
+    // A is requested by the entry point, B by A, and C by both, so C's tasks run first.
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestClass_SimpleComponent")
+        .contentsAsUtf8String()
+        .contains("Producers.executorWithPriority(productionImplementationExecutorProvider, 1)");
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestClass_SimpleComponent")
+        .contentsAsUtf8String()
+        .contains("Producers.executorWithPriority(productionImplementationExecutorProvider, 2)");
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestClass_SimpleComponent")
+        .contentsAsUtf8String()
+        .contains("Producers.executorWithPriority(productionImplementationExecutorProvider, 3)");
+  }
+
+  @Test
+  public void prioritizeProducers_disabled() {
+    Compilation compilation = daggerCompiler().compile(COMPONENT);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestClass_SimpleComponent")
+        .contentsAsUtf8String()
+        .doesNotContain("executorWithPriority");
+  }
+}
@@ -29,6 +29,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.testing.compile.Compilation;
 import com.google.testing.compile.JavaFileObjects;
 import java.lang.annotation.Retention;
+import java.util.concurrent.CompletionStage;
 import javax.inject.Qualifier;
 import javax.tools.JavaFileObject;
 import org.junit.Test;
@@ -95,6 +96,13 @@ public class ProducerModuleFactoryGeneratorTest {
         .hasError("@Produces methods cannot return a raw ListenableFuture");
   }
 
+  @Test
+  public void producesMethodReturnRawCompletionStage() {
+    assertThatProductionModuleMethod("@Produces CompletionStage produceRaw() {}")
+        .importing(CompletionStage.class)
+        .hasError("@Produces methods cannot return a raw CompletionStage");
+  }
+
   @Test public void producesMethodReturnWildcardFuture() {
     assertThatProductionModuleMethod("@Produces ListenableFuture<?> produceRaw() {}")
         .importing(ListenableFuture.class)
@@ -193,6 +201,212 @@ public class ProducerModuleFactoryGeneratorTest {
         .hasError("@Produces methods cannot be scoped");
   }
 
+  @Test
+  public void producesMethodWithNonPositiveTimeout() {
+    assertThatProductionModuleMethod("@Produces @ProducerTimeout(0) String str() { return \"\"; }")
+        .hasError("@ProducerTimeout must have a positive value");
+  }
+
+  @Test
+  public void producesMethodWithTimeout() {
+    JavaFileObject moduleFile =
+        JavaFileObjects.forSourceLines(
+            "test.TestModule",
+            "package test;",
+            "",
+            "import com.google.common.util.concurrent.ListenableFuture;",
+            "import dagger.producers.ProducerModule;",
+            "import dagger.producers.ProducerTimeout;",
+            "import dagger.producers.Produces;",
+            "import java.util.concurrent.TimeUnit;",
+            "",
+            "@ProducerModule",
+            "final class TestModule {",
+            "  @Produces",
+            "  @ProducerTimeout(value = 2, unit = TimeUnit.SECONDS)",
+            "  ListenableFuture<String> produceString() {",
+            "    return null;",
+            "  }",
+            "}");
+    Compilation compilation = daggerCompiler().compile(moduleFile);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.TestModule_ProduceStringFactory")
+        .contentsAsUtf8String()
+        .contains(
+            String.join(
+                "\n",
+                "  @Override",
+                "  protected long timeoutNanos() {",
+                "    return 2000000000L;",
+                "  }"));
+  }
+
+  @Test
+  public void hedgedProducesMethodWithPercentileOutOfRange() {
+    assertThatProductionModuleMethod(
+            "@Produces @Hedged(percentile = 100, initialDelay = 10) String str() { return \"\"; }")
+        .hasError("@Hedged percentile must be greater than 0 and less than 100");
+  }
+
+  @Test
+  public void hedgedProducesMethodWithNonPositiveInitialDelay() {
+    assertThatProductionModuleMethod(
+            "@Produces @Hedged(initialDelay = 0) String str() { return \"\"; }")
+        .hasError("@Hedged initialDelay must be positive");
+  }
+
+  @Test
+  public void hedgedProducesMethod() {
+    JavaFileObject moduleFile =
+        JavaFileObjects.forSourceLines(
+            "test.TestModule",
+            "package test;",
+            "",
+            "import com.google.common.util.concurrent.ListenableFuture;",
+            "import dagger.producers.Hedged;",
+            "import dagger.producers.ProducerModule;",
+            "import dagger.producers.Produces;",
+            "",
+            "@ProducerModule",
+            "final class TestModule {",
+            "  @Produces",
+            "  @Hedged(initialDelay = 50)",
+            "  ListenableFuture<String> produceString() {",
+            "    return null;",
+            "  }",
+            "}");
+    Compilation compilation = daggerCompiler().compile(moduleFile);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.TestModule_ProduceStringFactory")
+        .contentsAsUtf8String()
+        .contains("HEDGING_POLICY = HedgingPolicy.create(95.0, 50000000L);");
+    assertThat(compilation)
+        .generatedSourceFile("test.TestModule_ProduceStringFactory")
+        .contentsAsUtf8String()
+        .contains(
+            String.join(
+                "\n",
+                "  @Override",
+                "  protected HedgingPolicy hedgingPolicy() {",
+                "    return HEDGING_POLICY;",
+                "  }"));
+  }
+
+  @Test
+  public void completionStageProducesMethods() {
+    JavaFileObject moduleFile =
+        JavaFileObjects.forSourceLines(
+            "test.TestModule",
+            "package test;",
+            "",
+            "import dagger.multibindings.ElementsIntoSet;",
+            "import dagger.producers.ProducerModule;",
+            "import dagger.producers.Produces;",
+            "import java.util.Set;",
+            "import java.util.concurrent.CompletableFuture;",
+            "import java.util.concurrent.CompletionStage;",
+            "",
+            "@ProducerModule",
+            "final class TestModule {",
+            "  @Produces",
+            "  CompletionStage<String> produceString() {",
+            "    return null;",
+            "  }",
+            "",
+            "  @Produces",
+            "  CompletableFuture<Integer> produceInteger(String string) {",
+            "    return null;",
+            "  }",
+            "",
+            "  @Produces",
+            "  @ElementsIntoSet",
+            "  CompletionStage<Set<Long>> produceLongs() {",
+            "    return null;",
+            "  }",
+            "}");
+    Compilation compilation = daggerCompiler().compile(moduleFile);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.TestModule_ProduceStringFactory")
+        .contentsAsUtf8String()
+        .contains("return CompletionStageFuture.create(module.produceString());");
+    assertThat(compilation)
+        .generatedSourceFile("test.TestModule_ProduceIntegerFactory")
+        .contentsAsUtf8String()
+        .contains("return CompletionStageFuture.create(module.produceInteger(string));");
+    assertThat(compilation)
+        .generatedSourceFile("test.TestModule_ProduceIntegerFactory")
+        .contentsAsUtf8String()
+        .contains("extends AbstractProducesMethodProducer<String, Integer>");
+    assertThat(compilation)
+        .generatedSourceFile("test.TestModule_ProduceLongsFactory")
+        .contentsAsUtf8String()
+        .contains("return CompletionStageFuture.create(module.produceLongs());");
+  }
+
+  @Test
+  public void cachedProducesMethodWithNonPositiveExpiration() {
+    assertThatProductionModuleMethod(
+            "@Produces @ProducerCache(expireAfterWrite = 0) static String str() { return \"\"; }")
+        .hasError("@ProducerCache expireAfterWrite must be positive");
+  }
+
+  @Test
+  public void cachedProducesMethodWithProducerParameter() {
+    assertThatProductionModuleMethod(
+            "@Produces @ProducerCache(expireAfterWrite = 10) "
+                + "static String str(Producer<Integer> i) { return \"\"; }")
+        .hasError("@ProducerCache methods may only have parameters of instances or Produced<T>");
+  }
+
+  @Test
+  public void cachedProducesMethodNotStatic() {
+    assertThatProductionModuleMethod(
+            "@Produces @ProducerCache(expireAfterWrite = 10) String str() { return \"\"; }")
+        .hasError("@ProducerCache methods must be static");
+  }
+
+  @Test
+  public void cachedProducesMethod() {
+    JavaFileObject moduleFile =
+        JavaFileObjects.forSourceLines(
+            "test.TestModule",
+            "package test;",
+            "",
+            "import com.google.common.util.concurrent.ListenableFuture;",
+            "import dagger.producers.ProducerCache;",
+            "import dagger.producers.ProducerModule;",
+            "import dagger.producers.Produces;",
+            "import java.util.concurrent.TimeUnit;",
+            "",
+            "@ProducerModule",
+            "final class TestModule {",
+            "  @Produces",
+            "  @ProducerCache(maximumSize = 100, expireAfterWrite = 1, unit = TimeUnit.MINUTES)",
+            "  static ListenableFuture<String> produceString(Integer i) {",
+            "    return null;",
+            "  }",
+            "}");
+    Compilation compilation = daggerCompiler().compile(moduleFile);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.TestModule_ProduceStringFactory")
+        .contentsAsUtf8String()
+        .contains("RESULT_CACHE = ProducerResultCache.create(100L, 60000000000L);");
+    assertThat(compilation)
+        .generatedSourceFile("test.TestModule_ProduceStringFactory")
+        .contentsAsUtf8String()
+        .contains(
+            String.join(
+                "\n",
+                "  @Override",
+                "  protected ProducerResultCache resultCache() {",
+                "    return RESULT_CACHE;",
+                "  }"));
+  }
+
   @Test
   public void privateModule() {
     JavaFileObject moduleFile = JavaFileObjects.forSourceLines("test.Enclosing",
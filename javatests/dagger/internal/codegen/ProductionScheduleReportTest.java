@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static com.google.common.base.StandardSystemProperty.JAVA_CLASS_PATH;
+import static com.google.common.base.StandardSystemProperty.PATH_SEPARATOR;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static dagger.internal.codegen.Compilers.compilerWithOptions;
+import static dagger.internal.codegen.Compilers.daggerCompiler;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import javax.tools.JavaFileObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ProductionScheduleReportTest {
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private static final JavaFileObject COMPONENT =
+      JavaFileObjects.forSourceLines(
+          "test.TestClass",
+          "package test;",
+          "",
+          "import com.google.common.util.concurrent.Futures;",
+          "import com.google.common.util.concurrent.ListenableFuture;",
+          "import com.google.common.util.concurrent.MoreExecutors;",
+          "import dagger.Module;",
+          "import dagger.Provides;",
+          "import dagger.producers.ProducerModule;",
+          "import dagger.producers.Produces;",
+          "import dagger.producers.Production;",
+          "import dagger.producers.ProductionComponent;",
+          "import java.util.concurrent.Executor;",
+          "",
+          "final class TestClass {",
+          "  interface A {}",
+          "  interface B {}",
+          "  interface C {}",
+          "  interface D {}",
+          "  interface E {}",
+          "",
+          "  @Module",
+          "  static final class ExecutorModule {",
+          "    @Provides @Production static Executor executor() {",
+          "      return MoreExecutors.directExecutor();",
+          "    }",
+          "",
+          "    @Provides static E e() {",
+          "      return null;",
+          "    }",
+          "  }",
+          "",
+          "  @ProducerModule",
+          "  static final class TestModule {",
+          "    @Produces static ListenableFuture<A> a(B b, C c) {",
+          "      return Futures.immediateFuture(null);",
+          "    }",
+          "",
+          "    @Produces static B b(D d) {",
+          "      return null;",
+          "    }",
+          "",
+          "    @Produces static ListenableFuture<C> c(D d) {",
+          "      return Futures.immediateFuture(null);",
+          "    }",
+          "",
+          "    @Produces static ListenableFuture<D> d(E e) {",
+          "      return Futures.immediateFuture(null);",
+          "    }",
+          "  }",
+          "",
+          "  @ProductionComponent(modules = {ExecutorModule.class, TestModule.class})",
+          "  interface SimpleComponent {",
+          "    ListenableFuture<A> a();",
+          "  }",
+          "}");
+
+  @Test
+  public void report() {
+    Compilation compilation =
+        compilerWithOptions("-Adagger.productionScheduleReport=enabled").compile(COMPONENT);
+    assertThat(compilation).succeeded();
+    assertThat(compilation).hadNoteContaining("producers: 4");
+    // D runs first, then B and C can run in parallel, then A.
+    assertThat(compilation)
+        .hadNoteContaining(
+            "maximum parallelism: 2 producers, at step 2: test.TestClass.B, test.TestClass.C");
+    assertThat(compilation)
+        .hadNoteContaining(
+            "longest chain: 3 producers: "
+                + "test.TestClass.D -> test.TestClass.B -> test.TestClass.A");
+    assertThat(compilation).hadNoteContaining("test.TestClass.E, requested by test.TestClass.D");
+    assertThat(compilation)
+        .hadNoteContaining(
+            "@Produces methods that block an executor thread:\n"
+                + "    test.TestClass.TestModule.b(test.TestClass.D)");
+  }
+
+  @Test
+  public void report_withLatencyProfile() throws Exception {
+    Compilation compilation =
+        compileWithLatencyProfile(
+            "10\ttest.TestClass.D",
+            "30\ttest.TestClass.D",
+            "20\ttest.TestClass.D",
+            "5\ttest.TestClass.B",
+            "50\ttest.TestClass.C");
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .hadNoteContaining(
+            "expected latency: 70.0 ms: test.TestClass.D (20.0 ms)"
+                + " -> test.TestClass.C (50.0 ms) -> test.TestClass.A (0.0 ms)");
+  }
+
+  @Test
+  public void report_latencyProfileLineWithoutTab() throws Exception {
+    Compilation compilation = compileWithLatencyProfile("10\ttest.TestClass.D", "20");
+    assertThat(compilation).failed();
+    assertThat(compilation)
+        .hadErrorContaining(
+            "The producer latency profile given by -Adagger.producerLatencyProfile=profile.txt "
+                + "line 2 is not a latency in milliseconds, a tab and a key: 20");
+  }
+
+  @Test
+  public void report_latencyProfileLineWithMalformedLatency() throws Exception {
+    Compilation compilation = compileWithLatencyProfile("ten\ttest.TestClass.D");
+    assertThat(compilation).failed();
+    assertThat(compilation)
+        .hadErrorContaining(
+            "line 1 is not a latency in milliseconds, a tab and a key: ten\ttest.TestClass.D");
+  }
+
+  @Test
+  public void report_missingLatencyProfile() {
+    Compilation compilation =
+        compilerWithOptions(
+                "-Adagger.productionScheduleReport=enabled",
+                "-Adagger.producerLatencyProfile=missing.txt")
+            .compile(COMPONENT);
+    assertThat(compilation).failed();
+    assertThat(compilation)
+        .hadErrorContaining(
+            "The producer latency profile given by -Adagger.producerLatencyProfile=missing.txt "
+                + "cannot be read from the class path");
+  }
+
+  /** Compiles the component with a latency profile named {@code profile.txt} on the class path. */
+  private Compilation compileWithLatencyProfile(String... lines) throws Exception {
+    File profile = temporaryFolder.newFile("profile.txt");
+    Files.write(profile.toPath(), Arrays.asList(lines), UTF_8);
+    ImmutableList<File> classPath =
+        Splitter.on(PATH_SEPARATOR.value()).splitToList(JAVA_CLASS_PATH.value()).stream()
+            .map(File::new)
+            .collect(toImmutableList());
+    return compilerWithOptions(
+            "-Adagger.productionScheduleReport=enabled",
+            "-Adagger.producerLatencyProfile=profile.txt")
+        .withClasspath(
+            ImmutableList.<File>builder().addAll(classPath).add(temporaryFolder.getRoot()).build())
+        .compile(COMPONENT);
+  }
+
+  @Test
+  public void report_disabled() {
+    Compilation compilation = daggerCompiler().compile(COMPONENT);
+    assertThat(compilation).succeeded();
+    assertThat(
+            compilation.notes().stream()
+                .anyMatch(note -> note.getMessage(null).contains("Production schedule")))
+        .isFalse();
+  }
+}
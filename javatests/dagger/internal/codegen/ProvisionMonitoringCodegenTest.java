@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2021 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static dagger.internal.codegen.Compilers.compilerWithOptions;
+import static dagger.internal.codegen.Compilers.daggerCompiler;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ProvisionMonitoringCodegenTest {
+  private static final JavaFileObject FOO =
+      JavaFileObjects.forSourceLines(
+          "test.Foo",
+          "package test;",
+          "",
+          "import javax.inject.Inject;",
+          "",
+          "final class Foo {",
+          "  @Inject Foo(Bar bar) {}",
+          "}");
+
+  private static final JavaFileObject BAR =
+      JavaFileObjects.forSourceLines(
+          "test.Bar",
+          "package test;",
+          "",
+          "import javax.inject.Inject;",
+          "import javax.inject.Singleton;",
+          "",
+          "@Singleton",
+          "final class Bar {",
+          "  @Inject Bar() {}",
+          "}");
+
+  private static final JavaFileObject COMPONENT =
+      JavaFileObjects.forSourceLines(
+          "test.TestComponent",
+          "package test;",
+          "",
+          "import dagger.Component;",
+          "import javax.inject.Singleton;",
+          "",
+          "@Singleton",
+          "@Component",
+          "interface TestComponent {",
+          "  Foo foo();",
+          "}");
+
+  @Test
+  public void monitorProvisions() {
+    Compilation compilation =
+        compilerWithOptions("-Adagger.monitorProvisions=enabled").compile(FOO, BAR, COMPONENT);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .containsElementsIn(
+            JavaFileObjects.forSourceLines(
+                "test.DaggerTestComponent",
+                "package test;",
+                "",
+                "import dagger.internal.DoubleCheck;",
+                "import dagger.internal.ProvisionMonitoring;",
+                "import javax.inject.Provider;",
+                "",
+                GeneratedLines.generatedAnnotations(),
+                "final class DaggerTestComponent implements TestComponent {",
+                "  private Provider<Bar> barProvider;",
+                "",
+                "  @SuppressWarnings(\"unchecked\")",
+                "  private void initialize() {",
+                "    this.barProvider =",
+                "        DoubleCheck.provider(",
+                "            ProvisionMonitoring.provider(\"test.Bar\", Bar_Factory.create()));",
+                "  }",
+                "",
+                "  @Override",
+                "  public Foo foo() {",
+                "    return monitoredFoo();",
+                "  }",
+                "",
+                "  private Foo monitoredFoo() {",
+                "    int depth = ProvisionMonitoring.start(\"test.Foo\");",
+                "    try {",
+                "      return ProvisionMonitoring.end(",
+                "          \"test.Foo\", depth, new Foo(barProvider.get()));",
+                "    } finally {",
+                "      ProvisionMonitoring.exit(depth);",
+                "    }",
+                "  }",
+                "}"));
+  }
+
+  @Test
+  public void noMonitoringByDefault() {
+    Compilation compilation = daggerCompiler().compile(FOO, BAR, COMPONENT);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .contentsAsUtf8String()
+        .doesNotContain("ProvisionMonitoring");
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static dagger.internal.codegen.Compilers.compilerWithOptions;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ScopedInstanceSlotsCodegenTest {
+  private static final JavaFileObject FOO =
+      JavaFileObjects.forSourceLines(
+          "test.Foo",
+          "package test;",
+          "",
+          "import javax.inject.Inject;",
+          "",
+          "final class Foo {",
+          "  @Inject Foo(Bar bar) {}",
+          "}");
+
+  private static final JavaFileObject BAR =
+      JavaFileObjects.forSourceLines(
+          "test.Bar",
+          "package test;",
+          "",
+          "import javax.inject.Inject;",
+          "import javax.inject.Singleton;",
+          "",
+          "@Singleton",
+          "final class Bar {",
+          "  @Inject Bar() {}",
+          "}");
+
+  private static final JavaFileObject COMPONENT =
+      JavaFileObjects.forSourceLines(
+          "test.TestComponent",
+          "package test;",
+          "",
+          "import dagger.Component;",
+          "import javax.inject.Provider;",
+          "import javax.inject.Singleton;",
+          "",
+          "@Singleton",
+          "@Component",
+          "interface TestComponent {",
+          "  Foo foo();",
+          "  Provider<Bar> barProvider();",
+          "}");
+
+  @Test
+  public void scopedInstanceSlots() {
+    Compilation compilation =
+        compilerWithOptions("-Adagger.fastInit=enabled", "-Adagger.scopedInstanceSlots=enabled")
+            .compile(FOO, BAR, COMPONENT);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .containsElementsIn(
+            JavaFileObjects.forSourceLines(
+                "test.DaggerTestComponent",
+                "package test;",
+                "",
+                "import dagger.internal.ScopedInstanceSlots;",
+                "import javax.inject.Provider;",
+                "",
+                GeneratedLines.generatedAnnotations(),
+                "final class DaggerTestComponent implements TestComponent {",
+                "  private final DaggerTestComponent testComponent = this;",
+                "",
+                "  private final ScopedInstances scopedInstances;",
+                "",
+                "  @Override",
+                "  public Foo foo() {",
+                "    return new Foo((Bar) scopedInstances.get(0));",
+                "  }",
+                "",
+                "  @Override",
+                "  public Provider<Bar> barProvider() {",
+                "    return scopedInstances.<Bar>provider(0);",
+                "  }",
+                "",
+                "  private static final class ScopedInstances extends ScopedInstanceSlots {",
+                "    private final DaggerTestComponent testComponent;",
+                "",
+                "    ScopedInstances(DaggerTestComponent testComponent) {",
+                "      super(1);",
+                "      this.testComponent = testComponent;",
+                "    }",
+                "",
+                "    @SuppressWarnings(\"unchecked\")",
+                "    @Override",
+                "    protected Object create(int slot) {",
+                "      switch (slot) {",
+                "        case 0: // test.Bar ",
+                "        return new Bar();",
+                "",
+                "        default: throw new AssertionError(slot);",
+                "      }",
+                "    }",
+                "  }",
+                "}"));
+  }
+
+  @Test
+  public void noSlotsWithoutFastInit() {
+    Compilation compilation =
+        compilerWithOptions("-Adagger.scopedInstanceSlots=enabled").compile(FOO, BAR, COMPONENT);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .contentsAsUtf8String()
+        .doesNotContain("ScopedInstanceSlots");
+  }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static dagger.internal.codegen.Compilers.compilerWithOptions;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class StaticSingletonHoldersTest {
+  private static final JavaFileObject FOO =
+      JavaFileObjects.forSourceLines(
+          "test.Foo",
+          "package test;",
+          "",
+          "import javax.inject.Inject;",
+          "",
+          "final class Foo {",
+          "  @Inject Foo(Bar bar) {}",
+          "}");
+
+  private static final JavaFileObject COMPONENT =
+      JavaFileObjects.forSourceLines(
+          "test.TestComponent",
+          "package test;",
+          "",
+          "import dagger.Component;",
+          "import javax.inject.Provider;",
+          "import javax.inject.Singleton;",
+          "",
+          "@Singleton",
+          "@Component",
+          "interface TestComponent {",
+          "  Foo foo();",
+          "  Provider<Bar> barProvider();",
+          "}");
+
+  @Test
+  public void staticSingletonHolders() {
+    JavaFileObject bar =
+        JavaFileObjects.forSourceLines(
+            "test.Bar",
+            "package test;",
+            "",
+            "import javax.inject.Inject;",
+            "import javax.inject.Singleton;",
+            "",
+            "@Singleton",
+            "final class Bar {",
+            "  @Inject Bar() {}",
+            "}");
+    Compilation compilation =
+        compilerWithOptions("-Adagger.staticSingletonHolders=enabled")
+            .compile(FOO, bar, COMPONENT);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .containsElementsIn(
+            JavaFileObjects.forSourceLines(
+                "test.DaggerTestComponent",
+                "package test;",
+                "",
+                "import dagger.Lazy;",
+                "import javax.inject.Provider;",
+                "",
+                GeneratedLines.generatedAnnotations(),
+                "final class DaggerTestComponent implements TestComponent {",
+                "  private static DaggerTestComponent singletonComponent;",
+                "",
+                "  private final DaggerTestComponent testComponent = this;",
+                "",
+                "  private Provider<Bar> barProvider;",
+                "",
+                "  @Override",
+                "  public Foo foo() {",
+                "    return new Foo(BarHolder.INSTANCE);",
+                "  }",
+                "",
+                "  @Override",
+                "  public Provider<Bar> barProvider() {",
+                "    return barProvider;",
+                "  }",
+                "",
+                "  private static final class BarHolder implements Provider<Bar>, Lazy<Bar> {",
+                "    static final Bar INSTANCE = new Bar();",
+                "",
+                "    @Override",
+                "    public Bar get() {",
+                "      return INSTANCE;",
+                "    }",
+                "  }",
+                "}"));
+    // The holder is the binding's Provider and Lazy, so it isn't wrapped in a DoubleCheck.
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .contentsAsUtf8String()
+        .contains("this.barProvider = new BarHolder();");
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .contentsAsUtf8String()
+        .doesNotContain("DoubleCheck");
+    // Bar's holder doesn't need the component, so it doesn't read it.
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .contentsAsUtf8String()
+        .doesNotContain("DaggerTestComponent testComponent =");
+  }
+
+  @Test
+  public void holderOfModuleInstanceBinding_readsComponent() {
+    JavaFileObject bar =
+        JavaFileObjects.forSourceLines(
+            "test.Bar",
+            "package test;",
+            "",
+            "final class Bar {}");
+    JavaFileObject module =
+        JavaFileObjects.forSourceLines(
+            "test.TestModule",
+            "package test;",
+            "",
+            "import dagger.Module;",
+            "import dagger.Provides;",
+            "import javax.inject.Singleton;",
+            "",
+            "@Module",
+            "final class TestModule {",
+            "  @Provides",
+            "  @Singleton",
+            "  Bar bar() {",
+            "    return new Bar();",
+            "  }",
+            "}");
+    JavaFileObject component =
+        JavaFileObjects.forSourceLines(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "import javax.inject.Singleton;",
+            "",
+            "@Singleton",
+            "@Component(modules = TestModule.class)",
+            "interface TestComponent {",
+            "  Bar bar();",
+            "}");
+    Compilation compilation =
+        compilerWithOptions("-Adagger.staticSingletonHolders=enabled")
+            .compile(bar, module, component);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .containsElementsIn(
+            JavaFileObjects.forSourceLines(
+                "test.DaggerTestComponent",
+                "package test;",
+                "",
+                "import dagger.Lazy;",
+                "import javax.inject.Provider;",
+                "",
+                GeneratedLines.generatedAnnotations(),
+                "final class DaggerTestComponent implements TestComponent {",
+                "  private static final class BarHolder implements Provider<Bar>, Lazy<Bar> {",
+                "    static final Bar INSTANCE;",
+                "",
+                "    static {",
+                "      DaggerTestComponent testComponent = DaggerTestComponent.singletonComponent;",
+                "      INSTANCE = TestModule_BarFactory.bar(testComponent.testModule);",
+                "    }",
+                "",
+                "    @Override",
+                "    public Bar get() {",
+                "      return INSTANCE;",
+                "    }",
+                "  }",
+                "}"));
+  }
+
+  @Test
+  public void bindingInCycle_doesNotUseHolder() {
+    JavaFileObject bar =
+        JavaFileObjects.forSourceLines(
+            "test.Bar",
+            "package test;",
+            "",
+            "import javax.inject.Inject;",
+            "import javax.inject.Provider;",
+            "import javax.inject.Singleton;",
+            "",
+            "@Singleton",
+            "final class Bar {",
+            "  @Inject Bar(Provider<Foo> fooProvider) {}",
+            "}");
+    Compilation compilation =
+        compilerWithOptions("-Adagger.staticSingletonHolders=enabled")
+            .compile(FOO, bar, COMPONENT);
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .generatedSourceFile("test.DaggerTestComponent")
+        .contentsAsUtf8String()
+        .doesNotContain("BarHolder");
+  }
+}
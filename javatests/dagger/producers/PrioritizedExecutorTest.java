@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import dagger.producers.PrioritizedExecutor.PriorityClassExecutor;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class PrioritizedExecutorTest {
+  private final List<String> ranTasks = new CopyOnWriteArrayList<>();
+  private final CountDownLatch blockerReleased = new CountDownLatch(1);
+  private PrioritizedExecutor pool;
+
+  @Before
+  public void setUp() throws Exception {
+    pool = PrioritizedExecutor.create(1);
+    // Keep the only thread busy while the tasks under test are queued.
+    final CountDownLatch blockerStarted = new CountDownLatch(1);
+    pool.forPriorityClass(0)
+        .execute(
+            new Runnable() {
+              @Override
+              public void run() {
+                blockerStarted.countDown();
+                try {
+                  blockerReleased.await();
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                }
+              }
+            });
+    blockerStarted.await();
+  }
+
+  @After
+  public void tearDown() {
+    pool.shutdownNow();
+  }
+
+  @Test
+  public void higherPriorityClassRunsFirst() throws Exception {
+    PriorityClassExecutor batch = pool.forPriorityClass(0);
+    PriorityClassExecutor interactive = pool.forPriorityClass(10);
+    batch.execute(task("batch1"));
+    interactive.execute(task("interactive"));
+    batch.execute(task("batch2"));
+
+    runQueuedTasks();
+    assertThat(ranTasks).containsExactly("interactive", "batch1", "batch2").inOrder();
+  }
+
+  @Test
+  public void higherProducerPriorityRunsFirstWithinPriorityClass() throws Exception {
+    PriorityClassExecutor interactive = pool.forPriorityClass(10);
+    Executor shallow = interactive.withProducerPriority(1);
+    Executor deep = interactive.withProducerPriority(3);
+    shallow.execute(task("shallow"));
+    deep.execute(task("deep1"));
+    pool.forPriorityClass(0).withProducerPriority(5).execute(task("batch"));
+    deep.execute(task("deep2"));
+
+    runQueuedTasks();
+    assertThat(ranTasks).containsExactly("deep1", "deep2", "shallow", "batch").inOrder();
+  }
+
+  private Runnable task(final String name) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        ranTasks.add(name);
+      }
+    };
+  }
+
+  private void runQueuedTasks() throws InterruptedException {
+    blockerReleased.countDown();
+    pool.shutdown();
+    assertThat(pool.awaitTermination(10, SECONDS)).isTrue();
+  }
+}
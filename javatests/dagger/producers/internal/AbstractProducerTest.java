@@ -21,6 +21,7 @@ import static org.junit.Assert.fail;
 
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import dagger.producers.Producer;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -57,6 +58,44 @@ public class AbstractProducerTest {
     assertThat(producer.get().get()).isEqualTo(0);
   }
 
+  @Test
+  public void dependencyView_cancellingViewDoesNotCancelProducer() {
+    SettableFuture<Integer> delegate = SettableFuture.create();
+    DelegateProducer<Integer> producer = new DelegateProducer<>(delegate);
+    Producer<Integer> view = producer.newDependencyView();
+
+    ListenableFuture<Integer> viewFuture = view.get();
+    assertThat(view.get()).isSameInstanceAs(viewFuture);
+    assertThat(viewFuture.cancel(true)).isTrue();
+
+    assertThat(producer.get().isCancelled()).isFalse();
+    assertThat(delegate.isCancelled()).isFalse();
+    delegate.set(42);
+    assertThat(producer.get().isDone()).isTrue();
+  }
+
+  @Test
+  public void dependencyView_requestedAfterProducerIsDone() throws Exception {
+    DelegateProducer<Integer> producer = new DelegateProducer<>(Futures.immediateFuture(42));
+    Producer<Integer> view = producer.newDependencyView();
+    ListenableFuture<Integer> producerFuture = producer.get();
+
+    ListenableFuture<Integer> viewFuture = view.get();
+    assertThat(viewFuture.get()).isEqualTo(42);
+    assertThat(viewFuture.cancel(true)).isFalse();
+    assertThat(producerFuture.isCancelled()).isFalse();
+  }
+
+  @Test
+  public void dependencyView_cancelledProducer() {
+    DelegateProducer<Integer> producer = new DelegateProducer<>(SettableFuture.<Integer>create());
+    Producer<Integer> view = producer.newDependencyView();
+    ListenableFuture<Integer> viewFuture = view.get();
+
+    producer.cancel(false);
+    assertThat(viewFuture.isCancelled()).isTrue();
+  }
+
   static final class DelegateProducer<T> extends AbstractProducer<T> {
     private final ListenableFuture<T> delegate;
 
@@ -17,13 +17,21 @@
 package dagger.producers.internal;
 
 import static com.google.common.truth.Truth.assertThat;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Callables;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
@@ -32,8 +40,15 @@ import dagger.producers.Producer;
 import dagger.producers.monitoring.ProducerMonitor;
 import dagger.producers.monitoring.ProducerToken;
 import dagger.producers.monitoring.ProductionComponentMonitor;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 import javax.inject.Provider;
 import org.junit.Before;
 import org.junit.Test;
@@ -108,6 +123,262 @@ public class AbstractProducesMethodProducerTest {
     verifyNoMoreInteractions(monitor);
   }
 
+  @Test
+  public void timeout() throws Exception {
+    SettableFuture<Integer> delegateFuture = SettableFuture.create();
+    Producer<Integer> producer =
+        new TimeoutProducer<>(componentMonitorProvider, delegateFuture, 1_000_000L);
+
+    ListenableFuture<Integer> future = producer.get();
+    try {
+      future.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertThat(e).hasCauseThat().isInstanceOf(TimeoutException.class);
+    }
+    // The monitor is notified by the scheduler's thread, which may not have done so yet.
+    verify(monitor, timeout(1000)).failed(any(TimeoutException.class));
+  }
+
+  @Test
+  public void hedged() throws Exception {
+    SettableFuture<Integer> firstFuture = SettableFuture.create();
+    SettableFuture<Integer> secondFuture = SettableFuture.create();
+    secondFuture.set(42);
+    Producer<Integer> producer =
+        new HedgedProducer<>(
+            componentMonitorProvider,
+            HedgingPolicy.create(95, 1_000_000L),
+            firstFuture,
+            secondFuture);
+
+    ListenableFuture<Integer> future = producer.get();
+    assertThat(future.get(1, SECONDS)).isEqualTo(42);
+    verify(monitor).hedged();
+    // Only the first call is reported as the method call.
+    verify(monitor).methodStarting();
+    verify(monitor).methodFinished();
+    assertThat(firstFuture.isCancelled()).isTrue();
+  }
+
+  @Test
+  public void hedged_secondCallThrows_waitsForFirstCall() throws Exception {
+    SettableFuture<Integer> firstFuture = SettableFuture.create();
+    final CountDownLatch secondCallStarted = new CountDownLatch(1);
+    Producer<Integer> producer =
+        new HedgedProducer<>(
+            componentMonitorProvider,
+            MoreExecutors.directExecutor(),
+            HedgingPolicy.create(95, 1_000_000L),
+            ImmutableList.<Callable<ListenableFuture<Integer>>>of(
+                Callables.<ListenableFuture<Integer>>returning(firstFuture),
+                new Callable<ListenableFuture<Integer>>() {
+                  @Override
+                  public ListenableFuture<Integer> call() {
+                    secondCallStarted.countDown();
+                    throw new IllegalStateException("second call");
+                  }
+                }));
+
+    ListenableFuture<Integer> future = producer.get();
+    assertThat(secondCallStarted.await(1, SECONDS)).isTrue();
+    assertThat(future.isDone()).isFalse();
+    firstFuture.set(42);
+    assertThat(future.get()).isEqualTo(42);
+  }
+
+  @Test
+  public void hedged_bothCallsFail_fails() throws Exception {
+    SettableFuture<Integer> firstFuture = SettableFuture.create();
+    SettableFuture<Integer> secondFuture = SettableFuture.create();
+    Producer<Integer> producer =
+        new HedgedProducer<>(
+            componentMonitorProvider,
+            HedgingPolicy.create(95, 1_000_000L),
+            firstFuture,
+            secondFuture);
+
+    ListenableFuture<Integer> future = producer.get();
+    verify(monitor, timeout(1000)).hedged();
+    Throwable secondFailure = new RuntimeException("second");
+    secondFuture.setException(secondFailure);
+    assertThat(future.isDone()).isFalse();
+    Throwable firstFailure = new RuntimeException("first");
+    firstFuture.setException(firstFailure);
+    try {
+      future.get();
+      fail();
+    } catch (ExecutionException e) {
+      // The failure of whichever call completed last is used.
+      assertThat(e.getCause()).isAnyOf(firstFailure, secondFailure);
+    }
+  }
+
+  @Test
+  public void hedged_executorRejectsSecondCall_waitsForFirstCall() throws Exception {
+    SettableFuture<Integer> firstFuture = SettableFuture.create();
+    final CountDownLatch secondCallRejected = new CountDownLatch(1);
+    Executor executor =
+        new Executor() {
+          private boolean ranFirstCall;
+
+          @Override
+          public synchronized void execute(Runnable runnable) {
+            if (ranFirstCall) {
+              secondCallRejected.countDown();
+              throw new RejectedExecutionException();
+            }
+            ranFirstCall = true;
+            runnable.run();
+          }
+        };
+    Producer<Integer> producer =
+        new HedgedProducer<>(
+            componentMonitorProvider,
+            executor,
+            HedgingPolicy.create(95, 1_000_000L),
+            ImmutableList.<Callable<ListenableFuture<Integer>>>of(
+                Callables.<ListenableFuture<Integer>>returning(firstFuture)));
+
+    ListenableFuture<Integer> future = producer.get();
+    assertThat(secondCallRejected.await(1, SECONDS)).isTrue();
+    assertThat(future.isDone()).isFalse();
+    firstFuture.set(42);
+    assertThat(future.get()).isEqualTo(42);
+    verify(monitor, never()).hedged();
+  }
+
+  @Test
+  public void hedged_completesBeforeDelay() throws Exception {
+    SettableFuture<Integer> firstFuture = SettableFuture.create();
+    firstFuture.set(42);
+    Producer<Integer> producer =
+        new HedgedProducer<>(
+            componentMonitorProvider,
+            HedgingPolicy.create(95, 1_000_000L),
+            firstFuture,
+            SettableFuture.<Integer>create());
+
+    assertThat(producer.get().get()).isEqualTo(42);
+    verify(monitor).methodStarting();
+    verify(monitor).methodFinished();
+    verify(monitor).succeeded(42);
+    verifyNoMoreInteractions(monitor);
+  }
+
+  @Test
+  public void resultCache_sharesResultForEqualDependencies() throws Exception {
+    ProducerResultCache resultCache = ProducerResultCache.create(10, SECONDS.toNanos(10));
+    SettableFuture<Integer> delegateFuture = SettableFuture.create();
+    CachedProducer<Integer> producer1 =
+        new CachedProducer<>(componentMonitorProvider, resultCache, "a", delegateFuture);
+    CachedProducer<Integer> producer2 =
+        new CachedProducer<>(componentMonitorProvider, resultCache, "a", delegateFuture);
+    CachedProducer<Integer> producer3 =
+        new CachedProducer<>(componentMonitorProvider, resultCache, "b", delegateFuture);
+
+    ListenableFuture<Integer> future1 = producer1.get();
+    ListenableFuture<Integer> future2 = producer2.get();
+    producer3.get();
+    assertThat(producer1.calls).isEqualTo(1);
+    assertThat(producer2.calls).isEqualTo(0);
+    assertThat(producer3.calls).isEqualTo(1);
+
+    delegateFuture.set(42);
+    assertThat(future1.get()).isEqualTo(42);
+    assertThat(future2.get()).isEqualTo(42);
+  }
+
+  @Test
+  public void resultCache_doesNotCacheFailures() throws Exception {
+    ProducerResultCache resultCache = ProducerResultCache.create(10, SECONDS.toNanos(10));
+    CachedProducer<Integer> producer1 =
+        new CachedProducer<>(
+            componentMonitorProvider,
+            resultCache,
+            "a",
+            Futures.<Integer>immediateFailedFuture(new RuntimeException("monkey")));
+    CachedProducer<Integer> producer2 =
+        new CachedProducer<>(
+            componentMonitorProvider, resultCache, "a", Futures.immediateFuture(42));
+
+    try {
+      producer1.get().get();
+      fail();
+    } catch (ExecutionException e) {
+      assertThat(e).hasCauseThat().hasMessageThat().isEqualTo("monkey");
+    }
+    assertThat(producer2.get().get()).isEqualTo(42);
+    assertThat(producer2.calls).isEqualTo(1);
+  }
+
+  @Test
+  public void resultCache_timeoutStopsSharingPendingResult() throws Exception {
+    ProducerResultCache resultCache = ProducerResultCache.create(10, SECONDS.toNanos(10));
+    CachedProducer<Integer> producer1 =
+        new CachedProducer<>(
+            componentMonitorProvider,
+            resultCache,
+            "a",
+            SettableFuture.<Integer>create(),
+            MILLISECONDS.toNanos(1));
+    CachedProducer<Integer> producer2 =
+        new CachedProducer<>(
+            componentMonitorProvider, resultCache, "a", Futures.immediateFuture(42));
+
+    try {
+      producer1.get().get();
+      fail();
+    } catch (ExecutionException e) {
+      assertThat(e).hasCauseThat().isInstanceOf(TimeoutException.class);
+    }
+    // The timed out request stops sharing the call from the scheduler's thread, just after the
+    // request fails.
+    awaitScheduler();
+
+    assertThat(producer2.get().get()).isEqualTo(42);
+    assertThat(producer2.calls).isEqualTo(1);
+  }
+
+  @Test
+  public void resultCache_cancellationStopsSharingPendingResult() throws Exception {
+    ProducerResultCache resultCache = ProducerResultCache.create(10, SECONDS.toNanos(10));
+    SettableFuture<Integer> delegateFuture = SettableFuture.create();
+    CachedProducer<Integer> producer1 =
+        new CachedProducer<>(componentMonitorProvider, resultCache, "a", delegateFuture);
+    CachedProducer<Integer> producer2 =
+        new CachedProducer<>(componentMonitorProvider, resultCache, "a", delegateFuture);
+    CachedProducer<Integer> producer3 =
+        new CachedProducer<>(
+            componentMonitorProvider, resultCache, "a", Futures.immediateFuture(42));
+
+    producer1.get();
+    ListenableFuture<Integer> future2 = producer2.get();
+    producer1.cancel(true);
+
+    assertThat(producer3.get().get()).isEqualTo(42);
+    assertThat(producer3.calls).isEqualTo(1);
+    // The request that already shared the call isn't affected.
+    assertThat(delegateFuture.isCancelled()).isFalse();
+    delegateFuture.set(7);
+    assertThat(future2.get()).isEqualTo(7);
+    assertThat(producer2.calls).isEqualTo(0);
+  }
+
+  /**
+   * Waits until the producers' scheduler has finished the tasks that were due before this call, by
+   * waiting for a timeout that is due right after them. The scheduler only has one thread.
+   */
+  private void awaitScheduler() throws Exception {
+    ListenableFuture<Object> future =
+        new TimeoutProducer<>(componentMonitorProvider, SettableFuture.create(), 1).get();
+    try {
+      future.get();
+      fail();
+    } catch (ExecutionException expected) {
+    }
+  }
+
   private ListenableFuture<?> anyListenableFuture() {
     return any(ListenableFuture.class);
   }
@@ -145,4 +416,161 @@ public class AbstractProducesMethodProducerTest {
       return delegate;
     }
   }
+
+  static final class TimeoutProducer<T> extends AbstractProducesMethodProducer<Void, T> {
+    private final ListenableFuture<T> delegate;
+    private final long timeoutNanos;
+
+    TimeoutProducer(
+        Provider<ProductionComponentMonitor> componentMonitorProvider,
+        ListenableFuture<T> delegate,
+        long timeoutNanos) {
+      super(
+          componentMonitorProvider,
+          null, // token
+          new Provider<Executor>() {
+            @Override
+            public Executor get() {
+              return MoreExecutors.directExecutor();
+            }
+          });
+      this.delegate = delegate;
+      this.timeoutNanos = timeoutNanos;
+    }
+
+    @Override
+    protected ListenableFuture<Void> collectDependencies() {
+      return Futures.immediateFuture(null);
+    }
+
+    @Override
+    protected ListenableFuture<T> callProducesMethod(Void asyncDependencies) {
+      return delegate;
+    }
+
+    @Override
+    protected long timeoutNanos() {
+      return timeoutNanos;
+    }
+  }
+
+  static final class CachedProducer<T> extends AbstractProducesMethodProducer<String, T> {
+    private final ProducerResultCache resultCache;
+    private final String dependency;
+    private final ListenableFuture<T> delegate;
+    private final long timeoutNanos;
+    int calls;
+
+    CachedProducer(
+        Provider<ProductionComponentMonitor> componentMonitorProvider,
+        ProducerResultCache resultCache,
+        String dependency,
+        ListenableFuture<T> delegate) {
+      this(componentMonitorProvider, resultCache, dependency, delegate, 0);
+    }
+
+    CachedProducer(
+        Provider<ProductionComponentMonitor> componentMonitorProvider,
+        ProducerResultCache resultCache,
+        String dependency,
+        ListenableFuture<T> delegate,
+        long timeoutNanos) {
+      super(
+          componentMonitorProvider,
+          null, // token
+          new Provider<Executor>() {
+            @Override
+            public Executor get() {
+              return MoreExecutors.directExecutor();
+            }
+          });
+      this.resultCache = resultCache;
+      this.dependency = dependency;
+      this.delegate = delegate;
+      this.timeoutNanos = timeoutNanos;
+    }
+
+    @Override
+    protected ListenableFuture<String> collectDependencies() {
+      return Futures.immediateFuture(dependency);
+    }
+
+    @Override
+    protected ListenableFuture<T> callProducesMethod(String asyncDependencies) {
+      calls++;
+      return delegate;
+    }
+
+    @Override
+    protected long timeoutNanos() {
+      return timeoutNanos;
+    }
+
+    @Override
+    protected ProducerResultCache resultCache() {
+      return resultCache;
+    }
+  }
+
+  /** A producer whose method returns each of the given futures in turn. */
+  static final class HedgedProducer<T> extends AbstractProducesMethodProducer<Void, T> {
+    private final HedgingPolicy hedgingPolicy;
+    private final Iterator<Callable<ListenableFuture<T>>> delegates;
+
+    @SafeVarargs
+    HedgedProducer(
+        Provider<ProductionComponentMonitor> componentMonitorProvider,
+        HedgingPolicy hedgingPolicy,
+        ListenableFuture<T>... delegates) {
+      this(
+          componentMonitorProvider,
+          MoreExecutors.directExecutor(),
+          hedgingPolicy,
+          Lists.transform(
+              Arrays.asList(delegates),
+              new Function<ListenableFuture<T>, Callable<ListenableFuture<T>>>() {
+                @Override
+                public Callable<ListenableFuture<T>> apply(ListenableFuture<T> delegate) {
+                  return Callables.returning(delegate);
+                }
+              }));
+    }
+
+    HedgedProducer(
+        Provider<ProductionComponentMonitor> componentMonitorProvider,
+        final Executor executor,
+        HedgingPolicy hedgingPolicy,
+        List<Callable<ListenableFuture<T>>> delegates) {
+      super(
+          componentMonitorProvider,
+          null, // token
+          new Provider<Executor>() {
+            @Override
+            public Executor get() {
+              return executor;
+            }
+          });
+      this.hedgingPolicy = hedgingPolicy;
+      this.delegates = delegates.iterator();
+    }
+
+    @Override
+    protected ListenableFuture<Void> collectDependencies() {
+      return Futures.immediateFuture(null);
+    }
+
+    @Override
+    protected ListenableFuture<T> callProducesMethod(Void asyncDependencies) throws Exception {
+      Callable<ListenableFuture<T>> delegate;
+      synchronized (this) {
+        delegate = delegates.next();
+      }
+      return delegate.call();
+    }
+
+    @Override
+    protected HedgingPolicy hedgingPolicy() {
+      return hedgingPolicy;
+    }
+  }
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class AggregatingFutureTest {
+  private static AggregatingFuture<String, List<String>> aggregatingFuture(int size) {
+    return new AggregatingFuture<String, List<String>>(size) {
+      @Override
+      List<String> combine(List<String> values) {
+        return ImmutableList.copyOf(values);
+      }
+    };
+  }
+
+  @Test
+  public void completedInputs_completeImmediately() throws Exception {
+    AggregatingFuture<String, List<String>> future = aggregatingFuture(2);
+    future.setInput(0, Futures.immediateFuture("a"));
+    future.setInput(1, Futures.immediateFuture("b"));
+    assertThat(future.isDone()).isFalse();
+    future.inputsSet();
+    assertThat(future.isDone()).isTrue();
+    assertThat(future.get()).containsExactly("a", "b").inOrder();
+  }
+
+  @Test
+  public void pendingInputs_keepIndexOrder() throws Exception {
+    SettableFuture<String> first = SettableFuture.create();
+    SettableFuture<String> second = SettableFuture.create();
+    AggregatingFuture<String, List<String>> future = aggregatingFuture(2);
+    future.setInput(0, first);
+    future.setInput(1, second);
+    future.inputsSet();
+    second.set("b");
+    assertThat(future.isDone()).isFalse();
+    first.set("a");
+    assertThat(future.get()).containsExactly("a", "b").inOrder();
+  }
+
+  @Test
+  public void noInputs() throws Exception {
+    AggregatingFuture<String, List<String>> future = aggregatingFuture(0);
+    future.inputsSet();
+    assertThat(future.get()).isEmpty();
+  }
+
+  @Test
+  public void failedInput_failsWithoutCancellingOtherInputs() throws Exception {
+    RuntimeException cause = new RuntimeException("monkey");
+    SettableFuture<String> failing = SettableFuture.create();
+    SettableFuture<String> pending = SettableFuture.create();
+    AggregatingFuture<String, List<String>> future = aggregatingFuture(2);
+    future.setInput(0, failing);
+    future.setInput(1, pending);
+    future.inputsSet();
+    failing.setException(cause);
+    try {
+      future.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertThat(e).hasCauseThat().isSameInstanceAs(cause);
+    }
+    assertThat(pending.isCancelled()).isFalse();
+  }
+
+  @Test
+  public void cancelledInput_cancelsFuture() throws Exception {
+    SettableFuture<String> cancelled = SettableFuture.create();
+    SettableFuture<String> pending = SettableFuture.create();
+    AggregatingFuture<String, List<String>> future = aggregatingFuture(2);
+    future.setInput(0, cancelled);
+    future.setInput(1, pending);
+    future.inputsSet();
+    cancelled.cancel(false);
+    assertThat(future.isCancelled()).isTrue();
+    assertThat(pending.isCancelled()).isTrue();
+  }
+
+  @Test
+  public void cancellingFuture_cancelsInputs() throws Exception {
+    SettableFuture<String> input = SettableFuture.create();
+    SettableFuture<String> lateInput = SettableFuture.create();
+    AggregatingFuture<String, List<String>> future = aggregatingFuture(2);
+    future.setInput(0, input);
+    future.cancel(true);
+    assertThat(input.isCancelled()).isTrue();
+    future.setInput(1, lateInput);
+    assertThat(lateInput.isCancelled()).isTrue();
+  }
+
+  @Test
+  public void combineFailure_failsFuture() throws Exception {
+    final RuntimeException cause = new RuntimeException("monkey");
+    AggregatingFuture<String, String> future =
+        new AggregatingFuture<String, String>(1) {
+          @Override
+          String combine(List<String> values) {
+            throw cause;
+          }
+        };
+    ListenableFuture<String> input = Futures.immediateFuture("a");
+    future.setInput(0, input);
+    future.inputsSet();
+    try {
+      future.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertThat(e).hasCauseThat().isSameInstanceAs(cause);
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests {@link CompletionStageFuture}. */
+@RunWith(JUnit4.class)
+public class CompletionStageFutureTest {
+  @Test
+  public void success() throws Exception {
+    CompletableFuture<String> stage = new CompletableFuture<>();
+    ListenableFuture<String> future = CompletionStageFuture.create(stage);
+    assertThat(future.isDone()).isFalse();
+    stage.complete("monkey");
+    assertThat(future.isDone()).isTrue();
+    assertThat(future.get()).isEqualTo("monkey");
+  }
+
+  @Test
+  public void failure() throws Exception {
+    RuntimeException exception = new RuntimeException("monkey");
+    CompletableFuture<String> stage = new CompletableFuture<>();
+    ListenableFuture<String> future =
+        CompletionStageFuture.create(stage.thenApply(Function.<String>identity()));
+    stage.completeExceptionally(exception);
+    assertThat(future.isDone()).isTrue();
+    try {
+      future.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isSameInstanceAs(exception);
+    }
+  }
+
+  @Test
+  public void cancelPropagatesToStage() throws Exception {
+    CompletableFuture<String> stage = new CompletableFuture<>();
+    ListenableFuture<String> future = CompletionStageFuture.create(stage);
+    future.cancel(true);
+    assertThat(stage.isCancelled()).isTrue();
+  }
+
+  @Test
+  public void stageCancellationPropagates() throws Exception {
+    CompletableFuture<String> stage = new CompletableFuture<>();
+    ListenableFuture<String> future = CompletionStageFuture.create(stage);
+    stage.cancel(false);
+    assertThat(future.isCancelled()).isTrue();
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class HedgingPolicyTest {
+  @Test
+  public void initialDelay() {
+    HedgingPolicy policy = HedgingPolicy.create(95, 1000);
+    for (int i = 0; i < 100; i++) {
+      policy.recordLatency(1);
+    }
+    assertThat(policy.delayNanos()).isEqualTo(1000);
+  }
+
+  @Test
+  public void percentileOfRecentLatencies() {
+    HedgingPolicy policy = HedgingPolicy.create(50, 1000);
+    for (int i = 1; i <= 128; i++) {
+      policy.recordLatency(i);
+    }
+    assertThat(policy.delayNanos()).isEqualTo(64);
+
+    for (int i = 0; i < 128; i++) {
+      policy.recordLatency(5000);
+    }
+    assertThat(policy.delayNanos()).isEqualTo(5000);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void percentileOutOfRange() {
+    HedgingPolicy.create(100, 1000);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void nonPositiveInitialDelay() {
+    HedgingPolicy.create(95, 0);
+  }
+}
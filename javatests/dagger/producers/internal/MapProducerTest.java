@@ -19,6 +19,8 @@ package dagger.producers.internal;
 import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.fail;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import dagger.producers.Producer;
 import dagger.producers.Producers;
 import java.util.Map;
@@ -58,4 +60,27 @@ public final class MapProducerTest {
       assertThat(e).hasCauseThat().isSameInstanceAs(cause);
     }
   }
+
+  @Test
+  public void pendingContributions() throws Exception {
+    SettableFuture<String> fifteen = SettableFuture.create();
+    Producer<Map<Integer, String>> mapProducer =
+        MapProducer.<Integer, String>builder(2)
+            .put(15, producerOf(fifteen))
+            .put(42, Producers.immediateProducer("forty two"))
+            .build();
+    ListenableFuture<Map<Integer, String>> future = mapProducer.get();
+    assertThat(future.isDone()).isFalse();
+    fifteen.set("fifteen");
+    assertThat(future.get()).containsExactly(15, "fifteen", 42, "forty two").inOrder();
+  }
+
+  private static <T> Producer<T> producerOf(final ListenableFuture<T> future) {
+    return new Producer<T>() {
+      @Override
+      public ListenableFuture<T> get() {
+        return future;
+      }
+    };
+  }
 }
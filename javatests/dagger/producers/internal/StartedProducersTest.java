@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import dagger.producers.Producer;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class StartedProducersTest {
+  private final StartedProducers startedProducers = new StartedProducers(2);
+
+  @Test
+  public void cancel_onlyCancelsStartedProducers() {
+    CountingProducer started = new CountingProducer();
+    CountingProducer notStarted = new CountingProducer();
+    startedProducers.track(started);
+    startedProducers.track(notStarted);
+
+    ListenableFuture<Integer> future = started.get();
+    startedProducers.cancel(true);
+
+    assertThat(future.isCancelled()).isTrue();
+    assertThat(started.computed.isCancelled()).isTrue();
+    assertThat(notStarted.computeCalls).isEqualTo(0);
+  }
+
+  @Test
+  public void startedAfterCancel_isCancelledWithoutComputing() {
+    CountingProducer producer = new CountingProducer();
+    startedProducers.track(producer);
+    startedProducers.cancel(false);
+
+    assertThat(producer.get().isCancelled()).isTrue();
+    assertThat(producer.computeCalls).isEqualTo(0);
+  }
+
+  @Test
+  public void cancel_cancelsOtherProducersWhetherOrNotStarted() {
+    CountingProducer delegate = new CountingProducer();
+    startedProducers.track(delegate);
+    DelegateProducer<Integer> delegateProducer = new DelegateProducer<>();
+    DelegateProducer.setDelegate(delegateProducer, delegate);
+    startedProducers.track(delegateProducer);
+
+    startedProducers.cancel(true);
+
+    assertThat(delegate.get().isCancelled()).isTrue();
+    assertThat(delegate.computeCalls).isEqualTo(0);
+  }
+
+  @Test
+  public void track_returnsProducer() {
+    CountingProducer producer = new CountingProducer();
+    assertThat(startedProducers.track(producer)).isSameInstanceAs(producer);
+  }
+
+  @Test
+  public void track_producerOfOtherComponent_staysWithOtherComponent() {
+    StartedProducers otherStartedProducers = new StartedProducers(1);
+    CountingProducer producer = new CountingProducer();
+    otherStartedProducers.track(producer);
+    startedProducers.track(producer);
+
+    ListenableFuture<Integer> future = producer.get();
+    startedProducers.cancel(true);
+    assertThat(future.isCancelled()).isFalse();
+
+    otherStartedProducers.cancel(true);
+    assertThat(future.isCancelled()).isTrue();
+  }
+
+  @Test
+  public void track_nonCancellableProducer() {
+    Producer<Integer> producer =
+        new Producer<Integer>() {
+          @Override
+          public ListenableFuture<Integer> get() {
+            return SettableFuture.create();
+          }
+        };
+    try {
+      startedProducers.track(producer);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  private static final class CountingProducer extends AbstractProducer<Integer> {
+    final SettableFuture<Integer> computed = SettableFuture.create();
+    int computeCalls;
+
+    @Override
+    protected ListenableFuture<Integer> compute() {
+      computeCalls++;
+      return computed;
+    }
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.monitoring;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.testing.FakeTicker;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class TracingProductionComponentMonitorTest {
+  private static final ProducerToken TOKEN_A = ProducerToken.create("A");
+  private static final ProducerToken TOKEN_B = ProducerToken.create("B");
+  private static final ProducerToken TOKEN_C = ProducerToken.create("C");
+
+  private FakeTicker ticker;
+  private TracingProductionComponentMonitor.Factory monitorFactory;
+
+  @Before
+  public void setUp() {
+    ticker = new FakeTicker();
+    monitorFactory = new TracingProductionComponentMonitor.Factory(ticker);
+  }
+
+  @Test
+  public void criticalPath() {
+    Object component = new Object();
+    ProductionComponentMonitor monitor = monitorFactory.create(component);
+    // A depends on B and C, and C takes longer than B.
+    ProducerMonitor producerMonitorA = monitor.producerMonitorFor(TOKEN_A);
+    producerMonitorA.requested();
+    ProducerMonitor producerMonitorB = monitor.producerMonitorFor(TOKEN_B);
+    producerMonitorB.requested();
+    producerMonitorB.ready();
+    ProducerMonitor producerMonitorC = monitor.producerMonitorFor(TOKEN_C);
+    producerMonitorC.requested();
+    producerMonitorC.ready();
+    runMethod(producerMonitorB, 1000);
+    producerMonitorB.succeeded("b");
+    runMethod(producerMonitorC, 5000);
+    producerMonitorC.succeeded("c");
+    producerMonitorA.ready();
+    runMethod(producerMonitorA, 1000);
+    producerMonitorA.succeeded("a");
+
+    assertThat(monitorFactory.traceFor(component).criticalPath())
+        .containsExactly(TOKEN_C, TOKEN_A)
+        .inOrder();
+  }
+
+  @Test
+  public void criticalPath_inputCompletedBeforeRequest() {
+    Object component = new Object();
+    ProductionComponentMonitor monitor = monitorFactory.create(component);
+    ProducerMonitor producerMonitorB = monitor.producerMonitorFor(TOKEN_B);
+    producerMonitorB.requested();
+    producerMonitorB.ready();
+    runMethod(producerMonitorB, 1000);
+    producerMonitorB.succeeded("b");
+    ticker.advance(1000);
+    ProducerMonitor producerMonitorA = monitor.producerMonitorFor(TOKEN_A);
+    producerMonitorA.requested();
+    producerMonitorA.ready();
+    runMethod(producerMonitorA, 1000);
+    producerMonitorA.succeeded("a");
+
+    assertThat(monitorFactory.traceFor(component).criticalPath()).containsExactly(TOKEN_A);
+  }
+
+  @Test
+  public void chromeTraceJson() {
+    Object component = new Object();
+    ProductionComponentMonitor monitor = monitorFactory.create(component);
+    ProducerMonitor producerMonitorA = monitor.producerMonitorFor(TOKEN_A);
+    ticker.advance(1000);
+    producerMonitorA.requested();
+    producerMonitorA.ready();
+    producerMonitorA.methodStarting();
+    ticker.advance(2500);
+    producerMonitorA.methodFinished();
+    producerMonitorA.failed(new RuntimeException("monkey"));
+
+    long threadId = Thread.currentThread().getId();
+    assertThat(monitorFactory.traceFor(component).toChromeTraceJson())
+        .isEqualTo(
+            "{\"traceEvents\":["
+                + "{\"name\":\"A\",\"cat\":\"producer,critical_path\",\"ph\":\"b\",\"ts\":1.0,"
+                + "\"pid\":1,\"tid\":" + threadId + ",\"id\":1,\"args\":{\"ready\":1.0}},"
+                + "{\"name\":\"A\",\"cat\":\"producer,critical_path\",\"ph\":\"e\",\"ts\":3.5,"
+                + "\"pid\":1,\"tid\":" + threadId + ",\"id\":1},"
+                + "{\"name\":\"A\",\"cat\":\"method\",\"ph\":\"X\",\"ts\":1.0,"
+                + "\"pid\":1,\"tid\":" + threadId + ",\"dur\":2.5}"
+                + "],\"displayTimeUnit\":\"ms\"}");
+  }
+
+  @Test
+  public void traceFor_unknownComponent() {
+    assertThat(monitorFactory.traceFor(new Object())).isNull();
+  }
+
+  private void runMethod(ProducerMonitor producerMonitor, long durationNanos) {
+    producerMonitor.methodStarting();
+    ticker.advance(durationNanos);
+    producerMonitor.methodFinished();
+  }
+}